@@ -0,0 +1,48 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.maven.p2.utils.BundleUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link BundleUtils#getOSGIVersion(String)} over the maven version forms seen in carbon builds.
+ *
+ * @since 3.1.6
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BundleUtilsBenchmark {
+
+    private final String[] versions = new String[]{"4.4.0", "4.4.0-SNAPSHOT", "5.1.0-m2", "1.0", "2", "1.2.3.wso2v1",
+            "3.1.6-SNAPSHOT", "4.6.2-beta"};
+
+    @Benchmark
+    public void getOSGIVersion(Blackhole blackhole) {
+        for (String version : versions) {
+            blackhole.consume(BundleUtils.getOSGIVersion(version));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.wso2.maven.p2.feature.generate.Bundle;
+import org.wso2.maven.p2.feature.generate.Feature;
+import org.wso2.maven.p2.feature.generate.FeatureResourceBundle;
+import org.wso2.maven.p2.feature.generate.utils.FeatureFileGeneratorUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link FeatureFileGeneratorUtils#createFeatureXml(FeatureResourceBundle, File)} with a synthetic
+ * manifest listing {@code pluginCount} plugins, half of which are configured again as bundles of the feature along
+ * with as many bundles missing from the manifest.
+ *
+ * @since 3.1.6
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeatureXmlBenchmark {
+
+    @Param({"1000"})
+    private int pluginCount;
+
+    private File manifest;
+    private File featureXml;
+    private FeatureResourceBundle resourceBundle;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder builder = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<feature id=\"org.wso2.carbon.benchmark\" label=\"Benchmark Feature\">\n")
+                .append("  <description>Synthetic feature</description>\n");
+        for (int i = 0; i < pluginCount; i++) {
+            builder.append("  <plugin id=\"org.wso2.carbon.plugin").append(i)
+                    .append("\" version=\"1.0.0\" unpack=\"false\"/>\n");
+        }
+        builder.append("  <require>\n");
+        for (int i = 0; i < pluginCount / 10; i++) {
+            builder.append("    <import feature=\"org.wso2.carbon.imported").append(i)
+                    .append("\" version=\"1.0.0\" match=\"compatible\"/>\n");
+        }
+        builder.append("  </require>\n</feature>\n");
+        manifest = File.createTempFile("feature", ".xml");
+        Files.write(manifest.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+        featureXml = File.createTempFile("feature-out", ".xml");
+
+        List<Bundle> bundles = new ArrayList<>();
+        for (int i = pluginCount / 2; i < pluginCount + pluginCount / 2; i++) {
+            Bundle bundle = new Bundle();
+            bundle.setArtifactId("org.wso2.carbon.plugin" + i);
+            bundle.setSymbolicName("org.wso2.carbon.plugin" + i);
+            bundle.setVersion("1.0.0");
+            bundle.setBundleVersion("1.0.0");
+            bundles.add(bundle);
+        }
+        List<Feature> importFeatures = new ArrayList<>();
+        for (int i = 0; i < pluginCount / 5; i++) {
+            Feature feature = new Feature();
+            feature.setId("org.wso2.carbon.imported" + i);
+            feature.setVersion("1.0.0");
+            importFeatures.add(feature);
+        }
+
+        resourceBundle = new FeatureResourceBundle();
+        resourceBundle.setId("org.wso2.carbon.benchmark");
+        resourceBundle.setVersion("1.0.0");
+        resourceBundle.setLabel("Benchmark Feature");
+        resourceBundle.setProviderName("WSO2");
+        resourceBundle.setDescription("Synthetic feature");
+        resourceBundle.setCopyright("WSO2");
+        resourceBundle.setLicenceUrl("http://www.apache.org/licenses/LICENSE-2.0");
+        resourceBundle.setLicence("Apache License, Version 2.0");
+        resourceBundle.setManifest(manifest);
+        resourceBundle.setBundles(bundles);
+        resourceBundle.setImportFeatures(importFeatures);
+        resourceBundle.setIncludeFeatures(new ArrayList<>());
+        resourceBundle.setLog(new QuietLog());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(manifest.toPath());
+        Files.deleteIfExists(featureXml.toPath());
+    }
+
+    @Benchmark
+    public File createFeatureXml() throws Exception {
+        FeatureFileGeneratorUtils.createFeatureXml(resourceBundle, featureXml);
+        return featureXml;
+    }
+}
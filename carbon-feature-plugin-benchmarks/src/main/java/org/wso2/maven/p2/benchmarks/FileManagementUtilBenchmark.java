@@ -0,0 +1,119 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.benchmarks;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.wso2.maven.p2.utils.FileManagementUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the zip, unzip and copy routines of {@link FileManagementUtil} over a synthetic feature layout of many
+ * small bundles and a few large ones.
+ *
+ * @since 3.1.6
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileManagementUtilBenchmark {
+
+    private static final int SMALL_FILE_COUNT = 500;
+    private static final int SMALL_FILE_SIZE = 32 * 1024;
+    private static final int LARGE_FILE_COUNT = 5;
+    private static final int LARGE_FILE_SIZE = 16 * 1024 * 1024;
+
+    private File workDir;
+    private File sourceDir;
+    private File archive;
+    private File outputDir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("carbon-feature-plugin-benchmark").toFile();
+        sourceDir = new File(workDir, "raw");
+        File pluginsDir = new File(sourceDir, "plugins");
+        File featureDir = new File(sourceDir, "features/org.wso2.carbon.benchmark_1.0.0");
+        if (!pluginsDir.mkdirs() || !featureDir.mkdirs()) {
+            throw new IOException("Unable to create " + sourceDir);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < SMALL_FILE_COUNT; i++) {
+            Files.write(new File(pluginsDir, "org.wso2.carbon.bundle" + i + "_1.0.0.jar").toPath(),
+                    content(random, SMALL_FILE_SIZE));
+        }
+        for (int i = 0; i < LARGE_FILE_COUNT; i++) {
+            Files.write(new File(featureDir, "resource" + i + ".txt").toPath(), content(random, LARGE_FILE_SIZE));
+        }
+        archive = new File(workDir, "feature.zip");
+        FileManagementUtil.zipFolder(sourceDir.getAbsolutePath(), archive.getAbsolutePath(), new QuietLog());
+    }
+
+    @Setup(Level.Invocation)
+    public void clearOutput() throws IOException {
+        outputDir = new File(workDir, "out");
+        FileUtils.deleteDirectory(outputDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDir);
+    }
+
+    @Benchmark
+    public File zipFolder() {
+        File zip = new File(workDir, "out.zip");
+        FileManagementUtil.zipFolder(sourceDir.getAbsolutePath(), zip.getAbsolutePath(), new QuietLog());
+        return zip;
+    }
+
+    @Benchmark
+    public File unzip() throws IOException {
+        FileManagementUtil.unzip(archive, outputDir);
+        return outputDir;
+    }
+
+    @Benchmark
+    public File copyDirectory() throws IOException {
+        FileManagementUtil.copyDirectory(sourceDir, outputDir);
+        return outputDir;
+    }
+
+    /**
+     * Half random and half repeated bytes, so that the content compresses about as well as class files do.
+     */
+    private static byte[] content(Random random, int size) {
+        byte[] content = new byte[size];
+        random.nextBytes(content);
+        for (int i = 0; i < size; i += 2) {
+            content[i] = (byte) (i % 31);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.wso2.maven.p2.utils.P2Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link P2Utils#getLastIndexOfProperties(File)} over a p2.inf with many advice properties.
+ *
+ * @since 3.1.6
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class P2UtilsBenchmark {
+
+    private static final int PROPERTY_COUNT = 1000;
+
+    private File p2InfFile;
+
+    @Setup
+    public void setup() throws IOException {
+        p2InfFile = File.createTempFile("p2", ".inf");
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < PROPERTY_COUNT; i++) {
+            builder.append("properties.").append(i).append(".name=org.wso2.carbon.p2.category.type").append('\n')
+                    .append("properties.").append(i).append(".value=server").append('\n');
+        }
+        Files.write(p2InfFile.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(p2InfFile.toPath());
+    }
+
+    @Benchmark
+    public int getLastIndexOfProperties() throws IOException {
+        return P2Utils.getLastIndexOfProperties(p2InfFile);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.wso2.maven.p2.utils.PropertyReplacer;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link PropertyReplacer#replaceProperties(String, Properties)} against a project sized property set.
+ *
+ * @since 3.1.6
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropertyReplacerBenchmark {
+
+    private static final int PROPERTY_COUNT = 500;
+
+    private Properties properties;
+    private String text;
+
+    @Setup
+    public void setup() {
+        properties = new Properties();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < PROPERTY_COUNT; i++) {
+            properties.setProperty("carbon.feature." + i + ".version", "4.4." + i);
+            if (i % 10 == 0) {
+                builder.append("org.wso2.carbon.feature").append(i).append(':')
+                        .append("${carbon.feature.").append(i).append(".version},");
+            }
+        }
+        builder.append("${undefined.property}");
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public String replaceProperties() {
+        return PropertyReplacer.replaceProperties(text, properties);
+    }
+}
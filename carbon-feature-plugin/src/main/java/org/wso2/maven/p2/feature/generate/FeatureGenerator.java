@@ -19,27 +19,35 @@ package org.wso2.maven.p2.feature.generate;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
 import org.codehaus.plexus.util.DirectoryScanner;
-import org.codehaus.plexus.util.FileUtils;
 import org.wso2.maven.p2.beans.CarbonArtifact;
 import org.wso2.maven.p2.exceptions.CarbonArtifactNotFoundException;
 import org.wso2.maven.p2.exceptions.MissingRequiredPropertyException;
 import org.wso2.maven.p2.feature.generate.utils.FeatureFileGeneratorUtils;
+import org.wso2.maven.p2.utils.BuildMetrics;
 import org.wso2.maven.p2.utils.BundleUtils;
 import org.wso2.maven.p2.utils.DependencyResolver;
+import org.wso2.maven.p2.utils.DirectoryDeleter;
+import org.wso2.maven.p2.utils.FileCopier;
 import org.wso2.maven.p2.utils.FileManagementUtil;
+import org.wso2.maven.p2.utils.InputFingerprint;
 import org.xml.sax.SAXException;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 
@@ -62,7 +70,8 @@ public class FeatureGenerator {
     private File p2InfFile;
     private File featurePropertyFile;
     private File featureManifestFile;
-    private File featureZipFile;
+    private final File featureZipFile;
+    private final File fingerprintFile;
 
     /**
      * Represents the bundles in which the feature being created depends on.
@@ -93,6 +102,9 @@ public class FeatureGenerator {
         this.log = resourceBundle.getLog();
         this.project = resourceBundle.getProject();
         this.projectHelper = resourceBundle.getProjectHelper();
+        File destFolder = new File(project.getBasedir(), "target");
+        this.featureZipFile = new File(destFolder, project.getArtifactId() + "-" + project.getVersion() + ".zip");
+        this.fingerprintFile = new File(destFolder, featureZipFile.getName() + ".fingerprint");
     }
 
     /**
@@ -103,16 +115,58 @@ public class FeatureGenerator {
      * @throws MojoFailureException   throws when the tool breaks for any configuration issues
      */
     public void generate() throws MojoExecutionException, MojoFailureException {
+        BuildMetrics metrics = resourceBundle.getMetrics();
         try {
-            resolveMavenProjectDependencies();
-            populateRequiredArtifactData();
-            setupTempOutputFolderStructure();
-            copyFeatureResources();
-            generateFeatureOutputFiles();
-            copyAllIncludedArtifacts();
-            createFeatureArchive();
+            try (BuildMetrics.Step step = metrics.step("resolveMavenProjectDependencies")) {
+                resolveMavenProjectDependencies();
+            }
+            try (BuildMetrics.Step step = metrics.step("populateRequiredArtifactData")) {
+                populateRequiredArtifactData();
+            }
+            String inputFingerprint = null;
+            if (resourceBundle.isIncremental()) {
+                try (BuildMetrics.Step step = metrics.step("computeInputFingerprint")) {
+                    inputFingerprint = computeInputFingerprint();
+                }
+                if (InputFingerprint.isUpToDate(fingerprintFile, inputFingerprint, featureZipFile)) {
+                    this.log.info("Feature archive is up to date: " + featureZipFile.getAbsolutePath());
+                    deployArtifact();
+                    return;
+                }
+            }
+            try (BuildMetrics.Step step = metrics.step("setupTempOutputFolderStructure")) {
+                setupTempOutputFolderStructure();
+            }
+            try (BuildMetrics.Step step = metrics.step("copyFeatureResources")) {
+                copyFeatureResources();
+                step.written(featureIdFolder);
+            }
+            try (BuildMetrics.Step step = metrics.step("generateFeatureOutputFiles")) {
+                generateFeatureOutputFiles();
+                step.written(featureXmlFile);
+                step.written(featurePropertyFile);
+                step.written(featureManifestFile);
+                step.written(p2InfFile);
+            }
+            try (BuildMetrics.Step step = metrics.step("copyAllIncludedArtifacts")) {
+                copyAllIncludedArtifacts();
+                for (Bundle bundle : resourceBundle.getBundles()) {
+                    step.read(bundle.getArtifact().getFile());
+                }
+                step.written(pluginsFolder);
+            }
+            try (BuildMetrics.Step step = metrics.step("createFeatureArchive")) {
+                createFeatureArchive();
+                step.read(rowOutputFolder);
+                step.written(featureZipFile);
+            }
+            if (inputFingerprint != null) {
+                InputFingerprint.write(fingerprintFile, inputFingerprint, featureZipFile);
+            }
             deployArtifact();
-            performMopUp();
+            try (BuildMetrics.Step step = metrics.step("performMopUp")) {
+                performMopUp();
+            }
         } catch (IOException | TransformerException | ParserConfigurationException | SAXException e) {
             throw new MojoExecutionException(e.getMessage(), e);
         } catch (CarbonArtifactNotFoundException | MissingRequiredPropertyException e) {
@@ -128,9 +182,25 @@ public class FeatureGenerator {
      */
     private void resolveMavenProjectDependencies() throws IOException {
         this.log.info("Inspecting maven dependencies.");
-        List<HashMap<String, CarbonArtifact>> artifacts = DependencyResolver.getDependenciesForProject(project,
-                resourceBundle.getRepositorySystem(),
-                resourceBundle.getRemoteRepositories(), resourceBundle.getLocalRepository());
+        List<HashMap<String, CarbonArtifact>> artifacts;
+        if (resourceBundle.isResolveReferencedDependenciesOnly()) {
+            Set<String> bundleKeys = new HashSet<>();
+            for (Bundle bundle : resourceBundle.getBundles()) {
+                bundleKeys.add(bundle.getSymbolicName() + "_" + bundle.getOSGIVersion());
+                bundleKeys.add(bundle.getSymbolicName() + "_" + bundle.getVersion());
+            }
+            Set<String> featureKeys = new HashSet<>();
+            for (Feature feature : resourceBundle.getIncludeFeatures()) {
+                featureKeys.add(feature.getId() + ".feature" + "_" + feature.getVersion());
+            }
+            artifacts = DependencyResolver.getReferencedDependenciesForProject(project,
+                    resourceBundle.getRepositorySystem(), resourceBundle.getRemoteRepositories(),
+                    resourceBundle.getLocalRepository(), bundleKeys, featureKeys, resourceBundle.getArtifactIndex());
+        } else {
+            artifacts = DependencyResolver.getDependenciesForProject(project, resourceBundle.getRepositorySystem(),
+                    resourceBundle.getRemoteRepositories(), resourceBundle.getLocalRepository(),
+                    resourceBundle.getArtifactIndex());
+        }
         dependentBundles = artifacts.get(0);
         dependentFeatures = artifacts.get(1);
     }
@@ -187,6 +257,65 @@ public class FeatureGenerator {
         }
     }
 
+    /**
+     * Fingerprint everything the feature archive is generated from: the plugin and its configuration, the resolved
+     * bundles and features, the manifest and property files and the project resources with their settings.
+     *
+     * @return fingerprint of the inputs
+     * @throws IOException
+     */
+    private String computeInputFingerprint() throws IOException {
+        PluginDescriptor pluginDescriptor = resourceBundle.getPluginDescriptor();
+        InputFingerprint fingerprint = new InputFingerprint()
+                .add("artifact", project.getArtifactId() + ":" + project.getVersion())
+                .add("plugin", pluginDescriptor == null ? null : pluginDescriptor.getId())
+                .addFile("pluginFile", pluginDescriptor == null || pluginDescriptor.getPluginArtifact() == null
+                        ? null : pluginDescriptor.getPluginArtifact().getFile())
+                .add("id", resourceBundle.getId())
+                .add("version", resourceBundle.getVersion())
+                .add("label", resourceBundle.getLabel())
+                .add("description", resourceBundle.getDescription())
+                .add("providerName", resourceBundle.getProviderName())
+                .add("copyright", resourceBundle.getCopyright())
+                .add("licenceUrl", resourceBundle.getLicenceUrl())
+                .add("licence", resourceBundle.getLicence())
+                .add("streamIncludedFeatures", resourceBundle.isStreamIncludedFeatures())
+                .addFile("manifest", resourceBundle.getManifest())
+                .addFile("propertyFile", resourceBundle.getPropertyFile())
+                .addFile("propertyFileInResourceDir", resourceBundle.getPropertyFileInResourceDir());
+        if (resourceBundle.getProperties() != null) {
+            fingerprint.add("properties", new TreeMap<>(resourceBundle.getProperties()));
+        }
+        for (Bundle bundle : resourceBundle.getBundles()) {
+            fingerprint.add("bundle", bundle.toOSGIString() + ":" + bundle.getCompatibility())
+                    .addFile("bundleFile", bundle.getArtifact().getFile());
+        }
+        if (resourceBundle.getImportFeatures() != null) {
+            for (Feature feature : resourceBundle.getImportFeatures()) {
+                fingerprint.add("importFeature", feature.getId() + ":" + feature.getVersion() + ":"
+                        + feature.getCompatibility() + ":" + feature.isOptional());
+            }
+        }
+        for (Feature feature : resourceBundle.getIncludeFeatures()) {
+            fingerprint.add("includeFeature", feature.getId() + ":" + feature.getVersion() + ":"
+                    + feature.isOptional())
+                    .addFile("includeFeatureFile", feature.getArtifact().getFile());
+        }
+        if (resourceBundle.getAdviceFileContent() != null) {
+            for (Advice advice : resourceBundle.getAdviceFileContent()) {
+                fingerprint.add("advice", advice.getName() + "=" + advice.getValue());
+            }
+        }
+        for (Resource resource : project.getResources()) {
+            fingerprint.add("resourceIncludes", resource.getIncludes())
+                    .add("resourceExcludes", resource.getExcludes())
+                    .add("resourceFiltering", resource.isFiltering())
+                    .add("resourceTargetPath", resource.getTargetPath())
+                    .addDirectory("resource", new File(resource.getDirectory()));
+        }
+        return fingerprint.getValue();
+    }
+
     /**
      * Generates feature.xml, features.properties, manifest file for the feature and p2inf file.
      *
@@ -219,7 +348,6 @@ public class FeatureGenerator {
         featurePropertyFile = new File(featureIdFolder, "feature.properties");
         p2InfFile = new File(featureIdFolder, "p2.inf");
         featureManifestFile = new File(featureMetaInfFolder, "MANIFEST.MF");
-        featureZipFile = new File(destFolder, project.getArtifactId() + "-" + project.getVersion() + ".zip");
         if (!featureMetaInfFolder.mkdirs()) {
             throw new IOException("Unable to create folder " + featureMetaInfFolder.getAbsolutePath());
         }
@@ -230,13 +358,16 @@ public class FeatureGenerator {
     }
 
     /**
-     * Copy all the dependencies into output folder.
+     * Copy all the dependencies into output folder. Included features are left out when they are streamed into the
+     * feature archive.
      *
      * @throws IOException
      */
     private void copyAllIncludedArtifacts() throws IOException {
         copyBundles();
-        copyIncludedFeatures();
+        if (!resourceBundle.isStreamIncludedFeatures()) {
+            copyIncludedFeatures();
+        }
     }
 
     /**
@@ -252,7 +383,8 @@ public class FeatureGenerator {
                 try {
                     this.log.info("   " + bundle.toOSGIString());
                     String bundleName = bundle.getSymbolicName() + "-" + bundle.getBundleVersion() + ".jar";
-                    FileUtils.copyFile(bundle.getArtifact().getFile(), new File(pluginsFolder, bundleName));
+                    FileCopier.copyFile(bundle.getArtifact().getFile().toPath(),
+                            new File(pluginsFolder, bundleName).toPath(), true);
                 } catch (IOException e) {
                     throw new IOException("Unable copy dependency: " + bundle.getArtifactId(), e);
                 }
@@ -283,12 +415,29 @@ public class FeatureGenerator {
     }
 
     /**
-     * Zip the created features folder.
+     * Zip the created features folder. If included features are streamed, their archives are merged into the feature
+     * archive here instead of being extracted into the output folder beforehand.
+     * <p>
+     * The archive is reproducible, and an existing archive with the same content is kept as it is so that modules
+     * and goals consuming it do not see it as changed.
+     * </p>
+     *
+     * @throws IOException throws when unable to create the feature archive
      */
-    private void createFeatureArchive() {
+    private void createFeatureArchive() throws IOException {
         this.log.info("Generating feature archive: " + featureZipFile.getAbsolutePath());
-        FileManagementUtil.zipFolder(rowOutputFolder.getAbsolutePath(), featureZipFile.getAbsolutePath(),
-                resourceBundle.getLog());
+        List<File> includedFeatureArchives = new ArrayList<>();
+        if (resourceBundle.isStreamIncludedFeatures()) {
+            for (Feature includedFeature : resourceBundle.getIncludeFeatures()) {
+                this.log.info("Merging feature " + includedFeature.getGroupId() + ":" +
+                        includedFeature.getArtifactId());
+                includedFeatureArchives.add(includedFeature.getArtifact().getFile());
+            }
+        }
+        if (!FileManagementUtil.zipFolderIfChanged(rowOutputFolder.getAbsolutePath(), includedFeatureArchives,
+                featureZipFile.getAbsolutePath())) {
+            this.log.info("Feature archive content is unchanged, keeping " + featureZipFile.getAbsolutePath());
+        }
     }
 
     private void deployArtifact() {
@@ -348,11 +497,15 @@ public class FeatureGenerator {
     }
 
     /**
-     * Deletes the temp output folder.
+     * Deletes the temp output folder, in the background if the cleanup is deferred.
      */
     private void performMopUp() {
         try {
-            FileUtils.deleteDirectory(rowOutputFolder);
+            if (resourceBundle.isDeferCleanup()) {
+                DirectoryDeleter.deleteLater(rowOutputFolder.toPath(), this.log);
+            } else {
+                DirectoryDeleter.delete(rowOutputFolder.toPath());
+            }
         } catch (IOException e) {
             this.log.warn(new IOException("Unable complete mop up operation", e));
         }
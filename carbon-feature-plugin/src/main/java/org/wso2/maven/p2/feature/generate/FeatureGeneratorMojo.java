@@ -16,9 +16,11 @@
 package org.wso2.maven.p2.feature.generate;
 
 import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -26,6 +28,8 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
 import org.apache.maven.repository.RepositorySystem;
+import org.wso2.maven.p2.utils.ArtifactIndex;
+import org.wso2.maven.p2.utils.BuildMetrics;
 
 import java.io.File;
 import java.util.List;
@@ -36,7 +40,7 @@ import java.util.Properties;
  *
  * @since 2.0.0
  */
-@Mojo(name = "generate", defaultPhase = LifecyclePhase.PACKAGE)
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
 public class FeatureGeneratorMojo extends AbstractMojo {
 
     @Parameter(defaultValue = "${project.artifactId}")
@@ -105,6 +109,42 @@ public class FeatureGeneratorMojo extends AbstractMojo {
     @Parameter
     private List<Advice> adviceFileContents;
 
+    /**
+     * Merge the archives of the included features straight into the feature archive instead of extracting them into
+     * the temporary output folder first.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean streamIncludedFeatures;
+
+    /**
+     * Resolve only the dependencies which can match the configured bundles and included features instead of every
+     * dependency and dependencyManagement entry of the project.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean resolveReferencedDependenciesOnly;
+
+    /**
+     * Skip generating the feature when its inputs have not changed since the feature archive was last generated. Input
+     * files are compared by path, size and modification time only, so an edit keeping both the size and the
+     * timestamp goes unnoticed.
+     */
+    @Parameter(property = "carbon.p2.incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * Delete the temp output folder in the background, after moving it out of the way, instead of before the goal
+     * completes.
+     */
+    @Parameter(property = "carbon.p2.deferCleanup", defaultValue = "false")
+    private boolean deferCleanup;
+
+    /**
+     * Record the wall time, I/O and forked process time of each step of the feature generation in
+     * target/carbon-p2-metrics.json.
+     */
+    @Parameter(property = "carbon.p2.metrics", defaultValue = "false")
+    private boolean recordMetrics;
+
     @Component
     private RepositorySystem repositorySystem;
 
@@ -117,9 +157,17 @@ public class FeatureGeneratorMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project}")
     private MavenProject project;
 
+    @Parameter(defaultValue = "${plugin}")
+    private PluginDescriptor pluginDescriptor;
+
     @Component
     private MavenProjectHelper projectHelper;
 
+    @Component
+    private MavenSession session;
+
+    private BuildMetrics buildMetrics = BuildMetrics.disabled();
+
     /**
      * Overridden method of AbstractMojo class. This is picked up by the maven runtime for execution.
      *
@@ -128,8 +176,13 @@ public class FeatureGeneratorMojo extends AbstractMojo {
      * @throws MojoFailureException   throws when the tool breaks for any configuration issues
      */
     public void execute() throws MojoExecutionException, MojoFailureException {
+        buildMetrics = BuildMetrics.start(session, project, "generate", recordMetrics);
         FeatureGenerator featureGenerator = constructFeatureGenerator();
-        featureGenerator.generate();
+        try {
+            featureGenerator.generate();
+        } finally {
+            buildMetrics.finish(getLog());
+        }
     }
 
     /**
@@ -154,12 +207,19 @@ public class FeatureGeneratorMojo extends AbstractMojo {
         resourceBundle.setImportFeatures(importFeatures);
         resourceBundle.setIncludeFeatures(includeFeatures);
         resourceBundle.setAdviceFileContent(adviceFileContents);
+        resourceBundle.setStreamIncludedFeatures(streamIncludedFeatures);
+        resourceBundle.setResolveReferencedDependenciesOnly(resolveReferencedDependenciesOnly);
+        resourceBundle.setIncremental(incremental);
+        resourceBundle.setDeferCleanup(deferCleanup);
+        resourceBundle.setPluginDescriptor(pluginDescriptor);
         resourceBundle.setRepositorySystem(repositorySystem);
         resourceBundle.setLocalRepository(localRepository);
         resourceBundle.setRemoteRepositories(remoteRepositories);
         resourceBundle.setProject(project);
         resourceBundle.setProjectHelper(projectHelper);
         resourceBundle.setLog(getLog());
+        resourceBundle.setMetrics(buildMetrics);
+        resourceBundle.setArtifactIndex(ArtifactIndex.getInstance(session));
         return new FeatureGenerator(resourceBundle);
     }
 }
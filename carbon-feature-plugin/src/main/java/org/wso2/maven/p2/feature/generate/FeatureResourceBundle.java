@@ -17,10 +17,13 @@
 package org.wso2.maven.p2.feature.generate;
 
 import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
 import org.apache.maven.repository.RepositorySystem;
+import org.wso2.maven.p2.utils.ArtifactIndex;
+import org.wso2.maven.p2.utils.BuildMetrics;
 
 import java.io.File;
 import java.nio.file.Path;
@@ -52,6 +55,11 @@ public class FeatureResourceBundle {
     private List<Feature> importFeatures;
     private List<Feature> includedFeatures;
     private List<Advice> adviceFileContent;
+    private boolean streamIncludedFeatures;
+    private boolean resolveReferencedDependenciesOnly;
+    private boolean incremental;
+    private boolean deferCleanup;
+    private PluginDescriptor pluginDescriptor;
 
     private RepositorySystem repositorySystem;
     private MavenProject project;
@@ -60,6 +68,8 @@ public class FeatureResourceBundle {
     private List<ArtifactRepository> remoteRepositories;
 
     private Log log;
+    private BuildMetrics metrics = BuildMetrics.disabled();
+    private ArtifactIndex artifactIndex;
 
     /**
      * Returns the feature id being created. If the id ends with the text "feature" then that text is removed
@@ -341,6 +351,96 @@ public class FeatureResourceBundle {
         this.adviceFileContent = adviceFileContent;
     }
 
+    /**
+     * Returns whether the included feature archives are merged into the feature archive without extracting them.
+     *
+     * @return {@code boolean}
+     */
+    public boolean isStreamIncludedFeatures() {
+        return streamIncludedFeatures;
+    }
+
+    /**
+     * Sets whether the included feature archives are merged into the feature archive without extracting them.
+     *
+     * @param streamIncludedFeatures {@code boolean}
+     */
+    public void setStreamIncludedFeatures(boolean streamIncludedFeatures) {
+        this.streamIncludedFeatures = streamIncludedFeatures;
+    }
+
+    /**
+     * Returns whether only the dependencies referenced by the configured bundles and included features are resolved.
+     *
+     * @return {@code boolean}
+     */
+    public boolean isResolveReferencedDependenciesOnly() {
+        return resolveReferencedDependenciesOnly;
+    }
+
+    /**
+     * Sets whether only the dependencies referenced by the configured bundles and included features are resolved.
+     *
+     * @param resolveReferencedDependenciesOnly {@code boolean}
+     */
+    public void setResolveReferencedDependenciesOnly(boolean resolveReferencedDependenciesOnly) {
+        this.resolveReferencedDependenciesOnly = resolveReferencedDependenciesOnly;
+    }
+
+    /**
+     * Returns whether the feature is left as it is when its inputs have not changed since it was last generated.
+     *
+     * @return {@code boolean}
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Sets whether the feature is left as it is when its inputs have not changed since it was last generated.
+     *
+     * @param incremental {@code boolean}
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Returns the descriptor of the plugin generating the feature.
+     *
+     * @return {@link PluginDescriptor} or {@code null} if not known
+     */
+    public PluginDescriptor getPluginDescriptor() {
+        return pluginDescriptor;
+    }
+
+    /**
+     * Sets the descriptor of the plugin generating the feature.
+     *
+     * @param pluginDescriptor {@link PluginDescriptor}
+     */
+    public void setPluginDescriptor(PluginDescriptor pluginDescriptor) {
+        this.pluginDescriptor = pluginDescriptor;
+    }
+
+    /**
+     * Returns whether the temp output folder is deleted in the background instead of before the goal completes.
+     *
+     * @return {@code boolean}
+     */
+    public boolean isDeferCleanup() {
+        return deferCleanup;
+    }
+
+    /**
+     * Sets whether the temp output folder is deleted in the background instead of before the goal completes.
+     *
+     * @param deferCleanup {@code boolean}
+     */
+    public void setDeferCleanup(boolean deferCleanup) {
+        this.deferCleanup = deferCleanup;
+    }
+
     /**
      * Returns the RepositorySystem injected by the maven runtime.
      *
@@ -449,6 +549,43 @@ public class FeatureResourceBundle {
         return this.log;
     }
 
+    /**
+     * Sets the metrics the steps of the feature generation are recorded in.
+     *
+     * @param metrics {@link BuildMetrics}
+     */
+    public void setMetrics(BuildMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics the steps of the feature generation are recorded in.
+     *
+     * @return {@link BuildMetrics}
+     */
+    public BuildMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Sets the index of the artifacts resolved in the maven session, shared with the other executions of the session.
+     *
+     * @param artifactIndex {@link ArtifactIndex}
+     */
+    public void setArtifactIndex(ArtifactIndex artifactIndex) {
+        this.artifactIndex = artifactIndex;
+    }
+
+    /**
+     * Returns the index of the artifacts resolved in the maven session, or {@code null} if the dependencies are
+     * resolved on their own.
+     *
+     * @return {@link ArtifactIndex}
+     */
+    public ArtifactIndex getArtifactIndex() {
+        return this.artifactIndex;
+    }
+
     /**
      * Returns the File object representing the feature.properties file expected to reside in src/main/resource
      * directory of the maven project.
@@ -29,9 +29,11 @@ import org.wso2.maven.p2.utils.BundleUtils;
 import org.wso2.maven.p2.utils.P2Constants;
 import org.wso2.maven.p2.utils.P2Utils;
 import org.wso2.maven.p2.utils.PropertyReplacer;
+import org.wso2.maven.p2.utils.XmlServices;
 import org.xml.sax.SAXException;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -43,19 +45,22 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Stream;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -256,7 +261,8 @@ public class FeatureFileGeneratorUtils {
     }
 
     /**
-     * Generates the feature.xml file for a feature.
+     * Generates the feature.xml file for a feature. A feature without a manifest file is streamed straight into the
+     * feature.xml file, otherwise the manifest is merged with the plugin configuration as a document.
      *
      * @param resourceBundle containing the project resources
      * @param featureXmlFile File object representing the feature xml file
@@ -268,7 +274,12 @@ public class FeatureFileGeneratorUtils {
     public static void createFeatureXml(FeatureResourceBundle resourceBundle, File featureXmlFile)
             throws TransformerException, IOException, SAXException, ParserConfigurationException {
         resourceBundle.getLog().info("Generating feature manifest");
-        Document document = getManifestDocument(resourceBundle.getManifest());
+        File manifest = resourceBundle.getManifest();
+        if ((manifest == null || !manifest.exists()) && isStreamable(resourceBundle)) {
+            writeFeatureXml(resourceBundle, featureXmlFile);
+            return;
+        }
+        Document document = getManifestDocument(manifest);
         Element rootElement = document.getDocumentElement();
         if (rootElement == null) {
             rootElement = document.createElement("feature");
@@ -310,10 +321,11 @@ public class FeatureFileGeneratorUtils {
             rootElement.appendChild(license);
         }
 
-        List<Bundle> processedMissingPlugins = getMissingPlugins(resourceBundle.getBundles(), document);
+        List<Bundle> processedMissingPlugins = getMissingPlugins(resourceBundle.getBundles(),
+                getExistingPlugins(document));
 
         List<Feature> missingImportFeatures = getMissingImportFeatures(resourceBundle.
-                getImportFeatures(), document, "feature");
+                getImportFeatures(), getExistingImports(document, "feature"));
         List<Feature> includedFeatures = resourceBundle.getIncludeFeatures();
 
         //region updating feature.xml with missing plugins
@@ -368,13 +380,9 @@ public class FeatureFileGeneratorUtils {
         //endregion
 
         try {
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer;
-            transformer = transformerFactory.newTransformer();
+            Transformer transformer = XmlServices.getIndentingTransformer();
             DOMSource source = new DOMSource(document);
             StreamResult result = new StreamResult(featureXmlFile);
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
             transformer.transform(source, result);
         } catch (TransformerConfigurationException e) {
             throw new TransformerConfigurationException("Unable to create feature manifest", e);
@@ -393,10 +401,9 @@ public class FeatureFileGeneratorUtils {
      */
     private static Document getManifestDocument(File manifest) throws ParserConfigurationException,
             SAXException, IOException {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
         DocumentBuilder documentBuilder;
         try {
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder = XmlServices.getDocumentBuilder();
         } catch (ParserConfigurationException e) {
             throw new ParserConfigurationException("Unable to load feature manifest");
         }
@@ -415,32 +422,214 @@ public class FeatureFileGeneratorUtils {
         return document;
     }
 
+    /**
+     * Writes the feature.xml of a feature without a manifest file in a single pass, without building a document. The
+     * output is the same as serializing the document built by {@link #createFeatureXml(FeatureResourceBundle, File)}.
+     *
+     * @param resourceBundle containing the project resources
+     * @param featureXmlFile File object representing the feature xml file
+     * @throws IOException throws when unable to write feature.xml file
+     */
+    private static void writeFeatureXml(FeatureResourceBundle resourceBundle, File featureXmlFile)
+            throws IOException {
+        List<Bundle> missingPlugins = getMissingPlugins(resourceBundle.getBundles(), Collections.emptySet());
+        List<Feature> missingImportFeatures = getMissingImportFeatures(resourceBundle.getImportFeatures(),
+                Collections.emptySet());
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(featureXmlFile),
+                StandardCharsets.UTF_8))) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" + LINE_SEPARATOR);
+            XMLStreamWriter xmlWriter = XmlServices.getXMLOutputFactory().createXMLStreamWriter(writer);
+            // attributes are written in alphabetical order, the order a document keeps them in
+            xmlWriter.writeStartElement("feature");
+            writeAttribute(xmlWriter, "id", resourceBundle.getId());
+            writeAttribute(xmlWriter, "label", resourceBundle.getLabel());
+            writeAttribute(xmlWriter, "provider-name", resourceBundle.getProviderName());
+            writeAttribute(xmlWriter, "version", BundleUtils.getOSGIVersion(resourceBundle.getVersion()));
+            writeTextElement(xmlWriter, "description", null, null, resourceBundle.getDescription());
+            writeTextElement(xmlWriter, "copyright", null, null, resourceBundle.getCopyright());
+            writeTextElement(xmlWriter, "license", "url", resourceBundle.getLicenceUrl(),
+                    resourceBundle.getLicence());
+            for (Bundle bundle : missingPlugins) {
+                indent(xmlWriter, 1);
+                xmlWriter.writeEmptyElement("plugin");
+                writeAttribute(xmlWriter, "id", bundle.getSymbolicName());
+                writeAttribute(xmlWriter, "unpack", "false");
+                writeAttribute(xmlWriter, "version", bundle.getBundleVersion());
+            }
+            indent(xmlWriter, 1);
+            if (missingImportFeatures.stream().anyMatch(feature -> !feature.isOptional())) {
+                xmlWriter.writeStartElement("require");
+                for (Feature feature : missingImportFeatures) {
+                    if (!feature.isOptional()) {
+                        indent(xmlWriter, 2);
+                        xmlWriter.writeEmptyElement("import");
+                        writeAttribute(xmlWriter, "feature", feature.getId());
+                        if (P2Utils.isPatch(feature.getCompatibility())) {
+                            writeAttribute(xmlWriter, "patch", "true");
+                        } else {
+                            writeAttribute(xmlWriter, "match", P2Utils.getMatchRule(feature.getCompatibility()));
+                        }
+                        writeAttribute(xmlWriter, "version", feature.getFeatureVersion());
+                    }
+                }
+                indent(xmlWriter, 1);
+                xmlWriter.writeEndElement();
+            } else {
+                xmlWriter.writeEmptyElement("require");
+            }
+            for (Feature includedFeature : resourceBundle.getIncludeFeatures()) {
+                writeIncludes(xmlWriter, includedFeature);
+            }
+            for (Feature feature : missingImportFeatures) {
+                if (feature.isOptional()) {
+                    writeIncludes(xmlWriter, feature);
+                }
+            }
+            indent(xmlWriter, 0);
+            xmlWriter.writeEndElement();
+            xmlWriter.close();
+            writer.write(LINE_SEPARATOR);
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to create feature manifest", e);
+        }
+    }
+
+    private static void writeIncludes(XMLStreamWriter xmlWriter, Feature feature) throws XMLStreamException {
+        indent(xmlWriter, 1);
+        xmlWriter.writeEmptyElement("includes");
+        writeAttribute(xmlWriter, "id", feature.getId());
+        writeAttribute(xmlWriter, "optional", Boolean.toString(feature.isOptional()));
+        writeAttribute(xmlWriter, "version", feature.getFeatureVersion());
+    }
+
+    private static void writeTextElement(XMLStreamWriter xmlWriter, String name, String attributeName,
+                                         String attributeValue, String text) throws XMLStreamException {
+        indent(xmlWriter, 1);
+        if (text == null || text.isEmpty()) {
+            xmlWriter.writeEmptyElement(name);
+        } else {
+            xmlWriter.writeStartElement(name);
+        }
+        if (attributeName != null) {
+            writeAttribute(xmlWriter, attributeName, attributeValue);
+        }
+        if (text != null && !text.isEmpty()) {
+            xmlWriter.writeCharacters(text);
+            xmlWriter.writeEndElement();
+        }
+    }
+
+    private static void writeAttribute(XMLStreamWriter xmlWriter, String name, String value)
+            throws XMLStreamException {
+        xmlWriter.writeAttribute(name, value == null ? "" : value);
+    }
+
+    private static void indent(XMLStreamWriter xmlWriter, int depth) throws XMLStreamException {
+        StringBuilder indent = new StringBuilder(LINE_SEPARATOR);
+        for (int i = 0; i < depth; i++) {
+            indent.append("  ");
+        }
+        xmlWriter.writeCharacters(indent.toString());
+    }
+
+    /**
+     * Returns whether the feature.xml can be written by {@link #writeFeatureXml(FeatureResourceBundle, File)}. The
+     * stream writer escapes control characters and supplementary characters differently from the document
+     * serializer, so values containing them are left to the document serializer.
+     *
+     * @param resourceBundle containing the project resources
+     * @return {@code boolean}
+     */
+    private static boolean isStreamable(FeatureResourceBundle resourceBundle) {
+        List<String> values = new ArrayList<>();
+        Collections.addAll(values, resourceBundle.getId(), resourceBundle.getLabel(), resourceBundle.getProviderName(),
+                resourceBundle.getVersion(), resourceBundle.getDescription(), resourceBundle.getCopyright(),
+                resourceBundle.getLicenceUrl(), resourceBundle.getLicence());
+        if (resourceBundle.getBundles() != null) {
+            for (Bundle bundle : resourceBundle.getBundles()) {
+                Collections.addAll(values, bundle.getSymbolicName(), bundle.getBundleVersion());
+            }
+        }
+        List<Feature> features = new ArrayList<>(resourceBundle.getIncludeFeatures());
+        if (resourceBundle.getImportFeatures() != null) {
+            features.addAll(resourceBundle.getImportFeatures());
+        }
+        for (Feature feature : features) {
+            Collections.addAll(values, feature.getId(), feature.getFeatureVersion());
+        }
+        for (String value : values) {
+            if (value != null && !isStreamable(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isStreamable(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || (c >= 0x7F && c <= 0x9F) || Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the ids of the plugins given in the manifest.
+     *
+     * @param document Document representing the give manifest
+     * @return {@code Set<String>} of plugin ids
+     */
+    private static Set<String> getExistingPlugins(Document document) {
+        Set<String> existingPlugins = new HashSet<>();
+        NodeList pluginNodes = document.getDocumentElement().getElementsByTagName("plugin");
+        for (int i = 0; i < pluginNodes.getLength(); i++) {
+            Node namedItem = pluginNodes.item(i).getAttributes().getNamedItem("id");
+            if (namedItem != null && namedItem.getTextContent() != null) {
+                existingPlugins.add(namedItem.getTextContent());
+            }
+        }
+        return existingPlugins;
+    }
+
+    /**
+     * Returns the import items given under the first require element of the manifest.
+     *
+     * @param document Document representing the give manifest
+     * @param itemType String type, either "feature" or "plugin"
+     * @return {@code Set<String>} of import feature or plugin ids
+     */
+    private static Set<String> getExistingImports(Document document, String itemType) {
+        Set<String> existingImports = new HashSet<>();
+        NodeList requireNodeList = document.getDocumentElement().getElementsByTagName("require");
+        if (requireNodeList.getLength() > 0 && requireNodeList.item(0) instanceof Element) {
+            NodeList importNodes = ((Element) requireNodeList.item(0)).getElementsByTagName("import");
+            for (int i = 0; i < importNodes.getLength(); i++) {
+                Node namedItem = importNodes.item(i).getAttributes().getNamedItem(itemType);
+                if (namedItem != null && namedItem.getTextContent() != null) {
+                    existingImports.add(namedItem.getTextContent());
+                }
+            }
+        }
+        return existingImports;
+    }
+
     /**
      * Cross check plugins given in the manifest file against the plugins configured in the pom.xml file. Returns a
      * list of bundles found in the pom.xml but not in the manifest file.
      *
-     * @param bundles  list of bundles configured in the pom.xml
-     * @param document Document representing the give manifest
+     * @param bundles         list of bundles configured in the pom.xml
+     * @param existingPlugins ids of the plugins given in the manifest
      * @return ArrayList&lt;Bundle&gt; missing plugins
      */
-    private static List<Bundle> getMissingPlugins(List<Bundle> bundles, Document document) {
+    private static List<Bundle> getMissingPlugins(List<Bundle> bundles, Set<String> existingPlugins) {
         if (bundles == null || bundles.size() == 0) {
             return new ArrayList<>();
         }
         HashMap<String, Bundle> missingPlugins = new HashMap<>();
         bundles.forEach(bundle -> missingPlugins.put(bundle.getArtifactId(), bundle));
-
-        NodeList existingPlugins = document.getDocumentElement().getElementsByTagName("plugin");
-
-        for (int i = 0; i < existingPlugins.getLength(); i++) {
-            Node node = existingPlugins.item(i);
-            Node namedItem = node.getAttributes().getNamedItem("id");
-            if (namedItem != null && namedItem.getTextContent() != null &&
-                    missingPlugins.containsKey(namedItem.getTextContent())) {
-                missingPlugins.remove(namedItem.getTextContent());
-            }
-        }
-
+        missingPlugins.keySet().removeAll(existingPlugins);
         return new ArrayList<>(missingPlugins.values());
     }
 
@@ -449,12 +638,11 @@ public class FeatureFileGeneratorUtils {
      * pom.xml file. Returns a list of import bundles/import features found in the pom.xml but not in the manifest file.
      *
      * @param processedImportItemsList list of import plugins/import features configured in the pom.xml
-     * @param document                 Document representing the give manifest
-     * @param itemType                 String type, either "feature" or "plugin"
+     * @param existingImports          ids of the import plugins/import features given in the manifest
      * @return ArrayList<Feature>      List of features in the plugin configuration but not in the given manifest file
      */
     private static List<Feature> getMissingImportFeatures(List<Feature> processedImportItemsList,
-                                                          Document document, String itemType) {
+                                                          Set<String> existingImports) {
         if (processedImportItemsList == null) {
             return new ArrayList<>();
         }
@@ -462,25 +650,7 @@ public class FeatureFileGeneratorUtils {
         for (Feature item : processedImportItemsList) {
             missingImportItems.put(item.getId(), item);
         }
-        NodeList requireNodeList = document.getDocumentElement().getElementsByTagName("require");
-        if (requireNodeList.getLength() == 0) {
-            return new ArrayList<>(missingImportItems.values());
-        }
-
-        Node requireNode = requireNodeList.item(0);
-        if (requireNode instanceof Element) {
-            Element requireElement = (Element) requireNode;
-            NodeList importNodes = requireElement.getElementsByTagName("import");
-
-            for (int i = 0; i < importNodes.getLength(); i++) {
-                Node node = importNodes.item(i);
-                Node namedItem = node.getAttributes().getNamedItem(itemType);
-                if (namedItem != null && namedItem.getTextContent() != null &&
-                        missingImportItems.containsKey(namedItem.getTextContent())) {
-                    missingImportItems.remove(namedItem.getTextContent());
-                }
-            }
-        }
+        missingImportItems.keySet().removeAll(existingImports);
         return new ArrayList<>(missingImportItems.values());
     }
 }
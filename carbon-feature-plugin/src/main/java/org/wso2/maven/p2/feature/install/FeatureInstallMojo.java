@@ -17,6 +17,7 @@ package org.wso2.maven.p2.feature.install;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Component;
@@ -24,15 +25,36 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
 import org.eclipse.sisu.equinox.launching.EquinoxLauncher;
 import org.eclipse.tycho.BuildOutputDirectory;
 import org.eclipse.tycho.plugins.p2.director.DirectorMojo.DirectorRuntimeType;
 import org.eclipse.tycho.plugins.p2.director.runtime.StandaloneDirectorRuntimeFactory;
+import org.wso2.maven.p2.feature.transaction.DirectorTransaction;
+import org.wso2.maven.p2.utils.BuildMetrics;
+import org.wso2.maven.p2.utils.FileCopier;
 import org.wso2.maven.p2.utils.P2Constants;
+import org.wso2.maven.p2.utils.P2MetadataIndex;
+import org.wso2.maven.p2.utils.P2RepositoryMirror;
+import org.wso2.maven.p2.utils.SharedDirectorRuntime;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Install a given set of carbon features on a product. The artifacts and metadata of the features to be installed
@@ -53,9 +75,21 @@ public class FeatureInstallMojo extends AbstractMojo {
     /**
      * Target runtime.
      */
-    @Parameter(required = true)
+    @Parameter
     private String runtime;
 
+    /**
+     * Target runtimes. When given, the features are installed into each of these runtimes instead of {@code runtime}.
+     */
+    @Parameter
+    private List<String> runtimes;
+
+    /**
+     * Maximum number of runtimes into which the features are installed concurrently.
+     */
+    @Parameter(defaultValue = "1")
+    private int installParallelism;
+
 
     /**
      * URL of the Metadata Repository.
@@ -85,6 +119,9 @@ public class FeatureInstallMojo extends AbstractMojo {
     @Component
     private MavenSession session;
 
+    @Parameter(defaultValue = "${mojoExecution}")
+    private MojoExecution mojoExecution;
+
     @Parameter(defaultValue = "standalone")
     private DirectorRuntimeType directorRuntime;
 
@@ -98,7 +135,52 @@ public class FeatureInstallMojo extends AbstractMojo {
     @Parameter(defaultValue = "${p2.timeout}")
     private int forkedProcessTimeoutInSeconds;
 
+    /**
+     * Run the director on a standalone runtime provisioned once and shared by all the goals of the build, instead of
+     * a runtime assembled for this goal alone.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean reuseDirectorRuntime;
+
+    /**
+     * Record the wall time, I/O and forked process time of provisioning the director and installing each profile in
+     * target/carbon-p2-metrics.json.
+     */
+    @Parameter(property = "carbon.p2.metrics", defaultValue = "false")
+    private boolean recordMetrics;
+
+    /**
+     * Mirror a remote repository into a persistent cache under the maven local repository and run the director
+     * against the mirror, so that the repository is only downloaded again when it changes.
+     */
+    @Parameter(property = "carbon.p2.mirrorRepository", defaultValue = "false")
+    private boolean mirrorRepository;
+
+    /**
+     * Size cap of the artifacts kept in the repository mirror cache, in megabytes.
+     */
+    @Parameter(property = "carbon.p2.mirrorCacheSize", defaultValue = "4096")
+    private long mirrorCacheSizeInMB;
+
+    /**
+     * Record the features to install into a transaction of the session instead of installing them right away. The
+     * transactions are applied by the {@code apply-transaction} goal, in a single director run for each profile. The
+     * goal must be bound to the project after this execution (or given on the command line), otherwise nothing is
+     * installed, so the build fails when it is not.
+     */
+    @Parameter(property = "carbon.p2.transaction", defaultValue = "false")
+    private boolean transaction;
+
+    /**
+     * Resolve the features against the metadata of a local (or mirrored) repository before forking the director, and
+     * fail right away if the director would certainly fail to install them.
+     */
+    @Parameter(property = "carbon.p2.preflightCheck", defaultValue = "true")
+    private boolean preflightCheck;
+
     private File runtimeLocation;
+    private BuildMetrics buildMetrics = BuildMetrics.disabled();
+    private P2RepositoryMirror.Lease mirrorLease;
 
     /**
      * Overridden method of AbstractMojo class. This is picked up by the maven runtime for execution.
@@ -108,20 +190,284 @@ public class FeatureInstallMojo extends AbstractMojo {
      * @throws MojoFailureException   throws when the tool breaks for any configuration issues
      */
     public void execute() throws MojoExecutionException, MojoFailureException {
-        this.runtimeLocation = new BuildOutputDirectory(this.project.getBuild().getDirectory()).getChild("director");
-        setDirectorRuntime();
-        FeatureInstaller installer = constructFeatureInstaller();
-        installer.install();
+        buildMetrics = BuildMetrics.start(session, project, "install", recordMetrics);
+        try {
+            if (transaction) {
+                recordTransaction();
+                return;
+            }
+            List<String> profiles = new ArrayList<>();
+            for (String profile : getProfiles()) {
+                if (constructFeatureInstaller(profile, null).isInstalled()) {
+                    getLog().info("All the features are already installed in " + profile);
+                } else {
+                    profiles.add(profile);
+                }
+            }
+            if (profiles.isEmpty()) {
+                return;
+            }
+            if (mirrorRepository && repositoryURL != null) {
+                try (BuildMetrics.Step step = buildMetrics.step("mirrorRepository")) {
+                    mirrorLease = mirror(repositoryURL);
+                    repositoryURL = mirrorLease.getLocation();
+                }
+            }
+            checkFeatures();
+            try (BuildMetrics.Step step = buildMetrics.step("provisionDirectorRuntime")) {
+                if (reuseDirectorRuntime) {
+                    this.runtimeLocation = SharedDirectorRuntime.getRuntimeLocation(session, project,
+                            standaloneDirectorFactory, forkedProcessTimeoutInSeconds);
+                } else {
+                    this.runtimeLocation = new BuildOutputDirectory(this.project.getBuild().getDirectory())
+                            .getChild("director");
+                    setDirectorRuntime();
+                }
+            }
+            if (profiles.size() == 1 || installParallelism <= 1) {
+                for (String profile : profiles) {
+                    install(profile, this.runtimeLocation);
+                }
+            } else {
+                installConcurrently(profiles);
+            }
+        } finally {
+            releaseMirror();
+            buildMetrics.finish(getLog());
+        }
+    }
+
+    /**
+     * Records the features to install into the transaction of each profile, to be installed by the
+     * {@code apply-transaction} goal.
+     *
+     * @throws MojoExecutionException throws when unable to mirror the repository
+     * @throws MojoFailureException   throws when the repository is not given or the transaction is not applied
+     */
+    private void recordTransaction() throws MojoExecutionException, MojoFailureException {
+        if (repositoryURL == null) {
+            throw new MojoFailureException("'repositoryURL' is required to record features into a transaction");
+        }
+        DirectorTransaction.checkApplied(session, project, mojoExecution);
+        if (mirrorRepository) {
+            try (BuildMetrics.Step step = buildMetrics.step("mirrorRepository")) {
+                mirrorLease = mirror(repositoryURL);
+                repositoryURL = mirrorLease.getLocation();
+            }
+        }
+        checkFeatures();
+        Map<String, String> ius = new LinkedHashMap<>();
+        features.forEach(feature -> ius.put(feature.getId().trim(), feature.getVersion().trim()));
+        for (String profile : getProfiles()) {
+            DirectorTransaction.getInstance(session, project, destination, profile)
+                    .install(repositoryURL, ius, deleteOldRuntimeFiles, mirrorLease);
+            getLog().info("Recorded " + ius.size() + " features to install into " + profile);
+        }
+        // The transactions hold the lease until they are applied.
+        mirrorLease = null;
+    }
+
+    /**
+     * Plans the installation of the features against the metadata of the repository, when the repository is on the
+     * file system.
+     *
+     * @throws MojoExecutionException throws when unable to read the metadata of the repository
+     * @throws MojoFailureException   throws when the director would fail to install the features
+     */
+    private void checkFeatures() throws MojoExecutionException, MojoFailureException {
+        if (!preflightCheck || repositoryURL == null || !"file".equals(repositoryURL.getProtocol())) {
+            return;
+        }
+        try (BuildMetrics.Step step = buildMetrics.step("preflightCheck")) {
+            File repository;
+            try {
+                repository = new File(repositoryURL.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                getLog().debug("Skipping the pre-flight check of " + repositoryURL, e);
+                return;
+            }
+            P2MetadataIndex index;
+            try {
+                index = P2MetadataIndex.load(repository);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to read the metadata of " + repositoryURL, e);
+            }
+            if (index == null) {
+                getLog().debug("Skipping the pre-flight check of " + repositoryURL + " as it has no content metadata");
+                return;
+            }
+            InstallPlanner.Plan plan = new InstallPlanner(index).plan(features);
+            if (!plan.getWarnings().isEmpty()) {
+                getLog().info(plan.getWarnings().size() + " requirements are not provided by " + repositoryURL
+                        + " and have to be satisfied by the target profile");
+                plan.getWarnings().forEach(getLog()::debug);
+            }
+            if (!plan.getErrors().isEmpty()) {
+                throw new MojoFailureException("The features cannot be installed from " + repositoryURL + ":"
+                        + System.lineSeparator() + String.join(System.lineSeparator(), plan.getErrors()));
+            }
+            getLog().debug("Pre-flight check resolved the features to " + plan.getUnitCount() + " units");
+        }
+    }
+
+    private void install(String profile, File runtimeLocation) throws MojoExecutionException, MojoFailureException {
+        try (BuildMetrics.Step step = buildMetrics.step("installFeatures")) {
+            constructFeatureInstaller(profile, runtimeLocation).install();
+        }
+    }
+
+    /**
+     * Returns a lease of the local mirror of the given repository, bringing it up to date.
+     *
+     * @param repository p2 repository to mirror
+     * @return {@link P2RepositoryMirror.Lease} of the mirror, to be closed once the features are installed
+     * @throws MojoExecutionException throws when unable to mirror the repository
+     */
+    private P2RepositoryMirror.Lease mirror(URL repository) throws MojoExecutionException {
+        try {
+            return new P2RepositoryMirror(session.getLocalRepository().getBasedir(),
+                    mirrorCacheSizeInMB * 1024 * 1024, getLog()).mirror(repository);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to mirror the repository " + repository, e);
+        }
+    }
+
+    /**
+     * Releases the lease of the repository mirror, if the repository was mirrored.
+     */
+    private void releaseMirror() {
+        if (mirrorLease == null) {
+            return;
+        }
+        try {
+            mirrorLease.close();
+        } catch (IOException e) {
+            getLog().warn("Unable to release the mirror of " + repositoryURL, e);
+        }
+        mirrorLease = null;
+    }
+
+    private List<String> getProfiles() {
+        if (runtimes != null && !runtimes.isEmpty()) {
+            return runtimes;
+        }
+        return Collections.singletonList(this.runtime == null ? P2Constants.DEFAULT_PROFILE_ID : this.runtime);
+    }
+
+    /**
+     * Install the features into the given profiles on a bounded pool of threads, each running its own forked director.
+     * <p>
+     * The first profile is installed alone, so that the bundles common to all the profiles are already in the shared
+     * bundle pool under lib/ when the rest are installed. The directors installing the rest of the profiles then only
+     * add the bundles specific to their profile, and p2 locks the bundle pool while recording them. Each concurrent
+     * director runs on its own copy of the director runtime, as running frameworks cannot share a configuration area.
+     * </p>
+     *
+     * @param profiles profiles to install the features into
+     * @throws MojoExecutionException throws when unable to copy the director runtime or install into a profile
+     * @throws MojoFailureException   throws when the director application fails to install into a profile
+     */
+    private void installConcurrently(List<String> profiles) throws MojoExecutionException, MojoFailureException {
+        install(profiles.get(0), this.runtimeLocation);
+
+        List<String> remainingProfiles = profiles.subList(1, profiles.size());
+        int threadCount = Math.min(installParallelism, remainingProfiles.size());
+        List<File> runtimeCopies = new ArrayList<>(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            BlockingQueue<File> availableRuntimes = new ArrayBlockingQueue<>(threadCount);
+            try (BuildMetrics.Step step = buildMetrics.step("copyDirectorRuntime")) {
+                for (int i = 0; i < threadCount; i++) {
+                    File runtimeCopy = copyDirectorRuntime(i);
+                    runtimeCopies.add(runtimeCopy);
+                    availableRuntimes.add(runtimeCopy);
+                }
+            }
+            List<Future<Void>> results = new ArrayList<>(remainingProfiles.size());
+            for (String profile : remainingProfiles) {
+                results.add(executor.submit(() -> {
+                    File runtimeCopy = availableRuntimes.take();
+                    try {
+                        install(profile, runtimeCopy);
+                    } finally {
+                        availableRuntimes.add(runtimeCopy);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to copy the director runtime " + runtimeLocation, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while installing features", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoFailureException) {
+                throw (MojoFailureException) e.getCause();
+            }
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException("Failed to install features", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            for (File runtimeCopy : runtimeCopies) {
+                try {
+                    FileUtils.deleteDirectory(runtimeCopy);
+                } catch (IOException e) {
+                    getLog().warn("Unable to delete " + runtimeCopy, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the director runtime for a concurrent director. The bundles of the runtime are only read, so they are
+     * linked rather than copied where the file system allows it. Copies are made in a new directory under the target
+     * directory of this project, so that they never clash with the copies of another module built in parallel.
+     *
+     * @param index index of the copy
+     * @return location of the copy
+     * @throws IOException throws when unable to copy the director runtime
+     */
+    private File copyDirectorRuntime(int index) throws IOException {
+        Path buildDirectory = new File(project.getBuild().getDirectory()).toPath();
+        Files.createDirectories(buildDirectory);
+        File runtimeCopy = Files.createTempDirectory(buildDirectory, runtimeLocation.getName() + "-" + index + "-")
+                .toFile();
+        try {
+            File[] children = runtimeLocation.listFiles();
+            if (children == null) {
+                throw new IOException("Unable to list " + runtimeLocation);
+            }
+            for (File child : children) {
+                Path target = new File(runtimeCopy, child.getName()).toPath();
+                if (child.isDirectory()) {
+                    FileCopier.copyDirectory(child.toPath(), target, "plugins".equals(child.getName()));
+                } else {
+                    FileCopier.copyFile(child.toPath(), target, false);
+                }
+            }
+        } catch (IOException e) {
+            FileUtils.deleteDirectory(runtimeCopy);
+            throw e;
+        }
+        return runtimeCopy;
     }
 
     /**
      * Constructs the FeatureInstaller object.
+     *
+     * @param profile         profile to install the features into
+     * @param runtimeLocation location of the director runtime to run the director on
      * @return FeatureInstaller
      */
-    private FeatureInstaller constructFeatureInstaller() {
+    private FeatureInstaller constructFeatureInstaller(String profile, File runtimeLocation) {
         FeatureInstallResourceBundle resourceBundle = new FeatureInstallResourceBundle();
         resourceBundle.setDestination(this.destination);
-        resourceBundle.setProfile(this.runtime == null ? P2Constants.DEFAULT_PROFILE_ID : this.runtime);
+        resourceBundle.setProfile(profile);
         resourceBundle.setRepository(this.repositoryURL);
         resourceBundle.setFeatures(this.features);
         resourceBundle.setDeleteOldProfileFiles(this.deleteOldRuntimeFiles);
@@ -129,7 +475,7 @@ public class FeatureInstallMojo extends AbstractMojo {
         resourceBundle.setLauncher(this.launcher);
         resourceBundle.setForkedProcessTimeoutInSeconds(this.forkedProcessTimeoutInSeconds);
         resourceBundle.setLog(getLog());
-        resourceBundle.setRuntimeLocation(this.runtimeLocation);
+        resourceBundle.setRuntimeLocation(runtimeLocation);
         return new FeatureInstaller(resourceBundle);
     }
 
@@ -37,7 +37,9 @@ public class FeatureInstallResourceBundle {
     private String destination;
     private String profile;
     private URL repository;
+    private List<String> additionalRepositories;
     private List<Feature> features;
+    private String uninstallIUs;
     private boolean deleteOldProfileFiles;
     private MavenProject project;
     private EquinoxLauncher launcher;
@@ -99,6 +101,24 @@ public class FeatureInstallResourceBundle {
         this.repository = repository;
     }
 
+    /**
+     * Returns the locations of the repositories the features are taken from besides {@link #getRepository()}.
+     *
+     * @return {@code List<String>}
+     */
+    public List<String> getAdditionalRepositories() {
+        return additionalRepositories;
+    }
+
+    /**
+     * Sets the locations of the repositories the features are taken from besides {@link #getRepository()}.
+     *
+     * @param additionalRepositories {@code List<String>}
+     */
+    public void setAdditionalRepositories(List<String> additionalRepositories) {
+        this.additionalRepositories = additionalRepositories;
+    }
+
     /**
      * Returns the features list to be installed.
      *
@@ -117,6 +137,24 @@ public class FeatureInstallResourceBundle {
         this.features = features;
     }
 
+    /**
+     * Returns the comma separated list of IUs to uninstall in the same director run as installing the features.
+     *
+     * @return {@code String}
+     */
+    public String getUninstallIUs() {
+        return uninstallIUs;
+    }
+
+    /**
+     * Sets the comma separated list of IUs to uninstall in the same director run as installing the features.
+     *
+     * @param uninstallIUs {@code String}
+     */
+    public void setUninstallIUs(String uninstallIUs) {
+        this.uninstallIUs = uninstallIUs;
+    }
+
     /**
      * Returns a boolean which specifies whether the old profile files should be deleted or not.
      *
@@ -19,8 +19,10 @@ package org.wso2.maven.p2.feature.install;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
 import org.wso2.maven.p2.utils.FileManagementUtil;
 import org.wso2.maven.p2.utils.P2Constants;
+import org.wso2.maven.p2.utils.P2Profile;
 import org.wso2.maven.p2.utils.StandaloneManager;
 
 import java.io.File;
@@ -30,6 +32,8 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * FeatureInstaller takes parameters from the pom.xml and generates the profile.
@@ -72,6 +76,17 @@ public class FeatureInstaller {
         }
     }
 
+    /**
+     * Returns whether all the features are already installed in the profile and there is nothing to uninstall, in
+     * which case {@link #install()} does not need to run the director.
+     *
+     * @return {@code boolean}
+     */
+    public boolean isInstalled() {
+        String uninstallIUs = resourceBundle.getUninstallIUs();
+        return (uninstallIUs == null || uninstallIUs.isEmpty()) && getFeaturesToInstall().isEmpty();
+    }
+
     /**
      * Updating profile's config.ini p2.data.area property using relative path.
      */
@@ -87,30 +102,100 @@ public class FeatureInstaller {
      * @throws MojoFailureException throws when the director application fail to install any given feature.
      */
     private void installFeatures() throws MojoFailureException {
+        List<Feature> features = getFeaturesToInstall();
+        String uninstallIUs = resourceBundle.getUninstallIUs();
+        boolean uninstall = uninstallIUs != null && !uninstallIUs.isEmpty();
+        if (features.isEmpty() && !uninstall) {
+            this.log.info("All the features are already installed in " + resourceBundle.getProfile()
+                    + ", skipping the Equinox P2 Director Application");
+            return;
+        }
         this.log.info("Running Equinox P2 Director Application");
         StandaloneManager launcher = new StandaloneManager(resourceBundle.getLauncher());
         launcher.setRuntimeLocation(resourceBundle.getRuntimeLocation());
-        launcher.addArgumentsToInstallFeatures(resourceBundle.getRepository().toExternalForm(), destination,
-                resourceBundle.getProfile());
-        launcher.performAction(extractIUsToInstall(), resourceBundle.getForkedProcessTimeoutInSeconds());
+        launcher.addArgumentsToInstallFeatures(getRepositoryLocation(), destination, resourceBundle.getProfile());
+        if (uninstall) {
+            launcher.addArgumentsToUninstallFeatures(uninstallIUs);
+        }
+        launcher.performAction(extractIUsToInstall(features), resourceBundle.getForkedProcessTimeoutInSeconds());
+    }
+
+    /**
+     * Returns the features which are not installed in the profile yet. A feature counts as installed when the latest
+     * snapshot of the profile has it as a root at the same version, in which case the director would not change the
+     * profile for it anyway.
+     *
+     * @return {@code List<Feature>}
+     */
+    private List<Feature> getFeaturesToInstall() {
+        List<Feature> features = resourceBundle.getFeatures();
+        P2Profile profile;
+        try {
+            profile = P2Profile.readLatest(getDestinationDirectory(), resourceBundle.getProfile());
+        } catch (IOException e) {
+            this.log.warn("Unable to read the profile " + resourceBundle.getProfile() + ", installing all the "
+                    + "features", e);
+            return features;
+        }
+        if (profile == null) {
+            return features;
+        }
+        List<Feature> featuresToInstall = new ArrayList<>(features.size());
+        for (Feature feature : features) {
+            if (!profile.isInstalledRoot(feature.getId().trim(), feature.getVersion().trim())) {
+                featuresToInstall.add(feature);
+            }
+        }
+        if (!featuresToInstall.isEmpty() && featuresToInstall.size() < features.size()) {
+            this.log.info((features.size() - featuresToInstall.size()) + " of " + features.size()
+                    + " features are already installed in " + resourceBundle.getProfile());
+        }
+        return featuresToInstall;
+    }
+
+    /**
+     * Returns the comma separated list of repositories the features are installed from.
+     *
+     * @return {@code String}
+     */
+    private String getRepositoryLocation() {
+        StringBuilder repositoryLocation = new StringBuilder(resourceBundle.getRepository().toExternalForm());
+        List<String> additionalRepositories = resourceBundle.getAdditionalRepositories();
+        if (additionalRepositories != null) {
+            additionalRepositories.forEach(repository -> repositoryLocation.append(",").append(repository));
+        }
+        return repositoryLocation.toString();
     }
 
     /**
      * Generate the formatted string representation of features from the features passed in through the pom.xml. This
      * formatted string is passed into P2ApplicationLauncher to generate the profile.
      *
+     * @param features features to install
      * @return formatted string to pass into P2ApplicationLauncher
      */
-    private String extractIUsToInstall() {
+    private String extractIUsToInstall(List<Feature> features) {
         StringBuilder installIUs = new StringBuilder();
-        resourceBundle.getFeatures().forEach(feature ->
+        features.forEach(feature ->
                 installIUs.append(feature.getId().trim()).append("/").append(feature.getVersion().trim()).append(","));
 
         return installIUs.toString();
     }
 
     /**
-     * Delete old profile files located at ${destination}/p2/org.eclipse.equinox.p2.engine/profileRegistry.
+     * Returns the destination directory, resolving a relative destination against the project base directory like the
+     * uninstall goal and the transactions do, rather than against the working directory of the build.
+     *
+     * @return {@code File}
+     */
+    private File getDestinationDirectory() {
+        MavenProject project = resourceBundle.getProject();
+        return project == null ? new File(destination) : project.getBasedir().toPath().resolve(destination).toFile();
+    }
+
+    /**
+     * Delete old profile files located at ${destination}/lib/p2/org.eclipse.equinox.p2.engine/profileRegistry or
+     * ${destination}/p2/org.eclipse.equinox.p2.engine/profileRegistry, keeping the latest one.
      *
      * @throws IOException throws when fail to delete old profile files
      */
@@ -119,29 +204,15 @@ public class FeatureInstaller {
         if (!resourceBundle.isDeleteOldProfileFiles()) {
             return;
         }
-        String destination = resourceBundle.getDestination();
-        if (!destination.endsWith("/")) {
-            destination = destination + "/";
-            resourceBundle.setDestination(destination);
-        }
-        String profileFolderName = resourceBundle.getDestination() +
-                "p2/org.eclipse.equinox.p2.engine/profileRegistry/" + resourceBundle.getProfile() + ".profile";
-
-        File profileFolder = new File(profileFolderName);
-        if (profileFolder.isDirectory()) {
-            String[] profileFileList = profileFolder.list((dir, name) -> name.endsWith(".profile"));
-
+        for (File registry : P2Profile.getProfileRegistries(getDestinationDirectory())) {
+            List<File> profileFiles = P2Profile.getSnapshots(new File(registry, resourceBundle.getProfile()
+                    + ".profile"));
             //deleting old profile files
-            if (profileFileList != null) {
-                for (int i = 0; i < (profileFileList.length - 1); i++) {
-                    File profileFile = new File(profileFolderName, profileFileList[i]);
-                    if (profileFile.exists() && !profileFile.delete()) {
-                        throw new IOException("Failed to delete old profile file: " +
-                                profileFile.getAbsolutePath());
-                    }
+            for (File profileFile : profileFiles.subList(0, Math.max(0, profileFiles.size() - 1))) {
+                if (profileFile.exists() && !profileFile.delete()) {
+                    throw new IOException("Failed to delete old profile file: " + profileFile.getAbsolutePath());
                 }
             }
-
         }
     }
 
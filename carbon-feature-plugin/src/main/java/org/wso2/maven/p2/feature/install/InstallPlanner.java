@@ -0,0 +1,184 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.feature.install;
+
+import org.wso2.maven.p2.utils.P2MetadataIndex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Plans the installation of features against the metadata of the repository they are installed from, without
+ * forking the director.
+ * <p>
+ * The planner resolves the requested features and the units they require the same way the director would, and
+ * reports the problems which would certainly make the director fail: requested features missing from the repository,
+ * singleton features requested in two versions and singleton units required in two exact versions. Versions are
+ * compared the way p2 parses them, and non-singleton units, such as feature groups, may be requested in several
+ * versions as p2 installs them side by side. Requirements which the repository does not satisfy are only reported as
+ * warnings, as they may be satisfied by the profile being installed into.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class InstallPlanner {
+
+    private final P2MetadataIndex index;
+
+    /**
+     * Creates a planner for the repository with the given metadata.
+     *
+     * @param index metadata of the repository the features are installed from
+     */
+    public InstallPlanner(P2MetadataIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Plans the installation of the given features.
+     *
+     * @param features features to install
+     * @return {@link Plan}
+     */
+    public Plan plan(List<Feature> features) {
+        Plan plan = new Plan();
+        Map<String, List<String>> requested = new LinkedHashMap<>();
+        for (Feature feature : features) {
+            String version = feature.getVersion().trim();
+            List<String> versions = requested.computeIfAbsent(feature.getId().trim(), id -> new ArrayList<>());
+            if (versions.stream().noneMatch(other -> P2MetadataIndex.compareVersions(other, version) == 0)) {
+                versions.add(version);
+            }
+        }
+
+        Map<String, Map<String, String>> exactVersions = new LinkedHashMap<>();
+        Set<P2MetadataIndex.Unit> visited = new HashSet<>();
+        Deque<P2MetadataIndex.Unit> queue = new ArrayDeque<>();
+        requested.forEach((id, versions) -> {
+            List<P2MetadataIndex.Unit> requestedUnits = new ArrayList<>();
+            for (String version : versions) {
+                P2MetadataIndex.Unit unit = index.getUnit(id, version);
+                if (unit == null) {
+                    plan.errors.add(id + "/" + version + " is not in the repository" + describeAvailable(id));
+                } else {
+                    requestedUnits.add(unit);
+                }
+            }
+            if (requestedUnits.size() > 1 && requestedUnits.stream().anyMatch(P2MetadataIndex.Unit::isSingleton)) {
+                plan.errors.add("Singleton " + id + " is requested in versions " + requestedUnits.stream()
+                        .map(P2MetadataIndex.Unit::getVersion).collect(Collectors.joining(", ")));
+                return;
+            }
+            for (P2MetadataIndex.Unit unit : requestedUnits) {
+                recordExactVersion(exactVersions, unit, "the features list");
+                if (visited.add(unit)) {
+                    queue.add(unit);
+                }
+            }
+        });
+
+        while (!queue.isEmpty()) {
+            P2MetadataIndex.Unit unit = queue.poll();
+            for (P2MetadataIndex.Requirement requirement : unit.getRequirements()) {
+                if (requirement.isOptional() || requirement.isFiltered() || !requirement.isGreedy()) {
+                    continue;
+                }
+                List<P2MetadataIndex.Unit> providers = index.getProviders(requirement);
+                if (providers.isEmpty()) {
+                    plan.warnings.add(unit + " requires " + requirement + ", which the repository does not provide");
+                    continue;
+                }
+                P2MetadataIndex.Unit provider = providers.get(0);
+                if (P2MetadataIndex.IU_NAMESPACE.equals(requirement.getNamespace())
+                        && requirement.getExactVersion() != null) {
+                    recordExactVersion(exactVersions, provider, unit.toString());
+                }
+                if (visited.add(provider)) {
+                    queue.add(provider);
+                }
+            }
+        }
+
+        exactVersions.forEach((id, versions) -> {
+            if (versions.size() > 1 && index.getUnits(id).stream().allMatch(P2MetadataIndex.Unit::isSingleton)) {
+                plan.errors.add("Singleton " + id + " is required in more than one version: " + versions.entrySet()
+                        .stream().map(entry -> entry.getKey() + " by " + entry.getValue())
+                        .collect(Collectors.joining(", ")));
+            }
+        });
+        plan.unitCount = visited.size();
+        return plan;
+    }
+
+    private static void recordExactVersion(Map<String, Map<String, String>> exactVersions, P2MetadataIndex.Unit unit,
+                                           String requiredBy) {
+        exactVersions.computeIfAbsent(unit.getId(), id -> new LinkedHashMap<>())
+                .putIfAbsent(unit.getVersion(), requiredBy);
+    }
+
+    private String describeAvailable(String id) {
+        Collection<P2MetadataIndex.Unit> units = index.getUnits(id);
+        if (units.isEmpty()) {
+            return "";
+        }
+        return " (available versions: " + units.stream().map(P2MetadataIndex.Unit::getVersion)
+                .collect(Collectors.joining(", ")) + ")";
+    }
+
+    /**
+     * Outcome of planning an installation.
+     */
+    public static class Plan {
+        private final List<String> errors = new ArrayList<>();
+        private final List<String> warnings = new ArrayList<>();
+        private int unitCount;
+
+        /**
+         * Returns the problems which would make the director fail.
+         *
+         * @return {@code List<String>}
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        /**
+         * Returns the problems the director may still be able to resolve from the profile being installed into.
+         *
+         * @return {@code List<String>}
+         */
+        public List<String> getWarnings() {
+            return warnings;
+        }
+
+        /**
+         * Returns the number of units the installation resolves to within the repository.
+         *
+         * @return {@code int}
+         */
+        public int getUnitCount() {
+            return unitCount;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.feature.transaction;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.sisu.equinox.launching.EquinoxLauncher;
+import org.eclipse.tycho.BuildOutputDirectory;
+import org.eclipse.tycho.plugins.p2.director.runtime.StandaloneDirectorRuntimeFactory;
+import org.wso2.maven.p2.feature.install.Feature;
+import org.wso2.maven.p2.feature.install.FeatureInstallResourceBundle;
+import org.wso2.maven.p2.feature.install.FeatureInstaller;
+import org.wso2.maven.p2.feature.uninstall.FeatureUnInstaller;
+import org.wso2.maven.p2.utils.BuildMetrics;
+import org.wso2.maven.p2.utils.SharedDirectorRuntime;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies the installs and uninstalls recorded by the {@code install} and {@code uninstall} goals of the project in
+ * transaction mode. All the changes to a profile are applied by a single director run, instead of a director run for
+ * each goal execution.
+ * <p>
+ * Bind this goal after the last {@code install} or {@code uninstall} execution of the phase.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+@Mojo(name = "apply-transaction", defaultPhase = LifecyclePhase.PACKAGE)
+public class ApplyTransactionMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}")
+    private MavenProject project;
+
+    @Component
+    private EquinoxLauncher launcher;
+
+    @Component
+    private MavenSession session;
+
+    @Component
+    private StandaloneDirectorRuntimeFactory standaloneDirectorFactory;
+
+    /**
+     * Kill the forked test process after a certain number of seconds. If set to 0, wait forever for
+     * the process, never timing out.
+     */
+    @Parameter(defaultValue = "${p2.timeout}")
+    private int forkedProcessTimeoutInSeconds;
+
+    /**
+     * Run the director on a standalone runtime provisioned once and shared by all the goals of the build, instead of
+     * a runtime assembled for this goal alone.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean reuseDirectorRuntime;
+
+    /**
+     * Record the wall time, I/O and forked process time of provisioning the director and applying each transaction
+     * in target/carbon-p2-metrics.json.
+     */
+    @Parameter(property = "carbon.p2.metrics", defaultValue = "false")
+    private boolean recordMetrics;
+
+    /**
+     * Overridden method of AbstractMojo class. This is picked up by the maven runtime for execution.
+     *
+     * @throws MojoExecutionException throws when any runtime exception occurs. i.e: fail to provision the director
+     *                                runtime, fail to install any given feature
+     * @throws MojoFailureException   throws when the director application fails to apply a transaction
+     */
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        List<DirectorTransaction> transactions = DirectorTransaction.removeAll(session, project);
+        if (transactions.isEmpty()) {
+            getLog().info("No features recorded to install or uninstall");
+            return;
+        }
+        BuildMetrics buildMetrics = BuildMetrics.start(session, project, "apply-transaction", recordMetrics);
+        try {
+            File runtimeLocation;
+            try (BuildMetrics.Step step = buildMetrics.step("provisionDirectorRuntime")) {
+                if (reuseDirectorRuntime) {
+                    runtimeLocation = SharedDirectorRuntime.getRuntimeLocation(session, project,
+                            standaloneDirectorFactory, forkedProcessTimeoutInSeconds);
+                } else {
+                    runtimeLocation = new BuildOutputDirectory(project.getBuild().getDirectory())
+                            .getChild("director");
+                    standaloneDirectorFactory.createStandaloneDirector(runtimeLocation, session.getLocalRepository(),
+                            forkedProcessTimeoutInSeconds);
+                }
+            }
+            for (DirectorTransaction transaction : transactions) {
+                try (BuildMetrics.Step step = buildMetrics.step("applyTransaction")) {
+                    apply(transaction, runtimeLocation);
+                }
+            }
+        } finally {
+            for (DirectorTransaction transaction : transactions) {
+                try {
+                    transaction.releaseMirrors();
+                } catch (IOException e) {
+                    getLog().warn("Unable to release the repository mirrors of " + transaction.getProfile(), e);
+                }
+            }
+            buildMetrics.finish(getLog());
+        }
+    }
+
+    /**
+     * Applies a transaction in a single director run. Transactions with features to install are applied by the
+     * {@link FeatureInstaller}, uninstalling the rest of the features in the same run, and the rest by the
+     * {@link FeatureUnInstaller}.
+     *
+     * @param transaction     transaction to apply
+     * @param runtimeLocation location of the director runtime to run the director on
+     * @throws MojoExecutionException throws when unable to install the features
+     * @throws MojoFailureException   throws when the director application fails to apply the transaction
+     */
+    private void apply(DirectorTransaction transaction, File runtimeLocation)
+            throws MojoExecutionException, MojoFailureException {
+        Map<String, String> installIUs = transaction.getInstallIUs();
+        Map<String, String> uninstallIUs = transaction.getUninstallIUs();
+        getLog().info("Applying transaction on " + transaction.getProfile() + ": installing " + installIUs.size()
+                + " and uninstalling " + uninstallIUs.size() + " features");
+        if (installIUs.isEmpty() && uninstallIUs.isEmpty()) {
+            return;
+        }
+        if (installIUs.isEmpty()) {
+            List<org.wso2.maven.p2.feature.uninstall.Feature> features = new ArrayList<>();
+            uninstallIUs.forEach((id, version) -> {
+                org.wso2.maven.p2.feature.uninstall.Feature feature =
+                        new org.wso2.maven.p2.feature.uninstall.Feature();
+                feature.setId(id);
+                feature.setVersion(version);
+                features.add(feature);
+            });
+            FeatureUnInstaller unInstaller = new FeatureUnInstaller();
+            unInstaller.setDestination(transaction.getDestination());
+            unInstaller.setProfile(transaction.getProfile());
+            unInstaller.setFeatures(features);
+            unInstaller.setProject(project);
+            unInstaller.setStandaloneLauncher(launcher);
+            unInstaller.setRuntimeLocation(runtimeLocation);
+            unInstaller.setForkedProcessTimeoutInSeconds(forkedProcessTimeoutInSeconds);
+            unInstaller.uninstallFeatures();
+            return;
+        }
+
+        List<Feature> features = new ArrayList<>();
+        installIUs.forEach((id, version) -> {
+            Feature feature = new Feature();
+            feature.setId(id);
+            feature.setVersion(version);
+            features.add(feature);
+        });
+        StringBuilder uninstallIUList = new StringBuilder();
+        uninstallIUs.forEach((id, version) -> uninstallIUList.append(id).append("/").append(version).append(","));
+        List<String> repositories = transaction.getRepositories();
+
+        FeatureInstallResourceBundle resourceBundle = new FeatureInstallResourceBundle();
+        resourceBundle.setDestination(transaction.getDestination());
+        resourceBundle.setProfile(transaction.getProfile());
+        try {
+            resourceBundle.setRepository(new URL(repositories.get(0)));
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException("Invalid repository " + repositories.get(0), e);
+        }
+        resourceBundle.setAdditionalRepositories(repositories.subList(1, repositories.size()));
+        resourceBundle.setFeatures(features);
+        resourceBundle.setUninstallIUs(uninstallIUList.toString());
+        resourceBundle.setDeleteOldProfileFiles(transaction.isDeleteOldProfileFiles());
+        resourceBundle.setProject(project);
+        resourceBundle.setLauncher(launcher);
+        resourceBundle.setForkedProcessTimeoutInSeconds(forkedProcessTimeoutInSeconds);
+        resourceBundle.setLog(getLog());
+        resourceBundle.setRuntimeLocation(runtimeLocation);
+        new FeatureInstaller(resourceBundle).install();
+    }
+}
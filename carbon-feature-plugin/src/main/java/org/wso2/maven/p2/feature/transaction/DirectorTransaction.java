@@ -0,0 +1,267 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.feature.transaction;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.wso2.maven.p2.utils.P2Profile;
+import org.wso2.maven.p2.utils.P2RepositoryMirror;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Installs and uninstalls recorded for a profile by the {@code install} and {@code uninstall} goals running in
+ * transaction mode, to be applied together by the {@code apply-transaction} goal in a single director run.
+ * <p>
+ * Transactions are scoped to a maven session and a project, and keyed by the destination and the profile. The net
+ * effect is recorded for each installable unit: the last install or uninstall of an IU recorded for the profile is the
+ * one applied. An uninstall of an IU recorded for install cancels the install, and is itself only dropped when the
+ * profile does not contain the IU yet.
+ * </p>
+ * <p>
+ * Nothing is installed or uninstalled unless the {@code apply-transaction} goal runs for the project, so the goals
+ * recording into a transaction call {@link #checkApplied(MavenSession, MavenProject, MojoExecution)} to fail the
+ * build when it is not bound.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class DirectorTransaction {
+
+    private static final String APPLY_GOAL = "apply-transaction";
+
+    private static final Map<MavenExecutionRequest, Map<String, DirectorTransaction>> TRANSACTIONS =
+            new WeakHashMap<>();
+
+    private final String projectId;
+    private final String destination;
+    private final String profile;
+    private final Set<String> repositories = new LinkedHashSet<>();
+    private final Map<String, String> installIUs = new LinkedHashMap<>();
+    private final Map<String, String> uninstallIUs = new LinkedHashMap<>();
+    private final Set<P2RepositoryMirror.Lease> mirrorLeases = new LinkedHashSet<>();
+    private boolean deleteOldProfileFiles;
+
+    private DirectorTransaction(String projectId, String destination, String profile) {
+        this.projectId = projectId;
+        this.destination = destination;
+        this.profile = profile;
+    }
+
+    /**
+     * Returns the transaction of the given profile, starting it if nothing has been recorded for the profile yet.
+     *
+     * @param session     current maven session
+     * @param project     project the transaction belongs to
+     * @param destination destination of the profile, relative to the project base directory or absolute
+     * @param profile     profile to install into and uninstall from
+     * @return {@link DirectorTransaction}
+     */
+    public static DirectorTransaction getInstance(MavenSession session, MavenProject project, String destination,
+                                                  String profile) {
+        String absoluteDestination = project.getBasedir().toPath().resolve(destination).normalize().toString();
+        String key = project.getId() + "|" + absoluteDestination + "|" + profile;
+        synchronized (TRANSACTIONS) {
+            return TRANSACTIONS.computeIfAbsent(session.getRequest(), request -> new HashMap<>())
+                    .computeIfAbsent(key, k -> new DirectorTransaction(project.getId(), absoluteDestination,
+                            profile));
+        }
+    }
+
+    /**
+     * Checks that the {@code apply-transaction} goal runs for the project, either bound to an execution of this
+     * plugin in the project or given on the command line, so that recorded transactions are not silently dropped.
+     *
+     * @param session       current maven session
+     * @param project       project recording the transaction
+     * @param mojoExecution execution recording the transaction
+     * @throws MojoFailureException throws when the {@code apply-transaction} goal does not run for the project
+     */
+    public static void checkApplied(MavenSession session, MavenProject project, MojoExecution mojoExecution)
+            throws MojoFailureException {
+        for (String goal : session.getGoals()) {
+            if (goal.endsWith(":" + APPLY_GOAL)) {
+                return;
+            }
+        }
+        Plugin plugin = project.getPlugin(mojoExecution.getPlugin().getKey());
+        if (plugin != null) {
+            for (PluginExecution execution : plugin.getExecutions()) {
+                if (execution.getGoals().contains(APPLY_GOAL)) {
+                    return;
+                }
+            }
+        }
+        throw new MojoFailureException("'transaction' is set on " + mojoExecution.getExecutionId() + " of "
+                + project.getId() + " but the " + APPLY_GOAL + " goal is not bound to the project, so nothing "
+                + "would be installed or uninstalled");
+    }
+
+    /**
+     * Removes and returns all the transactions recorded for the given project, in the order they were started.
+     *
+     * @param session current maven session
+     * @param project project whose transactions are applied
+     * @return {@code List<DirectorTransaction>}
+     */
+    public static List<DirectorTransaction> removeAll(MavenSession session, MavenProject project) {
+        List<DirectorTransaction> transactions = new ArrayList<>();
+        synchronized (TRANSACTIONS) {
+            Map<String, DirectorTransaction> sessionTransactions = TRANSACTIONS.get(session.getRequest());
+            if (sessionTransactions == null) {
+                return transactions;
+            }
+            Iterator<DirectorTransaction> iterator = sessionTransactions.values().iterator();
+            while (iterator.hasNext()) {
+                DirectorTransaction transaction = iterator.next();
+                if (transaction.projectId.equals(project.getId())) {
+                    transactions.add(transaction);
+                    iterator.remove();
+                }
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * Records installable units to install from the given repository.
+     *
+     * @param repository            repository the IUs are installed from
+     * @param ius                   IU ids mapped to their versions
+     * @param deleteOldProfileFiles whether old profile files are deleted once the transaction is applied
+     * @param mirrorLease           lease of the mirror the repository is located at, held until the transaction is
+     *                              applied, or {@code null} if the repository is not mirrored
+     */
+    public synchronized void install(URL repository, Map<String, String> ius, boolean deleteOldProfileFiles,
+                                     P2RepositoryMirror.Lease mirrorLease) {
+        repositories.add(repository.toExternalForm());
+        if (mirrorLease != null) {
+            mirrorLeases.add(mirrorLease);
+        }
+        ius.forEach((id, version) -> {
+            uninstallIUs.remove(id);
+            installIUs.put(id, version);
+        });
+        this.deleteOldProfileFiles |= deleteOldProfileFiles;
+    }
+
+    /**
+     * Records installable units to uninstall. An IU recorded for install is no longer installed, and the uninstall is
+     * only dropped when the profile does not contain any version of the IU.
+     *
+     * @param ius IU ids mapped to their versions
+     * @throws IOException throws when unable to read the profile
+     */
+    public synchronized void uninstall(Map<String, String> ius) throws IOException {
+        P2Profile installedProfile = null;
+        boolean profileRead = false;
+        for (Map.Entry<String, String> iu : ius.entrySet()) {
+            String id = iu.getKey();
+            if (installIUs.remove(id) != null) {
+                if (!profileRead) {
+                    installedProfile = P2Profile.readLatest(new File(destination), profile);
+                    profileRead = true;
+                }
+                if (installedProfile == null || !installedProfile.isInstalled(id)) {
+                    continue;
+                }
+            }
+            uninstallIUs.put(id, iu.getValue());
+        }
+    }
+
+    /**
+     * Returns the absolute destination of the profile.
+     *
+     * @return {@code String}
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Returns the profile to install into and uninstall from.
+     *
+     * @return {@code String}
+     */
+    public String getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns the locations of the repositories the recorded IUs are installed from.
+     *
+     * @return {@code List<String>}
+     */
+    public synchronized List<String> getRepositories() {
+        return new ArrayList<>(repositories);
+    }
+
+    /**
+     * Returns the IUs to install, mapped to their versions.
+     *
+     * @return {@code Map<String, String>}
+     */
+    public synchronized Map<String, String> getInstallIUs() {
+        return new LinkedHashMap<>(installIUs);
+    }
+
+    /**
+     * Returns the IUs to uninstall, mapped to their versions.
+     *
+     * @return {@code Map<String, String>}
+     */
+    public synchronized Map<String, String> getUninstallIUs() {
+        return new LinkedHashMap<>(uninstallIUs);
+    }
+
+    /**
+     * Releases the leases of the repository mirrors the IUs are installed from, once the transaction is applied.
+     *
+     * @throws IOException throws when unable to release a lease
+     */
+    public synchronized void releaseMirrors() throws IOException {
+        for (P2RepositoryMirror.Lease mirrorLease : mirrorLeases) {
+            mirrorLease.close();
+        }
+        mirrorLeases.clear();
+    }
+
+    /**
+     * Returns whether old profile files are deleted once the transaction is applied.
+     *
+     * @return {@code boolean}
+     */
+    public synchronized boolean isDeleteOldProfileFiles() {
+        return deleteOldProfileFiles;
+    }
+}
@@ -16,7 +16,9 @@
 
 package org.wso2.maven.p2.feature.uninstall;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Component;
@@ -24,9 +26,16 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.eclipse.sisu.equinox.launching.EquinoxLauncher;
 import org.eclipse.sisu.equinox.launching.internal.P2ApplicationLauncher;
+import org.eclipse.tycho.plugins.p2.director.runtime.StandaloneDirectorRuntimeFactory;
+import org.wso2.maven.p2.feature.transaction.DirectorTransaction;
+import org.wso2.maven.p2.utils.SharedDirectorRuntime;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Mojo which will uninstall a given set of carbon features from a product.
@@ -59,6 +68,18 @@ public class FeatureUnInstallMojo extends AbstractMojo {
     @Component
     private P2ApplicationLauncher launcher;
 
+    @Component
+    private EquinoxLauncher standaloneLauncher;
+
+    @Component
+    private StandaloneDirectorRuntimeFactory standaloneDirectorFactory;
+
+    @Component
+    private MavenSession session;
+
+    @Parameter(defaultValue = "${mojoExecution}")
+    private MojoExecution mojoExecution;
+
     /**
      * Kill the forked test process after a certain number of seconds. If set to 0, wait forever for
      * the process, never timing out.
@@ -68,6 +89,21 @@ public class FeatureUnInstallMojo extends AbstractMojo {
     @Parameter(defaultValue = "${p2.timeout}")
     private int forkedProcessTimeoutInSeconds;
 
+    /**
+     * Run the director on a standalone runtime provisioned once and shared by all the goals of the build, instead of
+     * a runtime assembled for this goal alone.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean reuseDirectorRuntime;
+
+    /**
+     * Record the features to uninstall into a transaction of the session instead of uninstalling them right away. The
+     * transactions are applied by the {@code apply-transaction} goal, in a single director run for each profile. The
+     * goal must be bound to the project after this execution (or given on the command line), otherwise nothing is
+     * uninstalled, so the build fails when it is not.
+     */
+    @Parameter(property = "carbon.p2.transaction", defaultValue = "false")
+    private boolean transaction;
 
     /**
      * Overridden method of AbstractMojo class. This is picked up by the maven runtime for execution.
@@ -77,6 +113,19 @@ public class FeatureUnInstallMojo extends AbstractMojo {
      * @throws MojoFailureException   throws when the tool breaks for any configuration issues
      */
     public void execute() throws MojoExecutionException, MojoFailureException {
+        if (this.transaction) {
+            DirectorTransaction.checkApplied(this.session, this.project, this.mojoExecution);
+            Map<String, String> ius = new LinkedHashMap<>();
+            this.features.forEach(feature -> ius.put(feature.getId().trim(), feature.getVersion().trim()));
+            try {
+                DirectorTransaction.getInstance(this.session, this.project, this.destination, this.runtime)
+                        .uninstall(ius);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to read the profile " + this.runtime, e);
+            }
+            this.getLog().info("Recorded " + ius.size() + " features to uninstall from " + this.runtime);
+            return;
+        }
         FeatureUnInstaller unInstaller = new FeatureUnInstaller();
         unInstaller.setDestination(this.destination);
         unInstaller.setFeatures(this.features);
@@ -84,6 +133,11 @@ public class FeatureUnInstallMojo extends AbstractMojo {
         unInstaller.setProfile(this.runtime);
         unInstaller.setProject(this.project);
         unInstaller.setForkedProcessTimeoutInSeconds(this.forkedProcessTimeoutInSeconds);
+        if (this.reuseDirectorRuntime) {
+            unInstaller.setStandaloneLauncher(this.standaloneLauncher);
+            unInstaller.setRuntimeLocation(SharedDirectorRuntime.getRuntimeLocation(this.session, this.project,
+                    this.standaloneDirectorFactory, this.forkedProcessTimeoutInSeconds));
+        }
 
         this.getLog().info("Running Equinox P2 Director Application");
         unInstaller.uninstallFeatures();
@@ -18,9 +18,11 @@ package org.wso2.maven.p2.feature.uninstall;
 
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
+import org.eclipse.sisu.equinox.launching.EquinoxLauncher;
 import org.eclipse.sisu.equinox.launching.internal.P2ApplicationLauncher;
 import org.wso2.maven.p2.utils.P2ApplicationLaunchManager;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -35,6 +37,8 @@ public class FeatureUnInstaller {
     private List<Feature> features;
     private MavenProject project;
     private P2ApplicationLauncher launcher;
+    private EquinoxLauncher standaloneLauncher;
+    private File runtimeLocation;
     private int forkedProcessTimeoutInSeconds;
 
     private static final String PUBLISHER_APPLICATION = "org.eclipse.equinox.p2.director";
@@ -74,10 +78,17 @@ public class FeatureUnInstaller {
      */
     private void uninstallFeatures(String uninstallUIs) throws MojoFailureException {
         if (project != null) {
-            P2ApplicationLaunchManager launcher = new P2ApplicationLaunchManager(this.launcher);
+            P2ApplicationLaunchManager launcher;
+            if (runtimeLocation != null) {
+                launcher = new P2ApplicationLaunchManager(standaloneLauncher, runtimeLocation);
+            } else {
+                launcher = new P2ApplicationLaunchManager(this.launcher);
+            }
             launcher.setWorkingDirectory(project.getBasedir());
             launcher.setApplicationName(PUBLISHER_APPLICATION);
-            launcher.addArgumentsToUnInstallFeatures(uninstallUIs, destination, profile);
+            // The standalone runtime does not run in the project directory, so the destination is resolved here.
+            launcher.addArgumentsToUnInstallFeatures(uninstallUIs,
+                    project.getBasedir().toPath().resolve(destination).toString(), profile);
             launcher.performAction(forkedProcessTimeoutInSeconds);
         }
     }
@@ -127,6 +138,25 @@ public class FeatureUnInstaller {
         this.launcher = launcher;
     }
 
+    /**
+     * Sets the EquinoxLauncher used to run the director on a standalone runtime.
+     *
+     * @param standaloneLauncher {@code EquinoxLauncher}
+     */
+    public void setStandaloneLauncher(EquinoxLauncher standaloneLauncher) {
+        this.standaloneLauncher = standaloneLauncher;
+    }
+
+    /**
+     * Sets the location of the standalone runtime to run the director on. If not set, the director runs on a runtime
+     * assembled by the P2ApplicationLauncher.
+     *
+     * @param runtimeLocation {@code File}
+     */
+    public void setRuntimeLocation(File runtimeLocation) {
+        this.runtimeLocation = runtimeLocation;
+    }
+
     /**
      * Sets forkedProcessTimeout in seconds. This is needed for P2ApplicationLauncher.
      *
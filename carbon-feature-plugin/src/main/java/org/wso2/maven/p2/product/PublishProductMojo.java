@@ -15,6 +15,7 @@
  */
 package org.wso2.maven.p2.product;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -24,6 +25,7 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.eclipse.sisu.equinox.launching.internal.P2ApplicationLauncher;
 import org.wso2.maven.p2.beans.product.config.ProductFileConfig;
+import org.wso2.maven.p2.utils.BuildMetrics;
 import org.wso2.maven.p2.utils.P2ApplicationLaunchManager;
 import org.wso2.maven.p2.utils.ProductFileUtils;
 
@@ -75,6 +77,15 @@ public class PublishProductMojo extends AbstractMojo {
     @Parameter(defaultValue = "${p2.timeout}")
     private int forkedProcessTimeoutInSeconds;
 
+    /**
+     * Record the wall time and forked process time of publishing the product in target/carbon-p2-metrics.json.
+     */
+    @Parameter(property = "carbon.p2.metrics", defaultValue = "false")
+    private boolean recordMetrics;
+
+    @Component
+    private MavenSession session;
+
     /**
      * Overridden method of AbstractMojo class. This is picked up by the maven runtime for execution.
      *
@@ -83,10 +94,13 @@ public class PublishProductMojo extends AbstractMojo {
      * @throws MojoFailureException   throws when the tool breaks for any configuration issues
      */
     public void execute() throws MojoExecutionException, MojoFailureException {
-        try {
+        BuildMetrics metrics = BuildMetrics.start(session, project, "publish-product", recordMetrics);
+        try (BuildMetrics.Step step = metrics.step("publishProduct")) {
             publishProduct();
         } catch (IOException e) {
             throw new MojoExecutionException("Cannot generate P2 metadata", e);
+        } finally {
+            metrics.finish(getLog());
         }
     }
 
@@ -0,0 +1,89 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.profile;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compacts a product runtime by removing old profile snapshots and the bundles and features which none of the
+ * remaining snapshots refers to from the bundle pool under {@code destination}.
+ *
+ * @since 3.1.6
+ */
+@Mojo(name = "compact-runtime", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
+public class CompactRuntimeMojo extends AbstractMojo {
+
+    /**
+     * Destination the profiles of the runtime are installed in.
+     */
+    @Parameter(required = true)
+    private String destination;
+
+    /**
+     * Number of latest snapshots to keep for each profile. The profiles can only be reverted to the kept snapshots.
+     */
+    @Parameter(property = "carbon.p2.snapshotsToKeep", defaultValue = "1")
+    private int snapshotsToKeep;
+
+    /**
+     * Maximum number of threads deleting artifacts. If set to 0, one thread per available processor is used.
+     */
+    @Parameter(defaultValue = "0")
+    private int compactParallelism;
+
+    /**
+     * Only report what would be removed, without removing anything.
+     */
+    @Parameter(property = "carbon.p2.dryRun", defaultValue = "false")
+    private boolean dryRun;
+
+    @Parameter(defaultValue = "${project}")
+    private MavenProject project;
+
+    /**
+     * Overridden method of AbstractMojo class. This is picked up by the maven runtime for execution.
+     *
+     * @throws MojoExecutionException throws when any runtime exception occurs. i.e: fail to read a profile, fail to
+     *                                delete a file
+     * @throws MojoFailureException   throws when the tool breaks for any configuration issues
+     */
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (snapshotsToKeep < 1) {
+            throw new MojoFailureException("'snapshotsToKeep' should be at least 1");
+        }
+        File runtime = project.getBasedir().toPath().resolve(destination).toFile();
+        int threadCount = compactParallelism > 0 ? compactParallelism : Runtime.getRuntime().availableProcessors();
+        RuntimeCompactor compactor = new RuntimeCompactor(runtime, snapshotsToKeep, threadCount, dryRun, getLog());
+        try {
+            compactor.compact();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to compact the runtime " + runtime, e);
+        }
+        getLog().info((dryRun ? "Would remove " : "Removed ") + compactor.getRemovedSnapshots()
+                + " profile snapshots and " + compactor.getRemovedArtifacts() + " unreferenced artifacts, "
+                + (dryRun ? "reclaiming " : "reclaimed ") + String.format("%.1f", compactor.getReclaimedBytes()
+                / (1024.0 * 1024.0)) + " MB");
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.wso2.maven.p2.profile;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -22,13 +23,18 @@ import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.eclipse.sisu.equinox.launching.EquinoxLauncher;
 import org.eclipse.sisu.equinox.launching.internal.P2ApplicationLauncher;
 import org.eclipse.tycho.model.ProductConfiguration;
+import org.eclipse.tycho.plugins.p2.director.runtime.StandaloneDirectorRuntimeFactory;
 import org.wso2.maven.p2.beans.product.config.ProductFileConfig;
+import org.wso2.maven.p2.utils.BuildMetrics;
 import org.wso2.maven.p2.utils.FileManagementUtil;
 import org.wso2.maven.p2.utils.P2ApplicationLaunchManager;
 import org.wso2.maven.p2.utils.P2Constants;
+import org.wso2.maven.p2.utils.P2RepositoryMirror;
 import org.wso2.maven.p2.utils.ProductFileUtils;
+import org.wso2.maven.p2.utils.SharedDirectorRuntime;
 
 import java.io.File;
 import java.io.IOException;
@@ -81,6 +87,15 @@ public class GenerateProfileMojo extends AbstractMojo {
     @Component
     private P2ApplicationLauncher launcher;
 
+    @Component
+    private EquinoxLauncher standaloneLauncher;
+
+    @Component
+    private StandaloneDirectorRuntimeFactory standaloneDirectorFactory;
+
+    @Component
+    private MavenSession session;
+
     /**
      * Kill the forked test process after a certain number of seconds. If set to 0, wait forever for
      * the process, never timing out.
@@ -88,6 +103,32 @@ public class GenerateProfileMojo extends AbstractMojo {
     @Parameter(defaultValue = "${p2.timeout}")
     private int forkedProcessTimeoutInSeconds;
 
+    /**
+     * Run the director on a standalone runtime provisioned once and shared by all the goals of the build, instead of
+     * a runtime assembled for this goal alone.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean reuseDirectorRuntime;
+
+    /**
+     * Record the wall time, I/O and forked process time of generating the runtime in target/carbon-p2-metrics.json.
+     */
+    @Parameter(property = "carbon.p2.metrics", defaultValue = "false")
+    private boolean recordMetrics;
+
+    /**
+     * Mirror a remote repository into a persistent cache under the maven local repository and run the director
+     * against the mirror, so that the repository is only downloaded again when it changes.
+     */
+    @Parameter(property = "carbon.p2.mirrorRepository", defaultValue = "false")
+    private boolean mirrorRepository;
+
+    /**
+     * Size cap of the artifacts kept in the repository mirror cache, in megabytes.
+     */
+    @Parameter(property = "carbon.p2.mirrorCacheSize", defaultValue = "4096")
+    private long mirrorCacheSizeInMB;
+
     /**
      * Overridden method of AbstractMojo class. This is picked up by the maven runtime for execution.
      *
@@ -96,17 +137,25 @@ public class GenerateProfileMojo extends AbstractMojo {
      * @throws MojoFailureException   throws when the tool breaks for any configuration issues
      */
     public void execute() throws MojoExecutionException, MojoFailureException {
+        BuildMetrics metrics = BuildMetrics.start(session, project, "generate-runtime", recordMetrics);
         try {
             if (runtime == null) {
                 runtime = P2Constants.DEFAULT_PROFILE_ID;
             }
-            deployRepository();
+            try (BuildMetrics.Step step = metrics.step("deployRepository")) {
+                deployRepository();
+                step.written(new File(targetPath.getPath(), runtime));
+            }
             //updating runtime's config.ini p2.data.area property using relative path
-            File profileConfigIni = FileManagementUtil.getProfileConfigIniFile(targetPath.getPath(), runtime);
-            FileManagementUtil.changeConfigIniProperty(profileConfigIni, "eclipse.p2.data.area",
-                    P2Constants.P2_DIRECTORY, this.getLog());
+            try (BuildMetrics.Step step = metrics.step("updateProfileConfigIni")) {
+                File profileConfigIni = FileManagementUtil.getProfileConfigIniFile(targetPath.getPath(), runtime);
+                FileManagementUtil.changeConfigIniProperty(profileConfigIni, "eclipse.p2.data.area",
+                        P2Constants.P2_DIRECTORY, this.getLog());
+            }
         } catch (IOException e) {
             throw new MojoExecutionException(e.getMessage(), e);
+        } finally {
+            metrics.finish(getLog());
         }
     }
 
@@ -127,10 +176,41 @@ public class GenerateProfileMojo extends AbstractMojo {
             }
             productConfiguration = ProductConfiguration.read(productFile);
         }
-        P2ApplicationLaunchManager p2LaunchManager = new P2ApplicationLaunchManager(launcher);
+        P2ApplicationLaunchManager p2LaunchManager;
+        if (reuseDirectorRuntime) {
+            p2LaunchManager = new P2ApplicationLaunchManager(standaloneLauncher, SharedDirectorRuntime
+                    .getRuntimeLocation(session, project, standaloneDirectorFactory, forkedProcessTimeoutInSeconds));
+        } else {
+            p2LaunchManager = new P2ApplicationLaunchManager(launcher);
+        }
         p2LaunchManager.setWorkingDirectory(project.getBasedir());
         p2LaunchManager.setApplicationName("org.eclipse.equinox.p2.director");
-        p2LaunchManager.addGenerateProfileArguments(repositoryURL, productConfiguration.getId(), runtime, targetPath);
-        p2LaunchManager.performAction(forkedProcessTimeoutInSeconds);
+        P2RepositoryMirror.Lease lease = mirrorRepository && repositoryURL != null ? mirror(repositoryURL) : null;
+        try {
+            URL repository = lease != null ? lease.getLocation() : repositoryURL;
+            p2LaunchManager.addGenerateProfileArguments(repository, productConfiguration.getId(), runtime,
+                    targetPath);
+            p2LaunchManager.performAction(forkedProcessTimeoutInSeconds);
+        } finally {
+            if (lease != null) {
+                lease.close();
+            }
+        }
+    }
+
+    /**
+     * Returns a lease of the local mirror of the given repository, bringing it up to date.
+     *
+     * @param repository p2 repository to mirror
+     * @return {@link P2RepositoryMirror.Lease} of the mirror, to be closed once the director has run
+     * @throws MojoExecutionException throws when unable to mirror the repository
+     */
+    private P2RepositoryMirror.Lease mirror(URL repository) throws MojoExecutionException {
+        try {
+            return new P2RepositoryMirror(session.getLocalRepository().getBasedir(),
+                    mirrorCacheSizeInMB * 1024 * 1024, getLog()).mirror(repository);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to mirror the repository " + repository, e);
+        }
     }
 }
@@ -0,0 +1,398 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.profile;
+
+import org.apache.maven.plugin.logging.Log;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.wso2.maven.p2.utils.DirectoryDeleter;
+import org.wso2.maven.p2.utils.FileManagementUtil;
+import org.wso2.maven.p2.utils.P2Constants;
+import org.wso2.maven.p2.utils.P2Profile;
+import org.wso2.maven.p2.utils.XmlServices;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+/**
+ * Compacts a product runtime by removing old profile snapshots and the artifacts of the bundle pool which no
+ * remaining snapshot refers to.
+ * <p>
+ * Every profile of every profile registry under the destination is considered, since profiles share the bundle pool.
+ * The latest snapshots of each profile are kept, so that the profile can still be reverted to them, and the artifacts
+ * of all the kept snapshots make up the live set. Bundles and features listed in the pool's artifact repository
+ * metadata but outside the live set are removed from the metadata first, and then deleted in parallel. Files of the
+ * pool which the metadata does not list, such as bundles dropped in by hand, are left as they are.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class RuntimeCompactor {
+
+    private static final String BUNDLE_CLASSIFIER = "osgi.bundle";
+    private static final String FEATURE_CLASSIFIER = "org.eclipse.update.feature";
+    private static final String ARTIFACTS_XML = "artifacts.xml";
+    private static final String ARTIFACTS_JAR = "artifacts.jar";
+
+    private final File destination;
+    private final int snapshotsToKeep;
+    private final int threadCount;
+    private final boolean dryRun;
+    private final Log log;
+
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+    private int removedSnapshots;
+    private int removedArtifacts;
+
+    /**
+     * Creates a compactor for the runtime in the given destination.
+     *
+     * @param destination     directory the profiles of the runtime are installed in
+     * @param snapshotsToKeep number of latest snapshots to keep for each profile, at least 1
+     * @param threadCount     number of threads deleting artifacts
+     * @param dryRun          only report what would be removed
+     * @param log             Logger to report the removed files
+     */
+    public RuntimeCompactor(File destination, int snapshotsToKeep, int threadCount, boolean dryRun, Log log) {
+        this.destination = destination;
+        this.snapshotsToKeep = snapshotsToKeep;
+        this.threadCount = threadCount;
+        this.dryRun = dryRun;
+        this.log = log;
+    }
+
+    /**
+     * Compacts the runtime.
+     *
+     * @throws IOException throws when unable to read a profile snapshot or to delete a file
+     */
+    public void compact() throws IOException {
+        List<File> registries = P2Profile.getProfileRegistries(destination);
+        if (registries.isEmpty()) {
+            log.warn("No profile registry found under " + destination);
+            return;
+        }
+
+        Set<P2Profile.ArtifactKey> liveArtifacts = new HashSet<>();
+        Set<File> bundlePools = new LinkedHashSet<>();
+        List<File> staleSnapshots = new ArrayList<>();
+        File defaultBundlePool = new File(destination, P2Constants.LIB);
+        if (defaultBundlePool.isDirectory()) {
+            bundlePools.add(defaultBundlePool.getCanonicalFile());
+        }
+        for (File registry : registries) {
+            for (File profileDirectory : P2Profile.getProfileDirectories(registry)) {
+                List<File> snapshots = P2Profile.getSnapshots(profileDirectory);
+                int firstKept = Math.max(0, snapshots.size() - snapshotsToKeep);
+                staleSnapshots.addAll(snapshots.subList(0, firstKept));
+                for (File snapshot : snapshots.subList(firstKept, snapshots.size())) {
+                    P2Profile profile = P2Profile.read(snapshot);
+                    liveArtifacts.addAll(profile.getArtifacts());
+                    addBundlePool(bundlePools, profile.getBundlePool());
+                }
+            }
+        }
+
+        List<Path> staleArtifacts = new ArrayList<>();
+        for (File bundlePool : bundlePools) {
+            Document repository = readArtifactRepository(bundlePool);
+            if (repository == null) {
+                log.warn("No artifact repository found in " + bundlePool + ", skipping its compaction");
+                continue;
+            }
+            List<Element> stale = getStaleArtifacts(repository, liveArtifacts);
+            if (stale.isEmpty()) {
+                continue;
+            }
+            if (liveArtifacts.isEmpty()) {
+                // Rather keep the pool as it is than empty it because the snapshots recorded no artifacts.
+                log.warn("No profile refers to any artifact, skipping the compaction of " + bundlePool);
+                continue;
+            }
+            for (Element artifact : stale) {
+                collectLocations(bundlePool, artifact, staleArtifacts);
+            }
+            if (!dryRun) {
+                pruneArtifactRepository(bundlePool, repository, stale);
+            }
+        }
+
+        for (File snapshot : staleSnapshots) {
+            log.debug((dryRun ? "Would remove " : "Removing ") + snapshot);
+            reclaimedBytes.addAndGet(snapshot.length());
+            if (!dryRun) {
+                Files.delete(snapshot.toPath());
+            }
+        }
+        removedSnapshots = staleSnapshots.size();
+        deleteInParallel(staleArtifacts);
+        removedArtifacts = staleArtifacts.size();
+    }
+
+    private void addBundlePool(Set<File> bundlePools, String location) throws IOException {
+        if (location == null) {
+            return;
+        }
+        File bundlePool = new File(location).getCanonicalFile();
+        // Only pools inside the runtime are compacted, as a pool elsewhere may be shared with other installations.
+        if (bundlePool.isDirectory() && bundlePool.toPath().startsWith(destination.getCanonicalFile().toPath())) {
+            bundlePools.add(bundlePool);
+        }
+    }
+
+    /**
+     * Reads the artifact repository metadata of a bundle pool.
+     *
+     * @param bundlePool bundle pool
+     * @return {@link Document} of the artifacts.xml, or {@code null} if the pool has no artifact repository
+     * @throws IOException throws when unable to read or parse the metadata
+     */
+    private static Document readArtifactRepository(File bundlePool) throws IOException {
+        Path artifactsJar = new File(bundlePool, ARTIFACTS_JAR).toPath();
+        Path artifactsXml = new File(bundlePool, ARTIFACTS_XML).toPath();
+        try {
+            if (Files.isRegularFile(artifactsJar)) {
+                try (ZipFile zipFile = new ZipFile(artifactsJar.toFile())) {
+                    ZipEntry entry = zipFile.getEntry(ARTIFACTS_XML);
+                    if (entry == null) {
+                        throw new IOException(artifactsJar + " does not contain " + ARTIFACTS_XML);
+                    }
+                    try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                        return XmlServices.getDocumentBuilder().parse(inputStream);
+                    }
+                }
+            }
+            if (Files.isRegularFile(artifactsXml)) {
+                return XmlServices.getDocumentBuilder().parse(artifactsXml.toFile());
+            }
+            return null;
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Unable to parse the artifact repository of " + bundlePool, e);
+        }
+    }
+
+    /**
+     * Returns the bundles and features of an artifact repository which are not live.
+     *
+     * @param repository    artifact repository metadata of a bundle pool
+     * @param liveArtifacts artifacts of the kept profile snapshots
+     * @return {@code List<Element>} artifact elements of the metadata
+     */
+    private static List<Element> getStaleArtifacts(Document repository, Set<P2Profile.ArtifactKey> liveArtifacts) {
+        List<Element> stale = new ArrayList<>();
+        NodeList artifactElements = repository.getDocumentElement().getElementsByTagName("artifact");
+        for (int i = 0; i < artifactElements.getLength(); i++) {
+            Element artifact = (Element) artifactElements.item(i);
+            String classifier = artifact.getAttribute("classifier");
+            if (!BUNDLE_CLASSIFIER.equals(classifier) && !FEATURE_CLASSIFIER.equals(classifier)) {
+                continue;
+            }
+            P2Profile.ArtifactKey key = new P2Profile.ArtifactKey(classifier, artifact.getAttribute("id"),
+                    artifact.getAttribute("version"));
+            if (!liveArtifacts.contains(key)) {
+                stale.add(artifact);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Adds the files of an artifact to the given list. A bundle pool keeps a bundle or feature as a jar or, when it
+     * is installed unpacked, as a folder of the same name.
+     *
+     * @param bundlePool bundle pool
+     * @param artifact   artifact element of the pool's artifact repository metadata
+     * @param locations  collects the existing files of the artifact
+     */
+    private static void collectLocations(File bundlePool, Element artifact, List<Path> locations) {
+        String directory = BUNDLE_CLASSIFIER.equals(artifact.getAttribute("classifier")) ? "plugins" : "features";
+        String name = artifact.getAttribute("id") + "_" + artifact.getAttribute("version");
+        for (File location : new File[]{new File(bundlePool, directory + "/" + name + ".jar"),
+                new File(bundlePool, directory + "/" + name)}) {
+            if (Files.exists(location.toPath(), LinkOption.NOFOLLOW_LINKS)) {
+                locations.add(location.toPath());
+            }
+        }
+    }
+
+    /**
+     * Removes the given artifacts from the artifact repository metadata of the bundle pool, so that p2 does not
+     * consider them available once their files are deleted. The metadata keeps the permissions it had.
+     *
+     * @param bundlePool bundle pool
+     * @param repository artifact repository metadata of the bundle pool
+     * @param stale      artifact elements to remove
+     * @throws IOException throws when unable to write the metadata
+     */
+    private static void pruneArtifactRepository(File bundlePool, Document repository, List<Element> stale)
+            throws IOException {
+        for (Element artifact : stale) {
+            Node previous = artifact.getPreviousSibling();
+            if (previous != null && previous.getNodeType() == Node.TEXT_NODE
+                    && previous.getTextContent().trim().isEmpty()) {
+                artifact.getParentNode().removeChild(previous);
+            }
+            artifact.getParentNode().removeChild(artifact);
+        }
+        Element root = repository.getDocumentElement();
+        NodeList artifactsElements = root.getElementsByTagName("artifacts");
+        if (artifactsElements.getLength() > 0) {
+            ((Element) artifactsElements.item(0)).setAttribute("size",
+                    Integer.toString(root.getElementsByTagName("artifact").getLength()));
+        }
+
+        Path artifactsJar = new File(bundlePool, ARTIFACTS_JAR).toPath();
+        boolean compressed = Files.isRegularFile(artifactsJar);
+        Path target = compressed ? artifactsJar : new File(bundlePool, ARTIFACTS_XML).toPath();
+        Path tempFile = FileManagementUtil.createTempFile(bundlePool.toPath(), target.getFileName().toString());
+        try {
+            try (OutputStream fileStream = Files.newOutputStream(tempFile)) {
+                Transformer transformer = XmlServices.getIndentingTransformer();
+                transformer.setOutputProperty(OutputKeys.INDENT, "no");
+                if (compressed) {
+                    try (ZipOutputStream zipStream = new ZipOutputStream(fileStream)) {
+                        zipStream.putNextEntry(new ZipEntry(ARTIFACTS_XML));
+                        transformer.transform(new DOMSource(repository), new StreamResult(zipStream));
+                        zipStream.closeEntry();
+                    }
+                } else {
+                    transformer.transform(new DOMSource(repository), new StreamResult(fileStream));
+                }
+            } catch (TransformerException e) {
+                throw new IOException("Unable to write " + target, e);
+            }
+            PosixFileAttributeView attributes = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+            if (attributes != null) {
+                Files.setPosixFilePermissions(tempFile, attributes.readAttributes().permissions());
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void deleteInParallel(List<Path> artifacts) throws IOException {
+        if (artifacts.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount,
+                artifacts.size())));
+        try {
+            List<Future<Void>> results = new ArrayList<>(artifacts.size());
+            for (Path artifact : artifacts) {
+                results.add(executor.submit(() -> {
+                    log.debug((dryRun ? "Would remove " : "Removing ") + artifact);
+                    reclaimedBytes.addAndGet(sizeOf(artifact));
+                    if (!dryRun) {
+                        if (Files.isDirectory(artifact, LinkOption.NOFOLLOW_LINKS)) {
+                            DirectoryDeleter.delete(artifact, 1);
+                        } else {
+                            Files.deleteIfExists(artifact);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while deleting artifacts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error occurred while deleting artifacts", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long sizeOf(Path path) throws IOException {
+        if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            return Files.size(path);
+        }
+        AtomicLong size = new AtomicLong();
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                size.addAndGet(attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size.get();
+    }
+
+    /**
+     * Returns the number of bytes the compaction reclaimed, or would reclaim in a dry run.
+     *
+     * @return {@code long}
+     */
+    public long getReclaimedBytes() {
+        return reclaimedBytes.get();
+    }
+
+    /**
+     * Returns the number of profile snapshots removed.
+     *
+     * @return {@code int}
+     */
+    public int getRemovedSnapshots() {
+        return removedSnapshots;
+    }
+
+    /**
+     * Returns the number of bundles and features removed from the bundle pools.
+     *
+     * @return {@code int}
+     */
+    public int getRemovedArtifacts() {
+        return removedArtifacts;
+    }
+}
@@ -19,9 +19,9 @@ package org.wso2.maven.p2.repository;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.wso2.maven.p2.utils.BundleUtils;
+import org.wso2.maven.p2.utils.PropertyReplacer;
 
 import java.util.Properties;
-import java.util.regex.Pattern;
 
 /**
  * Bean class representing a CatFeature object provided as an input param to RepositoryGeneratorMojo.
@@ -81,13 +81,21 @@ public class CatFeature {
     }
 
     public void replaceProjectKeysInVersion(MavenProject project) throws MojoExecutionException {
+        replaceProjectKeysInVersion(project.getProperties());
+    }
+
+    /**
+     * Replaces the ${property} references in the version with the values of the given project properties, in a
+     * single scan of the version.
+     *
+     * @param properties project properties
+     * @throws MojoExecutionException throws when the version is not set
+     */
+    public void replaceProjectKeysInVersion(Properties properties) throws MojoExecutionException {
         if (version == null) {
             throw new MojoExecutionException("Could not find the version for featureId: " + getId());
         }
-        Properties properties = project.getProperties();
-        properties.forEach((key, value) -> {
-            version = version.replaceAll(Pattern.quote("${" + key + "}"), value.toString());
-        });
+        version = PropertyReplacer.replaceProperties(version, properties);
         versionReplaced = true;
     }
 
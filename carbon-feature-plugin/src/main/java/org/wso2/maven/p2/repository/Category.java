@@ -19,6 +19,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 
 import java.util.ArrayList;
+import java.util.Properties;
 
 /**
  * Bean class representing a Category object provided as an input param to RepositoryGeneratorMojo.
@@ -75,9 +76,10 @@ public class Category {
             return null;
         }
         processedFeatures = new ArrayList<>();
+        Properties properties = project.getProperties();
         for (CatFeature f : features) {
             processedFeatures.add(f);
-            f.replaceProjectKeysInVersion(project);
+            f.replaceProjectKeysInVersion(properties);
         }
         return processedFeatures;
     }
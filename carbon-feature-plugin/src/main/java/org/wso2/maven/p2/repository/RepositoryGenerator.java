@@ -21,10 +21,12 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
-import org.codehaus.plexus.util.FileUtils;
 import org.wso2.maven.p2.beans.CarbonArtifact;
 import org.wso2.maven.p2.exceptions.CarbonArtifactNotFoundException;
+import org.wso2.maven.p2.utils.BuildMetrics;
 import org.wso2.maven.p2.utils.DependencyResolver;
+import org.wso2.maven.p2.utils.DirectoryDeleter;
+import org.wso2.maven.p2.utils.FileCopier;
 import org.wso2.maven.p2.utils.FileManagementUtil;
 import org.wso2.maven.p2.utils.P2ApplicationLaunchManager;
 import org.wso2.maven.p2.utils.P2Utils;
@@ -33,7 +35,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 
@@ -69,6 +73,14 @@ public class RepositoryGenerator {
      */
     private static final String CATEGORY_PUBLISHER_APPLICATION = "org.eclipse.equinox.p2.publisher.CategoryPublisher";
 
+    /**
+     * The update site publisher application (org.eclipse.equinox.p2.publisher.UpdateSitePublisher) is a command line
+     * application that publishes the features and bundles of a local update site and categorizes them according to
+     * the site.xml of the update site in the same run.
+     */
+    private static final String UPDATE_SITE_PUBLISHER_APPLICATION =
+            "org.eclipse.equinox.p2.publisher.UpdateSitePublisher";
+
     private P2ApplicationLaunchManager p2LaunchManager;
     private HashMap<String, CarbonArtifact> dependentBundles;
     private HashMap<String, CarbonArtifact> dependentFeatures;
@@ -81,17 +93,59 @@ public class RepositoryGenerator {
     }
 
     public void generate() throws MojoExecutionException, MojoFailureException {
+        BuildMetrics metrics = resourceBundle.getMetrics();
         try {
-            resolveDependencies();
-            populateRequiredArtifactData();
-            setupTempOutputFolderStructure();
-            unzipFeaturesToOutputFolder();
-            copyBundleArtifactsToOutputFolder();
-            copyProjectResourcesToOutputFolder();
-            generateRepository();
-            updateRepositoryWithCategories();
-            archiveGeneratedRepo();
-            performMopUp();
+            try (BuildMetrics.Step step = metrics.step("resolveDependencies")) {
+                resolveDependencies();
+            }
+            try (BuildMetrics.Step step = metrics.step("populateRequiredArtifactData")) {
+                populateRequiredArtifactData();
+            }
+            try (BuildMetrics.Step step = metrics.step("setupTempOutputFolderStructure")) {
+                setupTempOutputFolderStructure();
+            }
+            try (BuildMetrics.Step step = metrics.step("unzipFeaturesToOutputFolder")) {
+                unzipFeaturesToOutputFolder();
+                for (Feature feature : resourceBundle.getFeatureArtifacts()) {
+                    step.read(feature.getArtifact().getFile());
+                }
+                step.written(sourceDir);
+            }
+            try (BuildMetrics.Step step = metrics.step("copyBundleArtifactsToOutputFolder")) {
+                copyBundleArtifactsToOutputFolder();
+                for (Bundle bundle : resourceBundle.getBundleArtifacts()) {
+                    step.read(bundle.getArtifact().getFile());
+                }
+            }
+            try (BuildMetrics.Step step = metrics.step("copyProjectResourcesToOutputFolder")) {
+                copyProjectResourcesToOutputFolder();
+            }
+            if (resourceBundle.isPublishCategoriesInSinglePass() && isCategoriesAvailable()) {
+                try (BuildMetrics.Step step = metrics.step("generateRepositoryWithCategories")) {
+                    step.read(sourceDir);
+                    generateRepositoryWithCategories();
+                    step.written(repoGenerationLocation);
+                }
+            } else {
+                try (BuildMetrics.Step step = metrics.step("generateRepository")) {
+                    step.read(sourceDir);
+                    generateRepository();
+                    step.written(repoGenerationLocation);
+                }
+                try (BuildMetrics.Step step = metrics.step("updateRepositoryWithCategories")) {
+                    updateRepositoryWithCategories();
+                }
+            }
+            if (resourceBundle.isArchive()) {
+                try (BuildMetrics.Step step = metrics.step("archiveGeneratedRepo")) {
+                    step.read(repoGenerationLocation);
+                    archiveGeneratedRepo();
+                    step.written(archiveFile);
+                }
+            }
+            try (BuildMetrics.Step step = metrics.step("performMopUp")) {
+                performMopUp();
+            }
         } catch (IOException | TransformerException | ParserConfigurationException e) {
             throw new MojoFailureException(e.getMessage(), e);
         } catch (CarbonArtifactNotFoundException e) {
@@ -101,9 +155,24 @@ public class RepositoryGenerator {
 
     private void resolveDependencies() throws IOException {
         this.log.info("Inspecting maven dependencies.");
-        List<HashMap<String, CarbonArtifact>> artifacts = DependencyResolver.getDependenciesForProject(project,
-                resourceBundle.getRepositorySystem(), resourceBundle.getRemoteRepositories(),
-                resourceBundle.getLocalRepository());
+        List<HashMap<String, CarbonArtifact>> artifacts;
+        if (resourceBundle.isResolveReferencedDependenciesOnly()) {
+            Set<String> bundleKeys = new HashSet<>();
+            for (Bundle bundle : resourceBundle.getBundleArtifacts()) {
+                bundleKeys.add(bundle.getSymbolicName() + "_" + bundle.getVersion());
+            }
+            Set<String> featureKeys = new HashSet<>();
+            for (Feature feature : resourceBundle.getFeatureArtifacts()) {
+                featureKeys.add(feature.getId() + "_" + feature.getVersion());
+            }
+            artifacts = DependencyResolver.getReferencedDependenciesForProject(project,
+                    resourceBundle.getRepositorySystem(), resourceBundle.getRemoteRepositories(),
+                    resourceBundle.getLocalRepository(), bundleKeys, featureKeys, resourceBundle.getArtifactIndex());
+        } else {
+            artifacts = DependencyResolver.getDependenciesForProject(project, resourceBundle.getRepositorySystem(),
+                    resourceBundle.getRemoteRepositories(), resourceBundle.getLocalRepository(),
+                    resourceBundle.getArtifactIndex());
+        }
         dependentBundles = artifacts.get(0);
         dependentFeatures = artifacts.get(1);
     }
@@ -174,6 +243,28 @@ public class RepositoryGenerator {
         this.log.info("Completed running Equinox P2 Publisher Application for Repository Generation");
     }
 
+    /**
+     * Generate the repository and categorize it in a single run of the P2ApplicationLauncher. The category definition
+     * is written as the site.xml of the extracted features and bundles, which are then published as an update site.
+     *
+     * @throws MojoFailureException
+     * @throws MojoExecutionException
+     * @throws TransformerException
+     * @throws ParserConfigurationException
+     */
+    private void generateRepositoryWithCategories() throws MojoFailureException, MojoExecutionException,
+            TransformerException, ParserConfigurationException {
+        this.log.info("Running Equinox P2 Update Site Publisher Application for Repository Generation with Categories");
+        P2Utils.createCategoryFile(project, resourceBundle.getCategories(), new File(sourceDir, "site.xml"));
+        p2LaunchManager.setWorkingDirectory(project.getBasedir());
+        p2LaunchManager.setApplicationName(UPDATE_SITE_PUBLISHER_APPLICATION);
+        p2LaunchManager.addRepoGenerationWithCategoriesArguments(sourceDir.getAbsolutePath(),
+                resourceBundle.getRepository().toString(), getRepositoryName());
+        p2LaunchManager.performAction(resourceBundle.getForkedProcessTimeoutInSeconds());
+        this.log.info("Completed running Equinox P2 Update Site Publisher Application for Repository Generation " +
+                "with Categories");
+    }
+
     /**
      * Unzip the given feature zip files into the output folder which will ultimately converted into P2 repo.
      *
@@ -208,7 +299,7 @@ public class RepositoryGenerator {
             try {
                 this.log.info("Copying bundle artifact:" + bundleArtifact.getSymbolicName());
                 File file = bundleArtifact.getArtifact().getFile();
-                FileManagementUtil.copy(file, new File(pluginsDir, file.getName()));
+                FileCopier.copyFile(file.toPath(), new File(pluginsDir, file.getName()).toPath(), true);
             } catch (IOException e) {
                 throw new IOException("Error occurred when extracting the Feature Artifact: " +
                         bundleArtifact.toString(), e);
@@ -266,10 +357,7 @@ public class RepositoryGenerator {
      */
     private void updateRepositoryWithCategories() throws TransformerException, ParserConfigurationException,
             MojoExecutionException, MojoFailureException {
-        boolean isCategoriesAvailable = resourceBundle.getCategories() != null &&
-                resourceBundle.getCategories().size() != 0;
-
-        if (isCategoriesAvailable) {
+        if (isCategoriesAvailable()) {
             this.log.info("Running Equinox P2 Category Publisher Application for the Generated Repository");
             P2Utils.createCategoryFile(project, resourceBundle.getCategories(), categoryDefinitionFile);
 
@@ -283,12 +371,20 @@ public class RepositoryGenerator {
         }
     }
 
+    private boolean isCategoriesAvailable() {
+        return resourceBundle.getCategories() != null && resourceBundle.getCategories().size() != 0;
+    }
+
     /**
-     * Delete the temporary folder.
+     * Delete the temporary folder, in the background if the cleanup is deferred.
      */
     private void performMopUp() {
         try {
-            FileUtils.deleteDirectory(tempDir);
+            if (resourceBundle.isDeferCleanup()) {
+                DirectoryDeleter.deleteLater(tempDir.toPath(), this.log);
+            } else {
+                DirectoryDeleter.delete(tempDir.toPath());
+            }
         } catch (Exception e) {
             this.log.warn(new MojoExecutionException("Unable complete mop up operation", e));
         }
@@ -16,6 +16,7 @@
 package org.wso2.maven.p2.repository;
 
 import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -26,6 +27,8 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.repository.RepositorySystem;
 import org.eclipse.sisu.equinox.launching.internal.P2ApplicationLauncher;
+import org.wso2.maven.p2.utils.ArtifactIndex;
+import org.wso2.maven.p2.utils.BuildMetrics;
 
 import java.net.URL;
 import java.util.List;
@@ -35,7 +38,7 @@ import java.util.List;
  *
  * @since 2.0.0
  */
-@Mojo(name = "generate-repo", defaultPhase = LifecyclePhase.PACKAGE)
+@Mojo(name = "generate-repo", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
 public class RepositoryGeneratorMojo extends AbstractMojo {
 
     @Parameter
@@ -59,6 +62,35 @@ public class RepositoryGeneratorMojo extends AbstractMojo {
     @Parameter(defaultValue = "false")
     private boolean archive;
 
+    /**
+     * Resolve only the dependencies which can match the configured features and bundles instead of every dependency
+     * and dependencyManagement entry of the project.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean resolveReferencedDependenciesOnly;
+
+    /**
+     * Publish the repository together with its categories in a single run of the update site publisher, reading the
+     * categories from a site.xml written into the temp output folder, instead of running the category publisher on
+     * the generated repository afterwards.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean publishCategoriesInSinglePass;
+
+    /**
+     * Delete the temp output folder in the background, after moving it out of the way, instead of before the goal
+     * completes.
+     */
+    @Parameter(property = "carbon.p2.deferCleanup", defaultValue = "false")
+    private boolean deferCleanup;
+
+    /**
+     * Record the wall time, I/O and forked process time of each step of the repository generation in
+     * target/carbon-p2-metrics.json.
+     */
+    @Parameter(property = "carbon.p2.metrics", defaultValue = "false")
+    private boolean recordMetrics;
+
     @Component
     private RepositorySystem repositorySystem;
 
@@ -73,6 +105,9 @@ public class RepositoryGeneratorMojo extends AbstractMojo {
     @Component
     private P2ApplicationLauncher launcher;
 
+    @Component
+    private MavenSession session;
+
     /**
      * Kill the forked test process after a certain number of seconds. If set to 0, wait forever for
      * the process, never timing out.
@@ -88,11 +123,16 @@ public class RepositoryGeneratorMojo extends AbstractMojo {
      *                                to generate the repository
      */
     public void execute() throws MojoExecutionException, MojoFailureException {
-        RepositoryGenerator generator = constructRepoGenerator();
-        generator.generate();
+        BuildMetrics metrics = BuildMetrics.start(session, project, "generate-repo", recordMetrics);
+        RepositoryGenerator generator = constructRepoGenerator(metrics);
+        try {
+            generator.generate();
+        } finally {
+            metrics.finish(getLog());
+        }
     }
 
-    private RepositoryGenerator constructRepoGenerator() {
+    private RepositoryGenerator constructRepoGenerator(BuildMetrics metrics) {
         RepositoryResourceBundle resourceBundle = new RepositoryResourceBundle();
         resourceBundle.setName(this.name);
         resourceBundle.setRepository(this.targetRepository);
@@ -101,12 +141,17 @@ public class RepositoryGeneratorMojo extends AbstractMojo {
         resourceBundle.setCategories(this.categories);
         resourceBundle.setProject(this.project);
         resourceBundle.setArchive(this.archive);
+        resourceBundle.setResolveReferencedDependenciesOnly(this.resolveReferencedDependenciesOnly);
+        resourceBundle.setPublishCategoriesInSinglePass(this.publishCategoriesInSinglePass);
+        resourceBundle.setDeferCleanup(this.deferCleanup);
         resourceBundle.setRepositorySystem(this.repositorySystem);
         resourceBundle.setLocalRepository(this.localRepository);
         resourceBundle.setRemoteRepositories(this.remoteRepositories);
         resourceBundle.setLauncher(this.launcher);
         resourceBundle.setForkedProcessTimeoutInSeconds(this.forkedProcessTimeoutInSeconds);
         resourceBundle.setLog(getLog());
+        resourceBundle.setMetrics(metrics);
+        resourceBundle.setArtifactIndex(ArtifactIndex.getInstance(session));
         return new RepositoryGenerator(resourceBundle);
     }
 }
@@ -21,6 +21,8 @@ import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.repository.RepositorySystem;
 import org.eclipse.sisu.equinox.launching.internal.P2ApplicationLauncher;
+import org.wso2.maven.p2.utils.ArtifactIndex;
+import org.wso2.maven.p2.utils.BuildMetrics;
 
 import java.net.URL;
 import java.util.ArrayList;
@@ -47,6 +49,9 @@ public class RepositoryResourceBundle {
 
 
     private boolean archive;
+    private boolean resolveReferencedDependenciesOnly;
+    private boolean publishCategoriesInSinglePass;
+    private boolean deferCleanup;
 
     private RepositorySystem repositorySystem;
     private ArtifactRepository localRepository;
@@ -55,6 +60,8 @@ public class RepositoryResourceBundle {
     private int forkedProcessTimeoutInSeconds;
 
     private Log log;
+    private BuildMetrics metrics = BuildMetrics.disabled();
+    private ArtifactIndex artifactIndex;
 
     public String getName() {
         return name;
@@ -119,6 +126,30 @@ public class RepositoryResourceBundle {
         this.archive = archive;
     }
 
+    public boolean isResolveReferencedDependenciesOnly() {
+        return resolveReferencedDependenciesOnly;
+    }
+
+    public void setResolveReferencedDependenciesOnly(boolean resolveReferencedDependenciesOnly) {
+        this.resolveReferencedDependenciesOnly = resolveReferencedDependenciesOnly;
+    }
+
+    public boolean isPublishCategoriesInSinglePass() {
+        return publishCategoriesInSinglePass;
+    }
+
+    public void setPublishCategoriesInSinglePass(boolean publishCategoriesInSinglePass) {
+        this.publishCategoriesInSinglePass = publishCategoriesInSinglePass;
+    }
+
+    public boolean isDeferCleanup() {
+        return deferCleanup;
+    }
+
+    public void setDeferCleanup(boolean deferCleanup) {
+        this.deferCleanup = deferCleanup;
+    }
+
     public RepositorySystem getRepositorySystem() {
         return repositorySystem;
     }
@@ -167,4 +198,20 @@ public class RepositoryResourceBundle {
         this.log = log;
     }
 
+    public BuildMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(BuildMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ArtifactIndex getArtifactIndex() {
+        return artifactIndex;
+    }
+
+    public void setArtifactIndex(ArtifactIndex artifactIndex) {
+        this.artifactIndex = artifactIndex;
+    }
+
 }
@@ -0,0 +1,145 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.wso2.maven.p2.beans.CarbonArtifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Index of the resolved maven artifacts of a maven session, keyed by group id, artifact id, version and type.
+ * <p>
+ * Feature modules of a reactor mostly depend on the same bundles. The index lets every {@code generate} and
+ * {@code generate-repo} execution of the session resolve a given artifact and read its OSGi headers once, including
+ * executions running concurrently under maven's parallel builder: the first execution asking for an artifact resolves
+ * it, and the others asking at the same time wait for its result instead of resolving it again. Only artifacts
+ * resolved to a file are kept, so an artifact which could not be resolved is tried again on the next request.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class ArtifactIndex {
+
+    private static final Map<MavenExecutionRequest, ArtifactIndex> INDEXES = new WeakHashMap<>();
+
+    private final ConcurrentMap<String, FutureTask<Entry>> entries = new ConcurrentHashMap<>();
+
+    private ArtifactIndex() {
+    }
+
+    /**
+     * Returns the index of the given maven session, creating it on first use.
+     *
+     * @param session current maven session
+     * @return {@link ArtifactIndex}
+     */
+    public static ArtifactIndex getInstance(MavenSession session) {
+        synchronized (INDEXES) {
+            return INDEXES.computeIfAbsent(session.getRequest(), request -> new ArtifactIndex());
+        }
+    }
+
+    /**
+     * Returns the indexed entry of the given artifact, resolving it with the given resolver if it is not indexed yet.
+     *
+     * @param carbonArtifact artifact to look up
+     * @param resolver       resolves the artifact when it is not indexed
+     * @return {@link Entry}
+     * @throws IOException throws when the resolver fails
+     */
+    public Entry get(CarbonArtifact carbonArtifact, Callable<Entry> resolver) throws IOException {
+        String key = carbonArtifact.getGroupId() + ":" + carbonArtifact.getArtifactId() + ":"
+                + carbonArtifact.getVersion() + ":" + carbonArtifact.getType();
+        FutureTask<Entry> task = entries.get(key);
+        if (task == null) {
+            FutureTask<Entry> newTask = new FutureTask<>(resolver);
+            task = entries.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            Entry entry = task.get();
+            if (!entry.isResolved()) {
+                entries.remove(key, task);
+            }
+            return entry;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resolving maven artifact: " + key, e);
+        } catch (ExecutionException e) {
+            entries.remove(key, task);
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to resolve maven artifact: " + key, e.getCause());
+        }
+    }
+
+    /**
+     * Resolved maven artifact along with its OSGi headers.
+     */
+    public static class Entry {
+        private final Artifact artifact;
+        private final BundleManifestCache.Headers headers;
+
+        /**
+         * Creates an entry. Pass {@code null} headers for an artifact which is not an OSGi bundle.
+         *
+         * @param artifact resolved maven artifact
+         * @param headers  OSGi headers of the artifact
+         */
+        public Entry(Artifact artifact, BundleManifestCache.Headers headers) {
+            this.artifact = artifact;
+            this.headers = headers;
+        }
+
+        /**
+         * Returns the resolved maven artifact.
+         *
+         * @return {@link Artifact}
+         */
+        public Artifact getArtifact() {
+            return artifact;
+        }
+
+        /**
+         * Returns the OSGi headers of the artifact.
+         *
+         * @return {@link BundleManifestCache.Headers} or {@code null} if the artifact is not an OSGi bundle
+         */
+        public BundleManifestCache.Headers getHeaders() {
+            return headers != null && headers.isBundle() ? headers : null;
+        }
+
+        private boolean isResolved() {
+            File file = artifact == null ? null : artifact.getFile();
+            return file != null && file.exists();
+        }
+    }
+}
@@ -0,0 +1,592 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wall time, I/O and forked process time of the steps of a goal execution.
+ * <p>
+ * A goal opens a {@link Step} around each of its internal steps. Any p2 application forked while a step is open on
+ * the same thread is accounted to that step. When the goal finishes, all the executions recorded for the module in the
+ * current build are written to target/carbon-p2-metrics.json of the module, and a summary of all the modules is
+ * written to target/carbon-p2-metrics-summary.json of the execution root. The summary is rewritten after every
+ * execution, so that it covers the whole build once the build ends, and is logged when the maven session ends, by an
+ * execution listener wrapping the one of the build.
+ * </p>
+ * <p>
+ * The counters of a step include the ones of the steps nested in it, like its wall time does, so the totals of a
+ * module only add up its top level steps.
+ * </p>
+ * <p>
+ * A disabled instance still hands out steps, but does not walk the file system to measure I/O or write any reports.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class BuildMetrics {
+
+    private static final String REPORT_FILE = "carbon-p2-metrics.json";
+    private static final String SUMMARY_FILE = "carbon-p2-metrics-summary.json";
+    private static final int SUMMARY_LOG_LIMIT = 10;
+
+    private static final Map<MavenExecutionRequest, Map<String, List<BuildMetrics>>> BUILDS = new WeakHashMap<>();
+    private static final Map<MavenExecutionRequest, SummaryListener> SUMMARY_LISTENERS = new WeakHashMap<>();
+    private static final ThreadLocal<Step> CURRENT_STEP = new ThreadLocal<>();
+
+    private final MavenSession session;
+    private final MavenProject project;
+    private final String goal;
+    private final boolean enabled;
+    private final long startNanos = System.nanoTime();
+    private final List<Step> steps = Collections.synchronizedList(new ArrayList<>());
+    private volatile long wallNanos;
+
+    private BuildMetrics(MavenSession session, MavenProject project, String goal, boolean enabled) {
+        this.session = session;
+        this.project = project;
+        this.goal = goal;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts recording the metrics of a goal execution.
+     *
+     * @param session current maven session
+     * @param project project the goal is executed on
+     * @param goal    name of the goal
+     * @param enabled whether to measure I/O and write the reports
+     * @return {@link BuildMetrics}
+     */
+    public static BuildMetrics start(MavenSession session, MavenProject project, String goal, boolean enabled) {
+        return new BuildMetrics(session, project, goal, enabled && session != null && project != null);
+    }
+
+    /**
+     * Returns metrics which are not reported, for goals run outside of a maven session.
+     *
+     * @return {@link BuildMetrics}
+     */
+    public static BuildMetrics disabled() {
+        return new BuildMetrics(null, null, null, false);
+    }
+
+    /**
+     * Opens a step of the goal on the current thread. Steps may be nested, and the same step may be opened more than
+     * once, i.e: once per profile.
+     *
+     * @param name name of the step
+     * @return the {@link Step}, to be closed when the step is done
+     */
+    public Step step(String name) {
+        Step step = new Step(name, CURRENT_STEP.get());
+        CURRENT_STEP.set(step);
+        steps.add(step);
+        return step;
+    }
+
+    /**
+     * Accounts a forked process, which was started at the given time and has just ended, to the step open on the
+     * current thread and the steps it is nested in.
+     *
+     * @param processStartNanos {@link System#nanoTime()} when the process was started
+     */
+    public static void recordForkedProcess(long processStartNanos) {
+        long processNanos = System.nanoTime() - processStartNanos;
+        for (Step step = CURRENT_STEP.get(); step != null; step = step.parent) {
+            step.forkedProcesses.incrementAndGet();
+            step.forkedProcessNanos.addAndGet(processNanos);
+        }
+    }
+
+    /**
+     * Ends the goal execution and writes the module report and the build summary. Failing to write a report does not
+     * fail the build.
+     *
+     * @param log logger of the goal
+     */
+    public void finish(Log log) {
+        wallNanos = System.nanoTime() - startNanos;
+        if (!enabled) {
+            return;
+        }
+        String projectId = project.getGroupId() + ":" + project.getArtifactId() + ":" + project.getVersion();
+        File reportFile = new File(project.getBuild().getDirectory(), REPORT_FILE);
+        File summaryFile = new File(new File(session.getExecutionRootDirectory(), "target"), SUMMARY_FILE);
+        try {
+            synchronized (BUILDS) {
+                Map<String, List<BuildMetrics>> buildExecutions =
+                        BUILDS.computeIfAbsent(session.getRequest(), request -> new LinkedHashMap<>());
+                List<BuildMetrics> moduleExecutions = buildExecutions.computeIfAbsent(projectId,
+                        id -> new ArrayList<>());
+                moduleExecutions.add(this);
+                write(reportFile, toModuleReport(projectId, moduleExecutions));
+                List<Total> modules = summarizeModules(buildExecutions);
+                List<Total> stepTotals = summarizeSteps(buildExecutions);
+                write(summaryFile, toSummary(modules, stepTotals));
+                MavenExecutionRequest request = session.getRequest();
+                SummaryListener listener = SUMMARY_LISTENERS.get(request);
+                if (listener == null) {
+                    listener = new SummaryListener(request.getExecutionListener(), request, summaryFile);
+                    request.setExecutionListener(listener);
+                    SUMMARY_LISTENERS.put(request, listener);
+                }
+                listener.log = log;
+            }
+            log.info("Build metrics written to " + reportFile.getAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Unable to write the build metrics", e);
+        }
+    }
+
+    private static List<Total> summarizeModules(Map<String, List<BuildMetrics>> executions) {
+        List<Total> modules = new ArrayList<>();
+        executions.forEach((projectId, list) -> {
+            Total module = new Total(projectId);
+            for (BuildMetrics execution : list) {
+                module.wallNanos += execution.wallNanos;
+                module.count++;
+                for (Step step : execution.getSteps()) {
+                    if (step.parent == null) {
+                        module.add(step);
+                    }
+                }
+            }
+            modules.add(module);
+        });
+        modules.sort(Comparator.comparingLong((Total module) -> module.wallNanos).reversed());
+        return modules;
+    }
+
+    private static List<Total> summarizeSteps(Map<String, List<BuildMetrics>> executions) {
+        Map<String, Total> totals = new LinkedHashMap<>();
+        for (List<BuildMetrics> list : executions.values()) {
+            for (BuildMetrics execution : list) {
+                for (Step step : execution.getSteps()) {
+                    String name = execution.goal + "/" + step.name;
+                    Total total = totals.computeIfAbsent(name, Total::new);
+                    total.add(step);
+                    total.wallNanos += step.wallNanos;
+                    total.count++;
+                }
+            }
+        }
+        List<Total> stepTotals = new ArrayList<>(totals.values());
+        stepTotals.sort(Comparator.comparingLong((Total step) -> step.wallNanos).reversed());
+        return stepTotals;
+    }
+
+    private static void logSummary(Log log, MavenExecutionRequest request, File summaryFile) {
+        List<Total> modules;
+        List<Total> steps;
+        synchronized (BUILDS) {
+            Map<String, List<BuildMetrics>> buildExecutions = BUILDS.get(request);
+            if (buildExecutions == null) {
+                return;
+            }
+            modules = summarizeModules(buildExecutions);
+            steps = summarizeSteps(buildExecutions);
+        }
+        log.info("Carbon p2 build metrics summary (" + summaryFile.getAbsolutePath() + ")");
+        log.info("Slowest modules:");
+        for (Total module : modules.subList(0, Math.min(SUMMARY_LOG_LIMIT, modules.size()))) {
+            log.info(String.format("  %8d ms  (forked %8d ms)  %s", toMillis(module.wallNanos),
+                    toMillis(module.forkedProcessNanos), module.name));
+        }
+        log.info("Slowest steps:");
+        for (Total step : steps.subList(0, Math.min(SUMMARY_LOG_LIMIT, steps.size()))) {
+            log.info(String.format("  %8d ms  (forked %8d ms)  %s x%d", toMillis(step.wallNanos),
+                    toMillis(step.forkedProcessNanos), step.name, step.count));
+        }
+    }
+
+    private List<Step> getSteps() {
+        synchronized (steps) {
+            return new ArrayList<>(steps);
+        }
+    }
+
+    private static String toModuleReport(String projectId, List<BuildMetrics> executions) {
+        StringBuilder json = new StringBuilder("{\n  \"project\": ").append(quote(projectId))
+                .append(",\n  \"executions\": [");
+        for (int i = 0; i < executions.size(); i++) {
+            BuildMetrics execution = executions.get(i);
+            json.append(i == 0 ? "\n" : ",\n").append("    {\"goal\": ").append(quote(execution.goal))
+                    .append(", \"wallMillis\": ").append(toMillis(execution.wallNanos)).append(", \"steps\": [");
+            List<Step> executionSteps = execution.getSteps();
+            for (int j = 0; j < executionSteps.size(); j++) {
+                Step step = executionSteps.get(j);
+                json.append(j == 0 ? "\n" : ",\n").append("      {\"name\": ").append(quote(step.name));
+                if (step.parent != null) {
+                    json.append(", \"parent\": ").append(quote(step.parent.name));
+                }
+                appendCounters(json, step.wallNanos, step.forkedProcesses.get(), step.forkedProcessNanos.get(),
+                        step.filesRead.get(), step.bytesRead.get(), step.filesWritten.get(),
+                        step.bytesWritten.get());
+                json.append("}");
+            }
+            json.append(executionSteps.isEmpty() ? "]}" : "\n    ]}");
+        }
+        return json.append(executions.isEmpty() ? "]\n}\n" : "\n  ]\n}\n").toString();
+    }
+
+    private static String toSummary(List<Total> modules, List<Total> steps) {
+        StringBuilder json = new StringBuilder("{\n  \"modules\": [");
+        for (int i = 0; i < modules.size(); i++) {
+            Total module = modules.get(i);
+            json.append(i == 0 ? "\n" : ",\n").append("    {\"project\": ").append(quote(module.name))
+                    .append(", \"executions\": ").append(module.count);
+            appendCounters(json, module.wallNanos, module.forkedProcesses, module.forkedProcessNanos,
+                    module.filesRead, module.bytesRead, module.filesWritten, module.bytesWritten);
+            json.append("}");
+        }
+        json.append(modules.isEmpty() ? "],\n  \"steps\": [" : "\n  ],\n  \"steps\": [");
+        for (int i = 0; i < steps.size(); i++) {
+            Total step = steps.get(i);
+            json.append(i == 0 ? "\n" : ",\n").append("    {\"name\": ").append(quote(step.name))
+                    .append(", \"count\": ").append(step.count);
+            appendCounters(json, step.wallNanos, step.forkedProcesses, step.forkedProcessNanos, step.filesRead,
+                    step.bytesRead, step.filesWritten, step.bytesWritten);
+            json.append("}");
+        }
+        return json.append(steps.isEmpty() ? "]\n}\n" : "\n  ]\n}\n").toString();
+    }
+
+    private static void appendCounters(StringBuilder json, long wallNanos, long forkedProcesses,
+                                       long forkedProcessNanos, long filesRead, long bytesRead, long filesWritten,
+                                       long bytesWritten) {
+        json.append(", \"wallMillis\": ").append(toMillis(wallNanos))
+                .append(", \"forkedProcesses\": ").append(forkedProcesses)
+                .append(", \"forkedProcessMillis\": ").append(toMillis(forkedProcessNanos))
+                .append(", \"filesRead\": ").append(filesRead)
+                .append(", \"bytesRead\": ").append(bytesRead)
+                .append(", \"filesWritten\": ").append(filesWritten)
+                .append(", \"bytesWritten\": ").append(bytesWritten);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : String.valueOf(value).toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Path target = file.toPath();
+        Files.createDirectories(target.getParent());
+        Path tempFile = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try {
+            Files.write(tempFile, content.getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * A step of a goal execution. Closing the step ends it on the thread which opened it.
+     */
+    public class Step implements AutoCloseable {
+        private final String name;
+        private final Step parent;
+        private final long stepStartNanos = System.nanoTime();
+        private volatile long wallNanos;
+        private final AtomicLong forkedProcesses = new AtomicLong();
+        private final AtomicLong forkedProcessNanos = new AtomicLong();
+        private final AtomicLong filesRead = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong filesWritten = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+
+        private Step(String name, Step parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        /**
+         * Accounts the given file, or all the files under the given directory, as read by the step and the steps it is
+         * nested in.
+         *
+         * @param file file or directory, may be {@code null} or not exist
+         */
+        public void read(File file) {
+            if (enabled) {
+                long[] size = measure(file);
+                for (Step step = this; step != null; step = step.parent) {
+                    step.filesRead.addAndGet(size[0]);
+                    step.bytesRead.addAndGet(size[1]);
+                }
+            }
+        }
+
+        /**
+         * Accounts the given file, or all the files under the given directory, as written by the step and the steps it
+         * is nested in.
+         *
+         * @param file file or directory, may be {@code null} or not exist
+         */
+        public void written(File file) {
+            if (enabled) {
+                long[] size = measure(file);
+                for (Step step = this; step != null; step = step.parent) {
+                    step.filesWritten.addAndGet(size[0]);
+                    step.bytesWritten.addAndGet(size[1]);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            wallNanos = System.nanoTime() - stepStartNanos;
+            if (CURRENT_STEP.get() == this) {
+                if (parent == null) {
+                    CURRENT_STEP.remove();
+                } else {
+                    CURRENT_STEP.set(parent);
+                }
+            }
+        }
+
+        private long[] measure(File file) {
+            long[] size = new long[2];
+            if (file == null || !file.exists()) {
+                return size;
+            }
+            if (file.isFile()) {
+                size[0] = 1;
+                size[1] = file.length();
+                return size;
+            }
+            try {
+                Files.walkFileTree(file.toPath(), new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                        size[0]++;
+                        size[1] += attrs.size();
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                // Metrics are best effort, the files measured so far are accounted.
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Execution listener logging the summary of the build when the maven session ends, and passing every event on to
+     * the listener of the build it replaces.
+     */
+    private static class SummaryListener implements ExecutionListener {
+        private final ExecutionListener delegate;
+        private final WeakReference<MavenExecutionRequest> request;
+        private final File summaryFile;
+        private volatile Log log;
+
+        SummaryListener(ExecutionListener delegate, MavenExecutionRequest request, File summaryFile) {
+            this.delegate = delegate;
+            this.request = new WeakReference<>(request);
+            this.summaryFile = summaryFile;
+        }
+
+        @Override
+        public void sessionEnded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.sessionEnded(event);
+            }
+            MavenExecutionRequest executionRequest = request.get();
+            if (executionRequest != null && log != null) {
+                logSummary(log, executionRequest, summaryFile);
+            }
+        }
+
+        @Override
+        public void projectDiscoveryStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectDiscoveryStarted(event);
+            }
+        }
+
+        @Override
+        public void sessionStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.sessionStarted(event);
+            }
+        }
+
+        @Override
+        public void projectSkipped(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectSkipped(event);
+            }
+        }
+
+        @Override
+        public void projectStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectStarted(event);
+            }
+        }
+
+        @Override
+        public void projectSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectSucceeded(event);
+            }
+        }
+
+        @Override
+        public void projectFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectFailed(event);
+            }
+        }
+
+        @Override
+        public void mojoSkipped(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoSkipped(event);
+            }
+        }
+
+        @Override
+        public void mojoStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoStarted(event);
+            }
+        }
+
+        @Override
+        public void mojoSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoSucceeded(event);
+            }
+        }
+
+        @Override
+        public void mojoFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoFailed(event);
+            }
+        }
+
+        @Override
+        public void forkStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkStarted(event);
+            }
+        }
+
+        @Override
+        public void forkSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkSucceeded(event);
+            }
+        }
+
+        @Override
+        public void forkFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkFailed(event);
+            }
+        }
+
+        @Override
+        public void forkedProjectStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkedProjectStarted(event);
+            }
+        }
+
+        @Override
+        public void forkedProjectSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkedProjectSucceeded(event);
+            }
+        }
+
+        @Override
+        public void forkedProjectFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkedProjectFailed(event);
+            }
+        }
+    }
+
+    /**
+     * Counters summed over the executions of a module or the occurrences of a step.
+     */
+    private static class Total {
+        private final String name;
+        private long count;
+        private long wallNanos;
+        private long forkedProcesses;
+        private long forkedProcessNanos;
+        private long filesRead;
+        private long bytesRead;
+        private long filesWritten;
+        private long bytesWritten;
+
+        Total(String name) {
+            this.name = name;
+        }
+
+        void add(Step step) {
+            forkedProcesses += step.forkedProcesses.get();
+            forkedProcessNanos += step.forkedProcessNanos.get();
+            filesRead += step.filesRead.get();
+            bytesRead += step.bytesRead.get();
+            filesWritten += step.filesWritten.get();
+            bytesWritten += step.bytesWritten.get();
+        }
+    }
+}
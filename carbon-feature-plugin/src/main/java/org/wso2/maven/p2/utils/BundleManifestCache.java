@@ -0,0 +1,193 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Persistent cache of the OSGi headers read from the manifests of jar files in the local maven repository. This saves
+ * opening every dependency jar on every build just to read its Bundle-SymbolicName and Bundle-Version.
+ * <p>
+ * An entry is keyed by the absolute path of the jar and is only used while the size and the last modified time of the
+ * jar are the same as when the entry was recorded. Jars which are not OSGi bundles are cached as well.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class BundleManifestCache {
+
+    private static final String CACHE_FILE_NAME = "bundle-manifests.properties";
+    private static final String SEPARATOR = "|";
+    private static final Pattern SEPARATOR_PATTERN = Pattern.compile(Pattern.quote(SEPARATOR));
+
+    private static final Map<Path, BundleManifestCache> CACHES = new ConcurrentHashMap<>();
+
+    private final Path cacheFile;
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+    private volatile boolean modified;
+
+    private BundleManifestCache(Path cacheFile) {
+        this.cacheFile = cacheFile;
+        entries.putAll(load(cacheFile));
+    }
+
+    /**
+     * Returns the cache stored in the given local repository. The cache is loaded once per build and shared between
+     * all the mojo executions using the same local repository.
+     *
+     * @param localRepository local repository representation
+     * @return {@link BundleManifestCache} or {@code null} if the local repository is not on the file system
+     */
+    public static BundleManifestCache getInstance(ArtifactRepository localRepository) {
+        if (localRepository == null || localRepository.getBasedir() == null) {
+            return null;
+        }
+        Path cacheFile = Paths.get(localRepository.getBasedir(), ".cache", "carbon-feature-plugin", CACHE_FILE_NAME)
+                .toAbsolutePath();
+        return CACHES.computeIfAbsent(cacheFile, BundleManifestCache::new);
+    }
+
+    /**
+     * Returns the cached OSGi headers of the given jar.
+     *
+     * @param jar jar file in the local repository
+     * @return {@link Headers} or {@code null} if the jar is not cached or has changed since it was cached
+     */
+    public Headers get(File jar) {
+        String value = entries.get(jar.getAbsolutePath());
+        if (value == null) {
+            return null;
+        }
+        String[] fields = SEPARATOR_PATTERN.split(value, -1);
+        if (fields.length != 4 || !fields[0].equals(Long.toString(jar.length()))
+                || !fields[1].equals(Long.toString(jar.lastModified()))) {
+            return null;
+        }
+        return new Headers(fields[2].isEmpty() ? null : fields[2], fields[3].isEmpty() ? null : fields[3]);
+    }
+
+    /**
+     * Records the OSGi headers of the given jar. Pass {@code null} headers for a jar which is not an OSGi bundle.
+     *
+     * @param jar                jar file in the local repository
+     * @param bundleSymbolicName symbolic name of the bundle, without any directives
+     * @param bundleVersion      version of the bundle
+     */
+    public void put(File jar, String bundleSymbolicName, String bundleVersion) {
+        entries.put(jar.getAbsolutePath(), jar.length() + SEPARATOR + jar.lastModified() + SEPARATOR
+                + (bundleSymbolicName == null ? "" : bundleSymbolicName) + SEPARATOR
+                + (bundleVersion == null ? "" : bundleVersion));
+        modified = true;
+    }
+
+    /**
+     * Writes the cache back to the local repository if it was modified. Entries written by other builds in the
+     * meantime are merged in, and the file is replaced atomically so that concurrent builds never read a partly
+     * written cache.
+     *
+     * @throws IOException throws when unable to write the cache file
+     */
+    public synchronized void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        modified = false;
+        Map<String, String> onDisk = load(cacheFile);
+        onDisk.forEach(entries::putIfAbsent);
+
+        Properties properties = new Properties();
+        properties.putAll(entries);
+        Files.createDirectories(cacheFile.getParent());
+        Path tempFile = Files.createTempFile(cacheFile.getParent(), CACHE_FILE_NAME, ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                properties.store(outputStream, null);
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static Map<String, String> load(Path cacheFile) {
+        Map<String, String> loaded = new ConcurrentHashMap<>();
+        if (!Files.isRegularFile(cacheFile)) {
+            return loaded;
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(cacheFile)) {
+            properties.load(inputStream);
+        } catch (IOException | IllegalArgumentException e) {
+            // A missing or corrupted cache only means the manifests are read from the jars again.
+            return loaded;
+        }
+        properties.stringPropertyNames().forEach(key -> loaded.put(key, properties.getProperty(key)));
+        return loaded;
+    }
+
+    /**
+     * OSGi headers read from the manifest of a jar.
+     */
+    public static class Headers {
+        private final String bundleSymbolicName;
+        private final String bundleVersion;
+
+        Headers(String bundleSymbolicName, String bundleVersion) {
+            this.bundleSymbolicName = bundleSymbolicName;
+            this.bundleVersion = bundleVersion;
+        }
+
+        /**
+         * Returns whether the jar is an OSGi bundle.
+         *
+         * @return {@code boolean}
+         */
+        public boolean isBundle() {
+            return bundleSymbolicName != null && bundleVersion != null;
+        }
+
+        /**
+         * Returns the Bundle-SymbolicName without any directives.
+         *
+         * @return {@code String}
+         */
+        public String getBundleSymbolicName() {
+            return bundleSymbolicName;
+        }
+
+        /**
+         * Returns the Bundle-Version.
+         *
+         * @return {@code String}
+         */
+        public String getBundleVersion() {
+            return bundleVersion;
+        }
+    }
+}
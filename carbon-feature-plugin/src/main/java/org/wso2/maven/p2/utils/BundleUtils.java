@@ -16,6 +16,8 @@
 
 package org.wso2.maven.p2.utils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,14 +30,140 @@ public class BundleUtils {
 
     private static final Pattern OSGI_VERSION_PATTERN = Pattern.compile("[0-9]+\\.[0-9]+\\.[0-9]+(\\.[0-9A-Za-z_-]+)?");
     private static final Pattern ONLY_NUMBERS = Pattern.compile("[0-9]+");
+    private static final Pattern DATED_SNAPSHOT_PATTERN =
+            Pattern.compile("([0-9])(\\.([0-9]))?(\\.([0-9]))?\\-([0-9]{8}\\.[0-9]{6}\\-[0-9]*)");
+    private static final Pattern DOTS_IN_QUALIFIER_PATTERN =
+            Pattern.compile("([0-9])(\\.[0-9])?\\.([0-9A-Za-z_-]+)\\.([0-9A-Za-z_-]+)");
+    private static final Pattern NEED_TO_FILL_ZEROS_PATTERN =
+            Pattern.compile("([0-9])(\\.([0-9]))?(\\.([0-9A-Za-z_-]+))?");
+
+    /**
+     * Maximum number of versions remembered by {@link #getOSGIVersion(String)}. The memo is cleared when it is full,
+     * which only happens for builds referring to an unusually large number of distinct versions.
+     */
+    private static final int OSGI_VERSION_CACHE_SIZE = 4096;
+    private static final Map<String, String> OSGI_VERSION_CACHE = new ConcurrentHashMap<>();
 
     /**
      * Returns the OSGI version for the given artifact version.
+     * <p>
+     * Conversions are remembered, as the same versions are converted over and over while generating features and
+     * repositories. Versions which are already OSGi compliant, or become compliant once their dashes are replaced,
+     * are converted in a single pass without regular expressions.
+     * </p>
      *
      * @param version artifact version
      * @return OSGI version
      */
     public static String getOSGIVersion(String version) {
+        String osgiVersion = OSGI_VERSION_CACHE.get(version);
+        if (osgiVersion == null) {
+            osgiVersion = convertToOSGIVersion(version);
+            if (OSGI_VERSION_CACHE.size() >= OSGI_VERSION_CACHE_SIZE) {
+                OSGI_VERSION_CACHE.clear();
+            }
+            OSGI_VERSION_CACHE.put(version, osgiVersion);
+        }
+        return osgiVersion;
+    }
+
+    private static String convertToOSGIVersion(String version) {
+        /* if it's already OSGi compliant don't touch it */
+        if (isOSGIVersion(version)) {
+            return version;
+        }
+        if (version.indexOf('-') >= 0 && !isDatedSnapshot(version)) {
+            /* transform first - to . and others to _ */
+            char[] chars = version.toCharArray();
+            boolean first = true;
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] == '-') {
+                    chars[i] = first ? '.' : '_';
+                    first = false;
+                }
+            }
+            String osgiVersion = new String(chars);
+            if (isOSGIVersion(osgiVersion)) {
+                return osgiVersion;
+            }
+        }
+        return convertToOSGIVersionByRules(version);
+    }
+
+    /**
+     * Returns whether the given version matches {@code [0-9]+\.[0-9]+\.[0-9]+(\.[0-9A-Za-z_-]+)?}.
+     *
+     * @param version version
+     * @return {@code boolean}
+     */
+    private static boolean isOSGIVersion(String version) {
+        int length = version.length();
+        int index = 0;
+        for (int segment = 0; segment < 3; segment++) {
+            int start = index;
+            while (index < length && isDigit(version.charAt(index))) {
+                index++;
+            }
+            if (index == start) {
+                return false;
+            }
+            if (segment < 2) {
+                if (index == length || version.charAt(index) != '.') {
+                    return false;
+                }
+                index++;
+            }
+        }
+        if (index == length) {
+            return true;
+        }
+        if (version.charAt(index) != '.' || index == length - 1) {
+            return false;
+        }
+        for (index++; index < length; index++) {
+            char c = version.charAt(index);
+            if (!isDigit(c) && !(c >= 'A' && c <= 'Z') && !(c >= 'a' && c <= 'z') && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the given version matches {@code [0-9](\.[0-9])?(\.[0-9])?-[0-9]{8}\.[0-9]{6}-[0-9]*}, a
+     * dated snapshot version with only major or major and minor.
+     *
+     * @param version version
+     * @return {@code boolean}
+     */
+    private static boolean isDatedSnapshot(String version) {
+        int dash = version.indexOf('-');
+        if (dash != 1 && dash != 3 && dash != 5) {
+            return false;
+        }
+        for (int i = 0; i < dash; i++) {
+            if ((i % 2 == 0) != isDigit(version.charAt(i)) || (i % 2 == 1 && version.charAt(i) != '.')) {
+                return false;
+            }
+        }
+        int length = version.length();
+        int index = dash + 1;
+        if (length < index + 16 || version.charAt(index + 8) != '.' || version.charAt(index + 15) != '-') {
+            return false;
+        }
+        for (int i = index; i < length; i++) {
+            if (i != index + 8 && i != index + 15 && !isDigit(version.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static String convertToOSGIVersionByRules(String version) {
         // This method is taken from org.apache.maven.shared.osgi.DefaultMaven2OsgiConverter to get the OSGI version
         // from a give version artifact version.
         String osgiVersion;
@@ -58,9 +186,7 @@ public class BundleUtils {
         osgiVersion = version;
 
         /* check for dated snapshot versions with only major or major and minor */
-        Pattern datedSnapshotPattern =
-                Pattern.compile("([0-9])(\\.([0-9]))?(\\.([0-9]))?\\-([0-9]{8}\\.[0-9]{6}\\-[0-9]*)");
-        m = datedSnapshotPattern.matcher(osgiVersion);
+        m = DATED_SNAPSHOT_PATTERN.matcher(osgiVersion);
         if (m.matches()) {
             String major = m.group(1);
             String minor = (m.group(3) != null) ? m.group(3) : "0";
@@ -78,8 +204,7 @@ public class BundleUtils {
         }
 
         /* remove dots in the middle of the qualifier */
-        Pattern dotsInQualifierPattern = Pattern.compile("([0-9])(\\.[0-9])?\\.([0-9A-Za-z_-]+)\\.([0-9A-Za-z_-]+)");
-        m = dotsInQualifierPattern.matcher(osgiVersion);
+        m = DOTS_IN_QUALIFIER_PATTERN.matcher(osgiVersion);
         if (m.matches()) {
             String s1 = m.group(1);
             String s2 = m.group(2);
@@ -103,8 +228,7 @@ public class BundleUtils {
          * 1.1        -> 1.1.0
          */
         //Pattern NEED_TO_FILL_ZEROS = Pattern.compile( "([0-9])(\\.([0-9]))?\\.([0-9A-Za-z_-]+)" );
-        Pattern needToFillZerosPattern = Pattern.compile("([0-9])(\\.([0-9]))?(\\.([0-9A-Za-z_-]+))?");
-        m = needToFillZerosPattern.matcher(osgiVersion);
+        m = NEED_TO_FILL_ZEROS_PATTERN.matcher(osgiVersion);
         if (m.matches()) {
             String major = m.group(1);
             String minor = m.group(3);
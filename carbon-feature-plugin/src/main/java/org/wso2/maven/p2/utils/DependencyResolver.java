@@ -24,10 +24,18 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.repository.RepositorySystem;
 import org.wso2.maven.p2.beans.CarbonArtifact;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
@@ -39,6 +47,11 @@ import java.util.jar.Manifest;
  */
 public class DependencyResolver {
 
+    /**
+     * Upper bound of the threads used to resolve the dependencies of a project.
+     */
+    private static final int MAX_RESOLVER_THREADS = 8;
+
     /**
      * Resolve the given project dependencies into CarbonArtifact objects. Dependencies are categorized into
      * OSGI bundles and Carbon features.
@@ -47,38 +60,164 @@ public class DependencyResolver {
      * @param repositorySystem   RepositorySystem object
      * @param remoteRepositories collection of remote repositories
      * @param localRepository    local repository representation
+     * @param artifactIndex      {@link ArtifactIndex} of the session shared with other executions, may be {@code null}
      * @return Return a {@code List<HashMap<String, CarbonArtifact>>}, 1st item being {@code HashMap<String,
      * CarbonArtifact>} containing osgi bundles specified as dependencies and 2nd item being {@code HashMap<String,
      * CarbonArtifact>} containing carbon features specified as dependencies.
      * @throws IOException throws when unable to retrieve a given maven artifact
      */
     public static List<HashMap<String, CarbonArtifact>> getDependenciesForProject(MavenProject project, RepositorySystem
-            repositorySystem, List<ArtifactRepository> remoteRepositories, ArtifactRepository localRepository)
-            throws IOException {
+            repositorySystem, List<ArtifactRepository> remoteRepositories, ArtifactRepository localRepository,
+            ArtifactIndex artifactIndex) throws IOException {
 
-        List<HashMap<String, CarbonArtifact>> results = new ArrayList<>();
-        HashMap<String, CarbonArtifact> bundles = new HashMap<>();
-        HashMap<String, CarbonArtifact> features = new HashMap<>();
-        results.add(bundles);
-        results.add(features);
         List<Dependency> dependencies = project.getDependencies();
 
         DependencyManagement dependencyManagement = project.getDependencyManagement();
         if (dependencyManagement != null) {
             dependencies.addAll(dependencyManagement.getDependencies());
         }
+        List<CarbonArtifact> carbonArtifacts = toCarbonArtifacts(dependencies);
+        BundleManifestCache manifestCache = BundleManifestCache.getInstance(localRepository);
+        boolean[] resolvedBundles = resolveArtifacts(carbonArtifacts, repositorySystem, remoteRepositories,
+                localRepository, manifestCache, artifactIndex);
+        saveManifestCache(manifestCache);
+
+        boolean[] resolved = new boolean[carbonArtifacts.size()];
+        Arrays.fill(resolved, true);
+        return mergeArtifacts(carbonArtifacts, resolved, resolvedBundles);
+    }
+
+    /**
+     * Resolve only the project dependencies which can match the given bundle and feature keys into CarbonArtifact
+     * objects. Unlike {@link #getDependenciesForProject(MavenProject, RepositorySystem, List, ArtifactRepository,
+     * ArtifactIndex)},
+     * entries of the dependencyManagement section are neither appended into the project dependencies nor resolved
+     * unless they are needed.
+     * <p>
+     * Features are matched on their artifact id and version. The symbolic name of a bundle is only known once its
+     * jar is inspected, so jars declared in the dependencies section and managed jars whose version appears in one of
+     * the bundle keys are resolved first. The rest of the managed jars are resolved only if some bundle key is still
+     * not found after that.
+     * </p>
+     *
+     * @param project            MavenProject  Maven Project
+     * @param repositorySystem   RepositorySystem object
+     * @param remoteRepositories collection of remote repositories
+     * @param localRepository    local repository representation
+     * @param bundleKeys         {@code symbolicName_version} keys of the bundles which will be looked up
+     * @param featureKeys        {@code artifactId_version} keys of the features which will be looked up
+     * @param artifactIndex      {@link ArtifactIndex} of the session shared with other executions, may be {@code null}
+     * @return Return a {@code List<HashMap<String, CarbonArtifact>>} in the same form as
+     * {@link #getDependenciesForProject(MavenProject, RepositorySystem, List, ArtifactRepository,
+     * ArtifactIndex)}
+     * @throws IOException throws when unable to retrieve a given maven artifact
+     */
+    public static List<HashMap<String, CarbonArtifact>> getReferencedDependenciesForProject(MavenProject project,
+            RepositorySystem repositorySystem, List<ArtifactRepository> remoteRepositories,
+            ArtifactRepository localRepository, Set<String> bundleKeys, Set<String> featureKeys,
+            ArtifactIndex artifactIndex) throws IOException {
+
+        List<CarbonArtifact> carbonArtifacts = toCarbonArtifacts(project.getDependencies());
+        int declaredCount = carbonArtifacts.size();
+        DependencyManagement dependencyManagement = project.getDependencyManagement();
+        if (dependencyManagement != null) {
+            carbonArtifacts.addAll(toCarbonArtifacts(dependencyManagement.getDependencies()));
+        }
+
+        // A part of a bundle key following an underscore may be the version of the bundle.
+        Set<String> bundleVersions = new HashSet<>();
+        for (String bundleKey : bundleKeys) {
+            for (int i = bundleKey.indexOf('_'); i >= 0; i = bundleKey.indexOf('_', i + 1)) {
+                bundleVersions.add(bundleKey.substring(i + 1));
+            }
+        }
+
+        boolean[] selected = new boolean[carbonArtifacts.size()];
+        List<CarbonArtifact> toResolve = new ArrayList<>();
+        for (int i = 0; i < carbonArtifacts.size(); i++) {
+            CarbonArtifact carbonArtifact = carbonArtifacts.get(i);
+            if (carbonArtifact.getType().equals("jar")) {
+                selected[i] = i < declaredCount || bundleVersions.contains(carbonArtifact.getVersion())
+                        || bundleVersions.contains(BundleUtils.getOSGIVersion(carbonArtifact.getVersion()));
+            } else {
+                selected[i] = featureKeys.contains(carbonArtifact.getArtifactId() + "_"
+                        + carbonArtifact.getVersion());
+            }
+            if (selected[i]) {
+                toResolve.add(carbonArtifact);
+            }
+        }
+
+        BundleManifestCache manifestCache = BundleManifestCache.getInstance(localRepository);
+        boolean[] resolvedBundles = new boolean[carbonArtifacts.size()];
+        setResolvedBundles(resolvedBundles, selected, resolveArtifacts(toResolve, repositorySystem,
+                remoteRepositories, localRepository, manifestCache, artifactIndex));
+        List<HashMap<String, CarbonArtifact>> results = mergeArtifacts(carbonArtifacts, selected, resolvedBundles);
+
+        if (!results.get(0).keySet().containsAll(bundleKeys)) {
+            boolean[] remaining = new boolean[carbonArtifacts.size()];
+            toResolve.clear();
+            for (int i = declaredCount; i < carbonArtifacts.size(); i++) {
+                if (!selected[i] && carbonArtifacts.get(i).getType().equals("jar")) {
+                    remaining[i] = true;
+                    selected[i] = true;
+                    toResolve.add(carbonArtifacts.get(i));
+                }
+            }
+            setResolvedBundles(resolvedBundles, remaining, resolveArtifacts(toResolve, repositorySystem,
+                    remoteRepositories, localRepository, manifestCache, artifactIndex));
+            results = mergeArtifacts(carbonArtifacts, selected, resolvedBundles);
+        }
+        saveManifestCache(manifestCache);
+        return results;
+    }
+
+    private static List<CarbonArtifact> toCarbonArtifacts(List<Dependency> dependencies) {
+        List<CarbonArtifact> carbonArtifacts = new ArrayList<>(dependencies.size());
         for (Dependency dependency : dependencies) {
             CarbonArtifact carbonArtifact = new CarbonArtifact();
             carbonArtifact.setGroupId(dependency.getGroupId());
             carbonArtifact.setArtifactId(dependency.getArtifactId());
             carbonArtifact.setVersion(dependency.getVersion());
             carbonArtifact.setType(dependency.getType());
-            Artifact mavenArtifact = MavenUtils.getResolvedArtifact(carbonArtifact, repositorySystem,
-                    remoteRepositories, localRepository);
-            carbonArtifact.setArtifact(mavenArtifact);
+            carbonArtifacts.add(carbonArtifact);
+        }
+        return carbonArtifacts;
+    }
+
+    private static void setResolvedBundles(boolean[] resolvedBundles, boolean[] resolved, boolean[] results) {
+        for (int i = 0, j = 0; i < resolved.length; i++) {
+            if (resolved[i]) {
+                resolvedBundles[i] = results[j++];
+            }
+        }
+    }
+
+    /**
+     * Categorize the resolved CarbonArtifacts into OSGI bundles and Carbon features. Artifacts are merged in
+     * declaration order so that a later dependency with the same key wins, as it always has.
+     *
+     * @param carbonArtifacts CarbonArtifacts in declaration order
+     * @param resolved        whether each CarbonArtifact has been resolved
+     * @param resolvedBundles whether each CarbonArtifact has been resolved as an OSGi bundle
+     * @return bundles and features in the form returned by getDependenciesForProject
+     */
+    private static List<HashMap<String, CarbonArtifact>> mergeArtifacts(List<CarbonArtifact> carbonArtifacts,
+                                                                        boolean[] resolved,
+                                                                        boolean[] resolvedBundles) {
+        List<HashMap<String, CarbonArtifact>> results = new ArrayList<>();
+        HashMap<String, CarbonArtifact> bundles = new HashMap<>();
+        HashMap<String, CarbonArtifact> features = new HashMap<>();
+        results.add(bundles);
+        results.add(features);
+        for (int i = 0; i < carbonArtifacts.size(); i++) {
+            if (!resolved[i]) {
+                continue;
+            }
+            CarbonArtifact carbonArtifact = carbonArtifacts.get(i);
             String key;
             if (carbonArtifact.getType().equals("jar")) {
-                if (resolveOSGIInfo(carbonArtifact)) {
+                if (resolvedBundles[i]) {
                     key = carbonArtifact.getSymbolicName() + "_" + carbonArtifact.getBundleVersion();
                     bundles.put(key, carbonArtifact);
                 }
@@ -90,35 +229,153 @@ public class DependencyResolver {
         return results;
     }
 
+    private static void saveManifestCache(BundleManifestCache manifestCache) {
+        if (manifestCache != null) {
+            try {
+                manifestCache.save();
+            } catch (IOException ignored) {
+                // The cache only saves reading the manifests again, so failing to persist it must not fail the build.
+            }
+        }
+    }
+
+    /**
+     * Resolves the maven artifacts of the given CarbonArtifacts and the OSGi information of the jar typed ones. The
+     * artifacts are resolved on a bounded pool of threads, since with a cold local repository most of the time is
+     * spent waiting on remote repositories.
+     *
+     * @param carbonArtifacts    CarbonArtifacts to resolve
+     * @param repositorySystem   RepositorySystem object
+     * @param remoteRepositories collection of remote repositories
+     * @param localRepository    local repository representation
+     * @param manifestCache      {@link BundleManifestCache} consulted before opening a jar, may be {@code null}
+     * @param artifactIndex      {@link ArtifactIndex} consulted before resolving an artifact, may be {@code null}
+     * @return {@code boolean[]} indicating, for each given CarbonArtifact, whether it was resolved as an OSGi bundle
+     * @throws IOException throws when unable to retrieve a given maven artifact
+     */
+    private static boolean[] resolveArtifacts(List<CarbonArtifact> carbonArtifacts, RepositorySystem repositorySystem,
+                                              List<ArtifactRepository> remoteRepositories,
+                                              ArtifactRepository localRepository, BundleManifestCache manifestCache,
+                                              ArtifactIndex artifactIndex) throws IOException {
+        boolean[] resolvedBundles = new boolean[carbonArtifacts.size()];
+        int threadCount = Math.min(MAX_RESOLVER_THREADS, carbonArtifacts.size());
+        if (threadCount <= 1) {
+            for (int i = 0; i < carbonArtifacts.size(); i++) {
+                resolvedBundles[i] = resolveArtifact(carbonArtifacts.get(i), repositorySystem, remoteRepositories,
+                        localRepository, manifestCache, artifactIndex);
+            }
+            return resolvedBundles;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(carbonArtifacts.size());
+            for (CarbonArtifact carbonArtifact : carbonArtifacts) {
+                results.add(executor.submit(() -> resolveArtifact(carbonArtifact, repositorySystem,
+                        remoteRepositories, localRepository, manifestCache, artifactIndex)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                resolvedBundles[i] = results.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resolving maven artifacts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to resolve maven artifacts", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return resolvedBundles;
+    }
+
+    private static boolean resolveArtifact(CarbonArtifact carbonArtifact, RepositorySystem repositorySystem,
+                                           List<ArtifactRepository> remoteRepositories,
+                                           ArtifactRepository localRepository, BundleManifestCache manifestCache,
+                                           ArtifactIndex artifactIndex) throws IOException {
+        if (artifactIndex == null) {
+            return resolveArtifact(carbonArtifact, repositorySystem, remoteRepositories, localRepository,
+                    manifestCache);
+        }
+        // The index is shared between modules, so the artifact is resolved on a copy rather than on the
+        // CarbonArtifact of this module.
+        ArtifactIndex.Entry entry = artifactIndex.get(carbonArtifact, () -> {
+            CarbonArtifact copy = new CarbonArtifact();
+            carbonArtifact.copyTo(copy);
+            boolean bundle = resolveArtifact(copy, repositorySystem, remoteRepositories, localRepository,
+                    manifestCache);
+            return new ArtifactIndex.Entry(copy.getArtifact(), bundle
+                    ? new BundleManifestCache.Headers(copy.getSymbolicName(), copy.getBundleVersion()) : null);
+        });
+        carbonArtifact.setArtifact(entry.getArtifact());
+        BundleManifestCache.Headers headers = entry.getHeaders();
+        if (headers == null) {
+            return false;
+        }
+        carbonArtifact.setSymbolicName(headers.getBundleSymbolicName());
+        carbonArtifact.setBundleVersion(headers.getBundleVersion());
+        return true;
+    }
+
+    private static boolean resolveArtifact(CarbonArtifact carbonArtifact, RepositorySystem repositorySystem,
+                                           List<ArtifactRepository> remoteRepositories,
+                                           ArtifactRepository localRepository, BundleManifestCache manifestCache)
+            throws IOException {
+        Artifact mavenArtifact = MavenUtils.getResolvedArtifact(carbonArtifact, repositorySystem,
+                remoteRepositories, localRepository);
+        carbonArtifact.setArtifact(mavenArtifact);
+        return carbonArtifact.getType().equals("jar") && resolveOSGIInfo(carbonArtifact, manifestCache);
+    }
+
     /**
      * Resolves OSGi information for a given {@link CarbonArtifact} and populate OSGi information.
      *
-     * @param artifact {@link CarbonArtifact}
+     * @param artifact      {@link CarbonArtifact}
+     * @param manifestCache {@link BundleManifestCache} consulted before opening the jar, may be {@code null}
      * @return {@code boolean} indicating whether the OSGi information is successfully resolved or not
      * @throws IOException if unable to retrieve the maven artifact represented by the given {@link CarbonArtifact}
      */
-    private static boolean resolveOSGIInfo(CarbonArtifact artifact) throws IOException {
+    private static boolean resolveOSGIInfo(CarbonArtifact artifact, BundleManifestCache manifestCache)
+            throws IOException {
         String bundleVersionStr = "Bundle-Version";
         String bundleSymbolicNameStr = "Bundle-SymbolicName";
 
-        if (!artifact.getArtifact().getFile().exists()) {
+        File file = artifact.getArtifact().getFile();
+        if (!file.exists()) {
             return false;
         }
-        try (JarFile jarFile = new JarFile(artifact.getArtifact().getFile())) {
+        BundleManifestCache.Headers cached = manifestCache == null ? null : manifestCache.get(file);
+        if (cached != null) {
+            if (!cached.isBundle()) {
+                return false;
+            }
+            artifact.setSymbolicName(cached.getBundleSymbolicName());
+            artifact.setBundleVersion(cached.getBundleVersion());
+            return true;
+        }
+        try (JarFile jarFile = new JarFile(file)) {
 
             Manifest manifest = jarFile.getManifest();
-            if (manifest == null) {
-                return false;
+            String bundleSymbolicName = null;
+            String bundleVersion = null;
+            if (manifest != null) {
+                bundleSymbolicName = manifest.getMainAttributes().getValue(bundleSymbolicNameStr);
+                bundleVersion = manifest.getMainAttributes().getValue(bundleVersionStr);
             }
-            String bundleSymbolicName = manifest.getMainAttributes().getValue(bundleSymbolicNameStr);
-            String bundleVersion = manifest.getMainAttributes().getValue(bundleVersionStr);
             //Returns false if the considered .jar is not an OSGI bundle
             if (bundleSymbolicName == null || bundleVersion == null) {
+                if (manifestCache != null) {
+                    manifestCache.put(file, null, null);
+                }
                 return false;
             }
             String[] split = bundleSymbolicName.split(";");
             artifact.setSymbolicName(split[0]);
             artifact.setBundleVersion(bundleVersion);
+            if (manifestCache != null) {
+                manifestCache.put(file, split[0], bundleVersion);
+            }
             return true;
         } catch (IOException e) {
             throw new IOException("Unable to retrieve maven artifact: " + artifact.getGroupId() +
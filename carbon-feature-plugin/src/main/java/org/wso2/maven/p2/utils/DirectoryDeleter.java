@@ -0,0 +1,191 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes directory trees.
+ * <p>
+ * The files of a tree can be deleted in parallel on a pool of worker threads, which pays off for the large temporary
+ * trees the goals leave behind. The deletion of a tree can also be deferred: the tree is renamed to a sibling trash
+ * directory right away, which frees its location, and deleted by a background thread while the build moves on.
+ * Deferred deletions still running when the build ends are waited for before the JVM exits.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class DirectoryDeleter {
+
+    private static final String TRASH_SUFFIX = ".trash-";
+
+    /**
+     * Trees with fewer files than this are deleted on the calling thread.
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private static final ExecutorService BACKGROUND_DELETER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "carbon-p2-directory-deleter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            BACKGROUND_DELETER.shutdown();
+            try {
+                BACKGROUND_DELETER.awaitTermination(10, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "carbon-p2-directory-deleter-shutdown"));
+    }
+
+    /**
+     * Prevent instantiating the utility class.
+     */
+    private DirectoryDeleter() {
+    }
+
+    /**
+     * Deletes the given directory tree, using one worker thread per available processor. Symbolic links are deleted
+     * rather than followed. Nothing is done if the directory does not exist.
+     *
+     * @param directory directory to be deleted
+     * @throws IOException throws when unable to delete a file or a directory of the tree
+     */
+    public static void delete(Path directory) throws IOException {
+        delete(directory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Deletes the given directory tree using the given number of worker threads. Symbolic links are deleted rather
+     * than followed. Nothing is done if the directory does not exist.
+     *
+     * @param directory   directory to be deleted
+     * @param threadCount number of worker threads, 1 to delete the tree on the calling thread
+     * @throws IOException throws when unable to delete a file or a directory of the tree
+     */
+    public static void delete(Path directory, int threadCount) throws IOException {
+        if (!Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        List<Path> directories = new ArrayList<>();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                directories.add(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (threadCount <= 1 || files.size() < PARALLEL_THRESHOLD) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } else {
+            deleteInParallel(files, threadCount);
+        }
+        // Directories are listed after their children, so each one is empty by the time it is deleted.
+        for (Path dir : directories) {
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * Moves the given directory tree out of the way and deletes it in the background. If the directory cannot be
+     * renamed, it is deleted on the calling thread instead. Nothing is done if the directory does not exist.
+     *
+     * @param directory directory to be deleted
+     * @param log       Logger to log any failure of the background deletion
+     * @throws IOException throws when the directory cannot be renamed and unable to delete it in place
+     */
+    public static void deleteLater(Path directory, Log log) throws IOException {
+        if (!Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        Path trash = directory.resolveSibling(directory.getFileName() + TRASH_SUFFIX + System.nanoTime());
+        try {
+            Files.move(directory, trash, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            delete(directory);
+            return;
+        }
+        BACKGROUND_DELETER.execute(() -> {
+            try {
+                delete(trash);
+            } catch (IOException e) {
+                log.warn("Unable to delete " + trash, e);
+            }
+        });
+    }
+
+    private static void deleteInParallel(List<Path> files, int threadCount) throws IOException {
+        int batchCount = threadCount * 4;
+        int batchSize = (files.size() + batchCount - 1) / batchCount;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Void>> results = new ArrayList<>(batchCount);
+            for (int start = 0; start < files.size(); start += batchSize) {
+                List<Path> batch = files.subList(start, Math.min(files.size(), start + batchSize));
+                results.add(executor.submit(() -> {
+                    for (Path file : batch) {
+                        Files.deleteIfExists(file);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while deleting files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error occurred while deleting files", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Copies files and directories using {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+ * so that the data does not pass through a heap buffer.
+ * <p>
+ * When the caller only reads the copy and never modifies it in place, the copy can be replaced by a hard link to the
+ * source. Linking is attempted first and silently falls back to a copy when the source and the destination are on
+ * different file systems or the file system does not support links. An existing destination file is always removed
+ * before it is copied or linked to, never written through, so that a hard link created earlier never carries a write
+ * back to the file it links to.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class FileCopier {
+
+    /**
+     * Directory trees with fewer files than this are copied on the calling thread.
+     */
+    private static final int PARALLEL_COPY_THRESHOLD = 16;
+
+    private static final int MAX_COPY_THREADS = 8;
+
+    /**
+     * Prevent instantiating the utility class.
+     */
+    private FileCopier() {
+    }
+
+    /**
+     * Copies src file to dst file, replacing dst if it exists. Parent directories of dst are created if needed.
+     *
+     * @param src       source file
+     * @param dst       destination file
+     * @param allowLink whether dst may be created as a hard link to src
+     * @throws IOException throws when fail to copy the given file
+     */
+    public static void copyFile(Path src, Path dst, boolean allowLink) throws IOException {
+        Path parent = dst.getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            Files.createDirectories(parent);
+        }
+        if (allowLink && link(src, dst)) {
+            return;
+        }
+        transfer(src, dst);
+    }
+
+    /**
+     * Copies all files under srcDir to dstDir. If dstDir does not exist, it will be created. The directory structure
+     * is created up front and the files are then copied on a bounded pool of threads.
+     *
+     * @param srcDir    source directory
+     * @param dstDir    destination directory
+     * @param allowLink whether the copied files may be created as hard links to the source files
+     * @throws IOException throws when fail to create the directory structure or copy a file
+     */
+    public static void copyDirectory(Path srcDir, Path dstDir, boolean allowLink) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(srcDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                        Files.createDirectories(dstDir.resolve(srcDir.relativize(dir).toString()));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        files.add(file);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+
+        if (files.size() < PARALLEL_COPY_THRESHOLD) {
+            for (Path file : files) {
+                copyToDirectory(srcDir, dstDir, file, allowLink);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_COPY_THREADS,
+                Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<Void>> results = new ArrayList<>(files.size());
+            for (Path file : files) {
+                results.add(executor.submit(() -> {
+                    copyToDirectory(srcDir, dstDir, file, allowLink);
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while copying " + srcDir, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to copy " + srcDir, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void copyToDirectory(Path srcDir, Path dstDir, Path file, boolean allowLink) throws IOException {
+        Path target = dstDir.resolve(srcDir.relativize(file).toString());
+        if (allowLink && link(file, target)) {
+            return;
+        }
+        transfer(file, target);
+    }
+
+    /**
+     * Try to create dst as a hard link to src.
+     *
+     * @param src source file
+     * @param dst destination file
+     * @return {@code true} if the link was created, {@code false} if a copy is needed instead
+     * @throws IOException throws when fail to remove an existing dst file
+     */
+    private static boolean link(Path src, Path dst) throws IOException {
+        try {
+            Files.deleteIfExists(dst);
+            Files.createLink(dst, src.toRealPath());
+            return true;
+        } catch (UnsupportedOperationException | FileSystemException | SecurityException e) {
+            return false;
+        }
+    }
+
+    private static void transfer(Path src, Path dst) throws IOException {
+        // dst may be a hard link to a file in the local repository, so it is replaced rather than truncated.
+        Files.deleteIfExists(dst);
+        try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dst, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, size - position, out);
+                if (transferred <= 0) {
+                    throw new IOException("Unable to copy " + src + " to " + dst + ": no progress at byte " + position
+                            + " of " + size);
+                }
+                position += transferred;
+            }
+        }
+    }
+}
@@ -17,19 +17,24 @@ package org.wso2.maven.p2.utils;
 
 import org.apache.maven.plugin.logging.Log;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Util class which handle file manipulation operations.
@@ -37,7 +42,7 @@ import java.util.zip.ZipOutputStream;
  * @since 2.0.0
  */
 public class FileManagementUtil {
-    private static final int BUFFER = 2048;
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
 
 
     /**
@@ -74,116 +79,114 @@ public class FileManagementUtil {
     }
 
     /**
-     * Zip a give folder to a give output zip file.
+     * Zip a give folder to a give output zip file. Entries are compressed in parallel by a {@link ParallelZipWriter}.
      *
      * @param srcFolder   source folder
      * @param destZipFile path to the output zip file
      * @param log         Logger to log any warnings
      */
     public static void zipFolder(String srcFolder, String destZipFile, Log log) {
-        try (FileOutputStream fileWriter = new FileOutputStream(destZipFile);
-             ZipOutputStream zip = new ZipOutputStream(fileWriter)) {
-            addFolderContentsToZip(srcFolder, zip, log);
+        try {
+            new ParallelZipWriter().zipFolder(Paths.get(srcFolder), Paths.get(destZipFile));
         } catch (IOException e) {
             log.warn("Error occurred while archiving " + srcFolder, e);
         }
-
-
     }
 
     /**
-     * Add a given folder/file into the given {@link ZipOutputStream}.
+     * Zip a give folder together with the content of the given zip archives to a give output zip file. The entries
+     * of the archives are copied into the output zip file without extracting them to disk.
      *
-     * @param path    {@code String} Location inside the ZipOutputStream
-     * @param srcFile {@code String} folder/file to be added into ZipOutputStream
-     * @param zip     {@link ZipOutputStream} zip output stream
-     * @param log     {@link Log}
+     * @param srcFolder      source folder
+     * @param mergedArchives zip archives to be merged into the output zip file
+     * @param destZipFile    path to the output zip file
+     * @param log            Logger to log any warnings
      */
-    private static void addToZip(String path, String srcFile, ZipOutputStream zip, Log log) {
-        File folder = new File(srcFile);
-        if (folder.isDirectory()) {
-            addFolderToZip(path, srcFile, zip, log);
-        } else {
-            // Transfer bytes from in to out
-            byte[] buf = new byte[1024];
-            int len;
-            try (FileInputStream inputStream = new FileInputStream(srcFile)) {
-                if (path.trim().equals("")) {
-                    zip.putNextEntry(new ZipEntry(folder.getName()));
-                } else {
-                    zip.putNextEntry(new ZipEntry(path + "/" + folder.getName()));
-                }
-                while ((len = inputStream.read(buf)) > 0) {
-                    zip.write(buf, 0, len);
-                }
-            } catch (IOException e) {
-                log.warn("Error occurred while archiving " + srcFile, e);
-            }
+    public static void zipFolder(String srcFolder, List<File> mergedArchives, String destZipFile, Log log) {
+        List<Path> archives = new ArrayList<>();
+        mergedArchives.forEach(archive -> archives.add(archive.toPath()));
+        try {
+            new ParallelZipWriter().zipFolder(Paths.get(srcFolder), archives, Paths.get(destZipFile));
+        } catch (IOException e) {
+            log.warn("Error occurred while archiving " + srcFolder, e);
         }
     }
 
     /**
-     * Add root level content of a folder to the given {@link ZipOutputStream}.
+     * Zip a give folder together with the content of the given zip archives into a reproducible zip file, whose
+     * entries are sorted by name and have a fixed modification time. An existing output zip file with the same
+     * content is left untouched, so that its modification time only changes when its content does.
      *
-     * @param srcFolder {@code String} location of the folder to be included into the ZipOutputStream
-     * @param zip       {@link ZipOutputStream}
-     * @param log       {@link Log}
+     * @param srcFolder      source folder
+     * @param mergedArchives zip archives to be merged into the output zip file
+     * @param destZipFile    path to the output zip file
+     * @return {@code boolean} indicating whether the output zip file was written
+     * @throws IOException throws when unable to read the folder or an archive, or write the zip file
      */
-    private static void addFolderContentsToZip(String srcFolder, ZipOutputStream zip, Log log) {
-        File folder = new File(srcFolder);
-        String fileList[] = folder.list();
-        if (fileList != null) {
-            try {
-                int i = 0;
-                while (true) {
-                    if (fileList.length == i) {
-                        break;
-                    }
-                    if (new File(folder, fileList[i]).isDirectory()) {
-                        zip.putNextEntry(new ZipEntry(fileList[i] + "/"));
-                        zip.closeEntry();
-                    }
-                    addToZip("", srcFolder + "/" + fileList[i], zip, log);
-                    i++;
-                }
-            } catch (IOException e) {
-                log.warn("Error occurred while archiving " + srcFolder, e);
+    public static boolean zipFolderIfChanged(String srcFolder, List<File> mergedArchives, String destZipFile)
+            throws IOException {
+        List<Path> archives = new ArrayList<>();
+        mergedArchives.forEach(archive -> archives.add(archive.toPath()));
+        Path destination = Paths.get(destZipFile).toAbsolutePath();
+        Path tempFile = null;
+        try {
+            tempFile = createTempFile(destination.getParent(), destination.getFileName().toString());
+            new ParallelZipWriter(Runtime.getRuntime().availableProcessors(), true)
+                    .zipFolder(Paths.get(srcFolder), archives, tempFile);
+            if (Files.isRegularFile(destination) && hasSameContent(tempFile, destination)) {
+                return false;
+            }
+            Files.move(tempFile, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
             }
         }
     }
 
     /**
-     * Add non root level folders into a given {@link ZipOutputStream}.
-     * @param path {@code String}
-     * @param srcFolder {@code String}
-     * @param zip {@link ZipOutputStream}
-     * @param log {@link Log}
+     * Creates an empty temporary file in the given directory, to be moved over a file of the same directory once it
+     * is written. Unlike {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute[])},
+     * which only lets the owner read the file, the file gets the default permissions of a new file, so that the file
+     * it replaces does not become unreadable to other users.
+     *
+     * @param directory directory to create the file in
+     * @param prefix    prefix of the file name
+     * @return path of the created file
+     * @throws IOException throws when unable to create the file
      */
-    private static void addFolderToZip(String path, String srcFolder, ZipOutputStream zip, Log log) {
-        File folder = new File(srcFolder);
-        String fileList[] = folder.list();
-        if (fileList != null) {
+    public static Path createTempFile(Path directory, String prefix) throws IOException {
+        while (true) {
+            Path tempFile = directory.resolve(prefix + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), Character.MAX_RADIX) + ".tmp");
             try {
-                int i = 0;
-                while (true) {
-                    if (fileList.length == i) {
-                        break;
-                    }
-                    String newPath = folder.getName();
-                    if (!path.equalsIgnoreCase("")) {
-                        newPath = path + "/" + newPath;
-                    }
-                    if (new File(folder, fileList[i]).isDirectory()) {
-                        zip.putNextEntry(new ZipEntry(newPath + "/" + fileList[i] + "/"));
-                        zip.closeEntry();
-                    }
-                    addToZip(newPath, srcFolder + "/" + fileList[i], zip, log);
-                    i++;
-                }
-            } catch (IOException e) {
-                log.warn("Error occurred while archiving " + srcFolder, e);
+                return Files.createFile(tempFile);
+            } catch (FileAlreadyExistsException e) {
+                // Another temporary file has the same name, try another one.
+            }
+        }
+    }
+
+    private static boolean hasSameContent(Path file, Path otherFile) throws IOException {
+        return Files.size(file) == Files.size(otherFile) && Arrays.equals(sha256(file), sha256(otherFile));
+    }
+
+    private static byte[] sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+            int length;
+            while ((length = inputStream.read(buffer)) > 0) {
+                digest.update(buffer, 0, length);
             }
         }
+        return digest.digest();
     }
 
     /**
@@ -193,31 +196,7 @@ public class FileManagementUtil {
      * @throws IOException throws when fail to delete a given directory
      */
     public static void deleteDirectories(File dir) throws IOException {
-        File[] children = dir.listFiles();
-
-        if (children != null) {
-            for (File child : children) {
-                if (child != null) {
-                    String[] childrenOfChild = child.list();
-                    if (childrenOfChild != null) {
-                        if (childrenOfChild.length > 0) {
-                            deleteDirectories(child);
-                        } else {
-                            if (!child.delete()) {
-                                throw new IOException("Failed to delete " + child.getAbsolutePath());
-                            }
-                        }
-                    } else {
-                        if (!child.delete()) {
-                            throw new IOException("Failed to delete " + child.getAbsolutePath());
-                        }
-                    }
-                }
-            }
-            if (!dir.delete()) {
-                throw new IOException("Failed to delete " + dir.getAbsolutePath());
-            }
-        }
+        DirectoryDeleter.delete(dir.toPath());
     }
 
     /**
@@ -229,18 +208,7 @@ public class FileManagementUtil {
      */
     public static void copyDirectory(File srcDir, File dstDir) throws IOException {
         if (srcDir.isDirectory()) {
-            if (!dstDir.exists()) {
-                if (!dstDir.mkdirs()) {
-                    throw new IOException("Failed to create directory " + dstDir.getAbsolutePath());
-                }
-            }
-
-            String[] children = srcDir.list();
-            if (children != null) {
-                for (String child : children) {
-                    copyDirectory(new File(srcDir, child), new File(dstDir, child));
-                }
-            }
+            FileCopier.copyDirectory(srcDir.toPath(), dstDir.toPath(), false);
         } else {
             copy(srcDir, dstDir);
         }
@@ -254,21 +222,7 @@ public class FileManagementUtil {
      * @throws IOException throws when fail to copy a given file
      */
     public static void copy(File src, File dst) throws IOException {
-        if (dst.getParentFile() != null && !dst.getParentFile().exists()) {
-            if (!dst.getParentFile().mkdirs()) {
-                throw new IOException("Failed to create " + dst.getAbsolutePath());
-            }
-        }
-
-        try (InputStream in = new FileInputStream(src);
-             OutputStream out = new FileOutputStream(dst)) {
-            // Transfer bytes from in to out
-            byte[] buf = new byte[1024];
-            int len;
-            while ((len = in.read(buf)) > 0) {
-                out.write(buf, 0, len);
-            }
-        }
+        FileCopier.copyFile(src.toPath(), dst.toPath(), false);
     }
 
     /**
@@ -279,34 +233,6 @@ public class FileManagementUtil {
      * @throws IOException throws when fail to create the directory structure when unzipping a file.
      */
     public static void unzip(File archiveFile, File destination) throws IOException {
-
-        try (FileInputStream fis = new FileInputStream(archiveFile);
-             ZipInputStream zis = new
-                     ZipInputStream(new BufferedInputStream(fis))) {
-            ZipEntry entry;
-
-            while ((entry = zis.getNextEntry()) != null) {
-                int count;
-                byte data[] = new byte[BUFFER];
-                File file = new File(destination, entry.getName());
-                if (entry.getName().endsWith("/")) {
-                    if (!file.exists() && !file.mkdirs()) {
-                        throw new IOException("Failed to create directories at " + file.getAbsolutePath());
-                    }
-                    continue;
-                }
-                if (file.getParentFile() != null && !file.getParentFile().exists()) {
-                    if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
-                        throw new IOException("Failed to create directories at " + file.getAbsolutePath());
-                    }
-                }
-                try (FileOutputStream fos = new FileOutputStream(file);
-                     BufferedOutputStream dest = new BufferedOutputStream(fos, BUFFER)) {
-                    while ((count = zis.read(data, 0, BUFFER)) != -1) {
-                        dest.write(data, 0, count);
-                    }
-                }
-            }
-        }
+        new ParallelZipExtractor().extract(archiveFile.toPath(), destination.toPath());
     }
 }
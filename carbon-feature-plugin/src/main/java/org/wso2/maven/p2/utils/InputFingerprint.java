@@ -0,0 +1,180 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Fingerprint of the inputs of a goal, used to skip the goal when its inputs have not changed since the last build.
+ * <p>
+ * Values are added by name. Files are represented by their path, size and last modified time rather than by their
+ * content, the same way maven decides whether a file in the local repository has changed.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class InputFingerprint {
+
+    private static final char SEPARATOR = '\0';
+
+    private final MessageDigest digest;
+
+    /**
+     * Creates an empty fingerprint.
+     */
+    public InputFingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    /**
+     * Adds a named value to the fingerprint.
+     *
+     * @param name  name of the value
+     * @param value value, may be {@code null}
+     * @return this fingerprint
+     */
+    public InputFingerprint add(String name, Object value) {
+        update(name);
+        update(String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Adds a named file to the fingerprint.
+     *
+     * @param name name of the file
+     * @param file file, may be {@code null} or not exist
+     * @return this fingerprint
+     */
+    public InputFingerprint addFile(String name, File file) {
+        update(name);
+        if (file == null || !file.exists()) {
+            update("-");
+            return this;
+        }
+        update(file.getAbsolutePath());
+        update(Long.toString(file.length()));
+        update(Long.toString(file.lastModified()));
+        return this;
+    }
+
+    /**
+     * Adds all the files under a named directory to the fingerprint, in a stable order.
+     *
+     * @param name      name of the directory
+     * @param directory directory, may be {@code null} or not exist
+     * @return this fingerprint
+     * @throws IOException throws when unable to walk the directory
+     */
+    public InputFingerprint addDirectory(String name, File directory) throws IOException {
+        update(name);
+        if (directory == null || !directory.isDirectory()) {
+            update("-");
+            return this;
+        }
+        Path root = directory.toPath();
+        List<String> files = new ArrayList<>();
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        files.add(root.relativize(file).toString() + SEPARATOR + attrs.size() + SEPARATOR
+                                + attrs.lastModifiedTime().toMillis());
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        Collections.sort(files);
+        update(directory.getAbsolutePath());
+        for (String file : files) {
+            update(file);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the fingerprint as a hex string. No more values should be added afterwards.
+     *
+     * @return {@code String}
+     */
+    public String getValue() {
+        StringBuilder value = new StringBuilder();
+        for (byte b : digest.digest()) {
+            value.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return value.toString();
+    }
+
+    /**
+     * Returns whether the given output was produced from inputs with the given fingerprint and has not been touched
+     * since.
+     *
+     * @param fingerprintFile file recorded by {@link #write(File, String, File)}
+     * @param fingerprint     fingerprint of the current inputs
+     * @param output          output produced from the inputs
+     * @return {@code boolean}
+     */
+    public static boolean isUpToDate(File fingerprintFile, String fingerprint, File output) {
+        if (!fingerprintFile.isFile() || !output.isFile()) {
+            return false;
+        }
+        try {
+            List<String> lines = Files.readAllLines(fingerprintFile.toPath(), StandardCharsets.UTF_8);
+            return lines.size() == 2 && lines.get(0).equals(fingerprint) && lines.get(1).equals(describe(output));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records that the given output was produced from inputs with the given fingerprint.
+     *
+     * @param fingerprintFile file to record the fingerprint in
+     * @param fingerprint     fingerprint of the inputs
+     * @param output          output produced from the inputs
+     * @throws IOException throws when unable to write the fingerprint file
+     */
+    public static void write(File fingerprintFile, String fingerprint, File output) throws IOException {
+        Files.write(fingerprintFile.toPath(), (fingerprint + "\n" + describe(output) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String describe(File output) {
+        return output.length() + " " + output.lastModified();
+    }
+
+    private void update(String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) SEPARATOR);
+    }
+}
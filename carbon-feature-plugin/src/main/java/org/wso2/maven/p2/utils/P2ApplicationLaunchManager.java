@@ -17,12 +17,18 @@
 package org.wso2.maven.p2.utils;
 
 import org.apache.maven.plugin.MojoFailureException;
+import org.eclipse.sisu.equinox.launching.EquinoxLauncher;
+import org.eclipse.sisu.equinox.launching.internal.EquinoxInstallationLaunchConfiguration;
 import org.eclipse.sisu.equinox.launching.internal.P2ApplicationLauncher;
+import org.eclipse.tycho.launching.LaunchConfiguration;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Wrapper class containing P2ApplicationLauncher which makes configuring the P2ApplicationLauncher easier.
@@ -32,6 +38,9 @@ import java.nio.file.Paths;
 public class P2ApplicationLaunchManager {
 
     private final P2ApplicationLauncher launcher;
+    private final EquinoxLauncher standaloneLauncher;
+    private final File runtimeLocation;
+    private final List<String> programArguments = new ArrayList<>();
 
     /**
      * The constructor which initializes this class. This class wraps the P2ApplicationLauncher and expose a set
@@ -41,15 +50,35 @@ public class P2ApplicationLaunchManager {
      */
     public P2ApplicationLaunchManager(P2ApplicationLauncher launcher) {
         this.launcher = launcher;
+        this.standaloneLauncher = null;
+        this.runtimeLocation = null;
     }
 
     /**
-     * Sets the working directory of P2Applilcation launcher instance.
+     * Constructs a launch manager which runs the application on an already provisioned standalone runtime, such as
+     * the one returned by {@link SharedDirectorRuntime}, instead of a runtime assembled for every launch. Only the
+     * applications contained in the runtime can be launched, and the working directory is the runtime location, so
+     * any path given in the arguments must be absolute.
+     *
+     * @param launcher        EquinoxLauncher used to launch the runtime
+     * @param runtimeLocation location of the provisioned runtime
+     */
+    public P2ApplicationLaunchManager(EquinoxLauncher launcher, File runtimeLocation) {
+        this.launcher = null;
+        this.standaloneLauncher = launcher;
+        this.runtimeLocation = runtimeLocation;
+    }
+
+    /**
+     * Sets the working directory of P2Applilcation launcher instance. This has no effect when running on a
+     * standalone runtime.
      *
      * @param workingDir File object pointing the directory
      */
     public void setWorkingDirectory(File workingDir) {
-        this.launcher.setWorkingDirectory(workingDir);
+        if (launcher != null) {
+            this.launcher.setWorkingDirectory(workingDir);
+        }
     }
 
     /**
@@ -58,7 +87,12 @@ public class P2ApplicationLaunchManager {
      * @param applicationName name of the application
      */
     public void setApplicationName(String applicationName) {
-        this.launcher.setApplicationName(applicationName);
+        if (launcher != null) {
+            this.launcher.setApplicationName(applicationName);
+        } else {
+            programArguments.add("-application");
+            programArguments.add(applicationName);
+        }
     }
 
     /**
@@ -78,7 +112,7 @@ public class P2ApplicationLaunchManager {
     public void addArgumentsToInstallFeatures(String repositoryLocation,
                                               String installIUs, String destination, String profile) {
 
-        launcher.addArguments(
+        addArguments(
                 "-metadataRepository", repositoryLocation,
                 "-artifactRepository", repositoryLocation,
                 "-profileProperties", "org.eclipse.update.install.features=true",
@@ -103,7 +137,7 @@ public class P2ApplicationLaunchManager {
      */
     public void addArgumentsToUnInstallFeatures(String uninstallIUs, String destination,
                                                 String profile) {
-        launcher.addArguments(
+        addArguments(
                 "-profileProperties", "org.eclipse.update.install.features=false",
                 // a comma separated list of IUs to uninstall. Each entry in the list is in the form
                 // <id> [ '/' <version> ]
@@ -128,7 +162,7 @@ public class P2ApplicationLaunchManager {
      */
     public void addRepoGenerationArguments(String sourceDir, String metadataRepoLocation,
                                            String repositoryName) {
-        launcher.addArguments("-source", sourceDir,
+        addArguments("-source", sourceDir,
                 "-metadataRepository", metadataRepoLocation,
                 "-metadataRepositoryName", repositoryName,
                 "-artifactRepository", metadataRepoLocation,
@@ -139,6 +173,21 @@ public class P2ApplicationLaunchManager {
                 "-append");
     }
 
+    /**
+     * Sets the P2ApplicationLauncher's arguments to generate P2 repository from a local update site and categorize the
+     * published installable units according to the site.xml of the update site in the same run. For this scenario both
+     * metadata repository and artifact repository are same.
+     *
+     * @param sourceDir            the location of the update site, containing the site.xml
+     * @param metadataRepoLocation the URI to the metadata repository where the installable units should be published
+     * @param repositoryName       name of the artifact repository where the artifacts should be published
+     */
+    public void addRepoGenerationWithCategoriesArguments(String sourceDir, String metadataRepoLocation,
+                                                         String repositoryName) {
+        addRepoGenerationArguments(sourceDir, metadataRepoLocation, repositoryName);
+        addArguments("-categoryQualifier");
+    }
+
     /**
      * Sets the P2ApplicationLauncher's arguments and configure it to categorizing a set of Installable Units in a given
      * repository.
@@ -149,7 +198,7 @@ public class P2ApplicationLaunchManager {
      *                                   repository
      */
     public void addUpdateRepoWithCategoryArguments(String metadataRepositoryLocation, String categoryDefinitionFile) {
-        launcher.addArguments("-metadataRepository", metadataRepositoryLocation,
+        addArguments("-metadataRepository", metadataRepositoryLocation,
                 "-categoryDefinition", categoryDefinitionFile,
                 "-categoryQualifier",
                 "-compress",
@@ -167,7 +216,7 @@ public class P2ApplicationLaunchManager {
      */
     public void addPublishProductArguments(URL repositoryURL, File productConfigurationFile, String executable)
             throws IOException {
-        launcher.addArguments(
+        addArguments(
                 "-metadataRepository", repositoryURL.toString(),
                 "-artifactRepository", repositoryURL.toString(),
                 "-productFile", productConfigurationFile.getCanonicalPath(),
@@ -188,7 +237,7 @@ public class P2ApplicationLaunchManager {
      * @param targetPath    location of the components directory of the carbon distribution
      */
     public void addGenerateProfileArguments(URL repositoryURL, String id, String profile, URL targetPath) {
-        launcher.addArguments(
+        addArguments(
                 "-metadataRepository", repositoryURL.toExternalForm(),
                 "-artifactRepository", repositoryURL.toExternalForm(),
                 "-installIU", id,
@@ -213,10 +262,30 @@ public class P2ApplicationLaunchManager {
      * @throws MojoFailureException throws when unable to perform the p2 activity
      */
     public void performAction(int forkedProcessTimeoutInSeconds) throws MojoFailureException {
-        int result = launcher.execute(forkedProcessTimeoutInSeconds);
+        int result;
+        long startNanos = System.nanoTime();
+        try {
+            if (launcher != null) {
+                result = launcher.execute(forkedProcessTimeoutInSeconds);
+            } else {
+                LaunchConfiguration launch = new EquinoxInstallationLaunchConfiguration(runtimeLocation,
+                        programArguments);
+                result = standaloneLauncher.execute(launch, forkedProcessTimeoutInSeconds);
+            }
+        } finally {
+            BuildMetrics.recordForkedProcess(startNanos);
+        }
         if (result != 0) {
             throw new MojoFailureException("P2 publisher return code was " + result);
         }
     }
 
+    private void addArguments(String... arguments) {
+        if (launcher != null) {
+            launcher.addArguments(arguments);
+        } else {
+            Collections.addAll(programArguments, arguments);
+        }
+    }
+
 }
@@ -47,6 +47,7 @@ public class P2Constants {
         public static final String ECLIPSE_UPDATE_FEATURE_TRUE = "org.eclipse.update.install.features=true";
         public static final String ROAMING = "-roaming";
         public static final String INSTALLIU = "-installIU";
+        public static final String UNINSTALLIU = "-uninstallIU";
     }
 
     /**
@@ -0,0 +1,486 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * In-memory index of the installable units (IUs) described by p2 metadata, such as the content.xml of a repository
+ * or a profile of a profile registry.
+ * <p>
+ * The metadata is read with a streaming parser and only the identity, the provided capabilities and the requirements
+ * of each unit are kept, so that the metadata of a large repository is indexed in milliseconds. Requirements given as
+ * match expressions and meta-requirements are not indexed.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class P2MetadataIndex {
+
+    /**
+     * Namespace of the capability every installable unit provides for its own id and version.
+     */
+    public static final String IU_NAMESPACE = "org.eclipse.equinox.p2.iu";
+
+    private static final String CONTENT_JAR = "content.jar";
+    private static final String CONTENT_XML = "content.xml";
+
+    private final Map<String, Map<String, Unit>> units = new HashMap<>();
+    private final Map<String, List<Capability>> capabilities = new HashMap<>();
+
+    private P2MetadataIndex() {
+    }
+
+    /**
+     * Indexes the metadata of a p2 repository on the file system.
+     *
+     * @param repository repository directory
+     * @return {@link P2MetadataIndex} or {@code null} if the repository has no content.jar or content.xml, as is the
+     * case with composite repositories
+     * @throws IOException throws when unable to read the metadata
+     */
+    public static P2MetadataIndex load(File repository) throws IOException {
+        File contentJar = new File(repository, CONTENT_JAR);
+        if (contentJar.isFile()) {
+            try (ZipFile zipFile = new ZipFile(contentJar)) {
+                ZipEntry entry = zipFile.getEntry(CONTENT_XML);
+                if (entry == null) {
+                    throw new IOException(contentJar + " does not contain " + CONTENT_XML);
+                }
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    return parse(inputStream);
+                }
+            }
+        }
+        File contentXml = new File(repository, CONTENT_XML);
+        if (contentXml.isFile()) {
+            try (InputStream inputStream = Files.newInputStream(contentXml.toPath())) {
+                return parse(inputStream);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indexes the units of the given p2 metadata.
+     *
+     * @param inputStream metadata in XML, not closed by this method
+     * @return {@link P2MetadataIndex}
+     * @throws IOException throws when unable to read or parse the metadata
+     */
+    public static P2MetadataIndex parse(InputStream inputStream) throws IOException {
+        P2MetadataIndex index = new P2MetadataIndex();
+        XMLStreamReader reader = null;
+        try {
+            reader = XmlServices.getXMLInputFactory().createXMLStreamReader(inputStream);
+            Deque<String> elements = new ArrayDeque<>();
+            Unit unit = null;
+            Requirement requirement = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    String parent = elements.peek();
+                    if ("unit".equals(name) && "units".equals(parent)) {
+                        unit = new Unit(reader.getAttributeValue(null, "id"),
+                                reader.getAttributeValue(null, "version"),
+                                !"false".equals(reader.getAttributeValue(null, "singleton")));
+                    } else if (unit != null && "provided".equals(name) && isUnitChild(elements, "provides")) {
+                        unit.provided.add(new Capability(unit, reader.getAttributeValue(null, "namespace"),
+                                reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "version")));
+                    } else if (unit != null && "required".equals(name) && isUnitChild(elements, "requires")
+                            && reader.getAttributeValue(null, "namespace") != null) {
+                        requirement = new Requirement(reader.getAttributeValue(null, "namespace"),
+                                reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "range"),
+                                "true".equals(reader.getAttributeValue(null, "optional")),
+                                !"false".equals(reader.getAttributeValue(null, "greedy")));
+                        unit.requirements.add(requirement);
+                    } else if (requirement != null && "filter".equals(name) && "required".equals(parent)) {
+                        requirement.filtered = true;
+                    }
+                    elements.push(name);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    elements.pop();
+                    String name = reader.getLocalName();
+                    if ("required".equals(name)) {
+                        requirement = null;
+                    } else if ("unit".equals(name) && unit != null && "units".equals(elements.peek())) {
+                        index.add(unit);
+                        unit = null;
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to parse the p2 metadata", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // The input stream is closed by the caller.
+                }
+            }
+        }
+        return index;
+    }
+
+    private static boolean isUnitChild(Deque<String> elements, String name) {
+        if (!name.equals(elements.peek()) || elements.size() < 2) {
+            return false;
+        }
+        String current = elements.pop();
+        boolean unitChild = "unit".equals(elements.peek());
+        elements.push(current);
+        return unitChild;
+    }
+
+    private void add(Unit unit) {
+        if (unit.id == null || unit.version == null) {
+            return;
+        }
+        units.computeIfAbsent(unit.id, id -> new TreeMap<>(P2MetadataIndex::compareVersions)).put(unit.version, unit);
+        for (Capability capability : unit.provided) {
+            capabilities.computeIfAbsent(capability.namespace + '\0' + capability.name, key -> new ArrayList<>())
+                    .add(capability);
+        }
+    }
+
+    /**
+     * Returns the unit with the given id and version. Versions are compared the way p2 parses them, so that missing
+     * segments count as 0 and {@code 1.0} finds the unit of version {@code 1.0.0}.
+     *
+     * @param id      id of the unit
+     * @param version version of the unit
+     * @return {@link Unit} or {@code null} if there is no such unit
+     */
+    public Unit getUnit(String id, String version) {
+        Map<String, Unit> versions = units.get(id);
+        return versions == null ? null : versions.get(version);
+    }
+
+    /**
+     * Returns all the units with the given id.
+     *
+     * @param id id of the units
+     * @return {@code Collection<Unit>}
+     */
+    public Collection<Unit> getUnits(String id) {
+        Map<String, Unit> versions = units.get(id);
+        return versions == null ? Collections.emptyList() : Collections.unmodifiableCollection(versions.values());
+    }
+
+    /**
+     * Returns all the indexed units.
+     *
+     * @return {@code List<Unit>}
+     */
+    public List<Unit> getUnits() {
+        List<Unit> allUnits = new ArrayList<>();
+        units.values().forEach(versions -> allUnits.addAll(versions.values()));
+        return allUnits;
+    }
+
+    /**
+     * Returns the units which satisfy the given requirement, highest version first.
+     *
+     * @param requirement requirement to satisfy
+     * @return {@code List<Unit>}
+     */
+    public List<Unit> getProviders(Requirement requirement) {
+        List<Capability> candidates = capabilities.get(requirement.namespace + '\0' + requirement.name);
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+        VersionRange range = VersionRange.parse(requirement.range);
+        List<Capability> matches = new ArrayList<>();
+        for (Capability candidate : candidates) {
+            if (range.includes(candidate.version)) {
+                matches.add(candidate);
+            }
+        }
+        matches.sort((first, second) -> compareVersions(second.version, first.version));
+        List<Unit> providers = new ArrayList<>(matches.size());
+        matches.forEach(match -> providers.add(match.unit));
+        return providers;
+    }
+
+    /**
+     * Compares two OSGi versions. Missing segments count as zero and the qualifier is compared as a string.
+     *
+     * @param first  first version
+     * @param second second version
+     * @return a negative integer, zero, or a positive integer as the first version is lower than, equal to, or higher
+     * than the second
+     */
+    public static int compareVersions(String first, String second) {
+        String[] firstSegments = splitVersion(first);
+        String[] secondSegments = splitVersion(second);
+        for (int i = 0; i < 3; i++) {
+            int result = Long.compare(parseSegment(firstSegments[i]), parseSegment(secondSegments[i]));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return firstSegments[3].compareTo(secondSegments[3]);
+    }
+
+    private static String[] splitVersion(String version) {
+        String[] segments = {"0", "0", "0", ""};
+        if (version == null) {
+            return segments;
+        }
+        String[] parts = version.trim().split("\\.", 4);
+        System.arraycopy(parts, 0, segments, 0, parts.length);
+        return segments;
+    }
+
+    private static long parseSegment(String segment) {
+        try {
+            return Long.parseLong(segment);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Installable unit of the metadata.
+     */
+    public static class Unit {
+        private final String id;
+        private final String version;
+        private final boolean singleton;
+        private final List<Capability> provided = new ArrayList<>();
+        private final List<Requirement> requirements = new ArrayList<>();
+
+        Unit(String id, String version, boolean singleton) {
+            this.id = id;
+            this.version = version;
+            this.singleton = singleton;
+        }
+
+        /**
+         * Returns the id of the unit.
+         *
+         * @return {@code String}
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the version of the unit.
+         *
+         * @return {@code String}
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns whether only one version of the unit can be installed in a profile.
+         *
+         * @return {@code boolean}
+         */
+        public boolean isSingleton() {
+            return singleton;
+        }
+
+        /**
+         * Returns the requirements of the unit.
+         *
+         * @return {@code List<Requirement>}
+         */
+        public List<Requirement> getRequirements() {
+            return Collections.unmodifiableList(requirements);
+        }
+
+        @Override
+        public String toString() {
+            return id + "/" + version;
+        }
+    }
+
+    /**
+     * Requirement of an installable unit on a capability.
+     */
+    public static class Requirement {
+        private final String namespace;
+        private final String name;
+        private final String range;
+        private final boolean optional;
+        private final boolean greedy;
+        private boolean filtered;
+
+        Requirement(String namespace, String name, String range, boolean optional, boolean greedy) {
+            this.namespace = namespace;
+            this.name = name;
+            this.range = range;
+            this.optional = optional;
+            this.greedy = greedy;
+        }
+
+        /**
+         * Returns the namespace of the required capability.
+         *
+         * @return {@code String}
+         */
+        public String getNamespace() {
+            return namespace;
+        }
+
+        /**
+         * Returns the name of the required capability.
+         *
+         * @return {@code String}
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the version range of the required capability.
+         *
+         * @return {@code String}
+         */
+        public String getRange() {
+            return range;
+        }
+
+        /**
+         * Returns whether the requirement is optional.
+         *
+         * @return {@code boolean}
+         */
+        public boolean isOptional() {
+            return optional;
+        }
+
+        /**
+         * Returns whether the requirement makes the planner install a provider of the capability.
+         *
+         * @return {@code boolean}
+         */
+        public boolean isGreedy() {
+            return greedy;
+        }
+
+        /**
+         * Returns whether the requirement only applies when its filter matches the target environment.
+         *
+         * @return {@code boolean}
+         */
+        public boolean isFiltered() {
+            return filtered;
+        }
+
+        /**
+         * Returns the exact version the requirement is on, as features require their plugins and included features.
+         *
+         * @return {@code String} or {@code null} if the range admits more than one version
+         */
+        public String getExactVersion() {
+            VersionRange versionRange = VersionRange.parse(range);
+            return versionRange.isExact() ? versionRange.minimum : null;
+        }
+
+        @Override
+        public String toString() {
+            return namespace + " " + name + " " + (range == null ? "0.0.0" : range);
+        }
+    }
+
+    private static class Capability {
+        private final Unit unit;
+        private final String namespace;
+        private final String name;
+        private final String version;
+
+        Capability(Unit unit, String namespace, String name, String version) {
+            this.unit = unit;
+            this.namespace = namespace;
+            this.name = name;
+            this.version = version;
+        }
+    }
+
+    private static class VersionRange {
+        private final String minimum;
+        private final boolean minimumInclusive;
+        private final String maximum;
+        private final boolean maximumInclusive;
+
+        private VersionRange(String minimum, boolean minimumInclusive, String maximum, boolean maximumInclusive) {
+            this.minimum = minimum;
+            this.minimumInclusive = minimumInclusive;
+            this.maximum = maximum;
+            this.maximumInclusive = maximumInclusive;
+        }
+
+        static VersionRange parse(String range) {
+            if (range == null || range.trim().isEmpty()) {
+                return new VersionRange("0.0.0", true, null, false);
+            }
+            String value = range.trim();
+            char first = value.charAt(0);
+            if (first != '[' && first != '(') {
+                return new VersionRange(value, true, null, false);
+            }
+            int comma = value.indexOf(',');
+            char last = value.charAt(value.length() - 1);
+            if (comma < 0 || (last != ']' && last != ')')) {
+                return new VersionRange(value.substring(1), first == '[', null, false);
+            }
+            return new VersionRange(value.substring(1, comma).trim(), first == '[',
+                    value.substring(comma + 1, value.length() - 1).trim(), last == ']');
+        }
+
+        boolean includes(String version) {
+            if (version == null) {
+                return false;
+            }
+            int minimumResult = compareVersions(version, minimum);
+            if (minimumResult < 0 || (minimumResult == 0 && !minimumInclusive)) {
+                return false;
+            }
+            if (maximum == null) {
+                return true;
+            }
+            int maximumResult = compareVersions(version, maximum);
+            return maximumResult < 0 || (maximumResult == 0 && maximumInclusive);
+        }
+
+        boolean isExact() {
+            return minimumInclusive && maximumInclusive && maximum != null && compareVersions(minimum, maximum) == 0;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Snapshot of a p2 profile, read from the profile registry of an installation.
+ * <p>
+ * Every change to a profile writes a new snapshot, named after its timestamp, to
+ * {@code <profile registry>/<profile>.profile/}. Snapshots are (optionally gzipped) XML and can grow to several
+ * megabytes, so they are read with a streaming parser keeping only the installed units, the root units and the
+ * artifacts the units refer to.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class P2Profile {
+
+    private static final String PROFILE_REGISTRY = "org.eclipse.equinox.p2.engine/profileRegistry";
+    private static final String PROFILE_SUFFIX = ".profile";
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String ROOT_PROPERTY = "org.eclipse.equinox.p2.type.root";
+    private static final String CACHE_PROPERTY = "org.eclipse.equinox.p2.cache";
+
+    private final Set<String> units = new HashSet<>();
+    private final Set<String> unitIds = new HashSet<>();
+    private final Set<String> roots = new HashSet<>();
+    private final Set<ArtifactKey> artifacts = new HashSet<>();
+    private String bundlePool;
+
+    private P2Profile() {
+    }
+
+    /**
+     * Returns the profile registries of an installation. The registry is in the shared p2 data area under lib/p2,
+     * or directly under p2 for installations which do not share the data area.
+     *
+     * @param destination installation directory
+     * @return {@code List<File>} of the existing profile registries
+     */
+    public static List<File> getProfileRegistries(File destination) {
+        List<File> registries = new ArrayList<>(2);
+        for (File registry : new File[]{new File(destination, P2Constants.LIB + "/" + P2Constants.P2 + "/"
+                + PROFILE_REGISTRY), new File(destination, P2Constants.P2 + "/" + PROFILE_REGISTRY)}) {
+            if (registry.isDirectory()) {
+                registries.add(registry);
+            }
+        }
+        return registries;
+    }
+
+    /**
+     * Returns the {@code <profile>.profile} directories of a profile registry.
+     *
+     * @param registry profile registry
+     * @return {@code List<File>}
+     */
+    public static List<File> getProfileDirectories(File registry) {
+        File[] profileDirectories = registry.listFiles(file -> file.isDirectory()
+                && file.getName().endsWith(PROFILE_SUFFIX));
+        if (profileDirectories == null) {
+            return Collections.emptyList();
+        }
+        List<File> sorted = new ArrayList<>();
+        Collections.addAll(sorted, profileDirectories);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Returns the snapshots of a profile, oldest first. Snapshots are ordered by the timestamp they are named after.
+     *
+     * @param profileDirectory {@code <profile>.profile} directory of a profile registry
+     * @return {@code List<File>}
+     */
+    public static List<File> getSnapshots(File profileDirectory) {
+        File[] snapshots = profileDirectory.listFiles((dir, name) -> name.endsWith(PROFILE_SUFFIX)
+                || name.endsWith(PROFILE_SUFFIX + GZIP_SUFFIX));
+        if (snapshots == null) {
+            return Collections.emptyList();
+        }
+        List<File> sorted = new ArrayList<>();
+        Collections.addAll(sorted, snapshots);
+        sorted.sort(Comparator.comparingLong(P2Profile::getTimestamp).thenComparing(File::getName));
+        return sorted;
+    }
+
+    /**
+     * Reads the latest snapshot of a profile of an installation.
+     *
+     * @param destination installation directory
+     * @param profile     profile id
+     * @return {@link P2Profile} or {@code null} if the profile has no snapshot yet
+     * @throws IOException throws when unable to read the snapshot
+     */
+    public static P2Profile readLatest(File destination, String profile) throws IOException {
+        for (File registry : getProfileRegistries(destination)) {
+            List<File> snapshots = getSnapshots(new File(registry, profile + PROFILE_SUFFIX));
+            if (!snapshots.isEmpty()) {
+                return read(snapshots.get(snapshots.size() - 1));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a snapshot of a profile.
+     *
+     * @param snapshot snapshot file, gzipped if its name ends with .gz
+     * @return {@link P2Profile}
+     * @throws IOException throws when unable to read or parse the snapshot
+     */
+    public static P2Profile read(File snapshot) throws IOException {
+        try (InputStream fileStream = new BufferedInputStream(Files.newInputStream(snapshot.toPath()));
+             InputStream inputStream = snapshot.getName().endsWith(GZIP_SUFFIX)
+                     ? new GZIPInputStream(fileStream) : fileStream) {
+            return parse(inputStream);
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to parse the profile " + snapshot, e);
+        }
+    }
+
+    private static P2Profile parse(InputStream inputStream) throws XMLStreamException {
+        P2Profile profile = new P2Profile();
+        XMLStreamReader reader = XmlServices.getXMLInputFactory().createXMLStreamReader(inputStream);
+        try {
+            Deque<String> elements = new ArrayDeque<>();
+            String unit = null;
+            String iuProperties = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    String parent = elements.peek();
+                    if ("unit".equals(name) && "units".equals(parent)) {
+                        unit = reader.getAttributeValue(null, "id") + "/" + reader.getAttributeValue(null, "version");
+                        profile.units.add(unit);
+                        profile.unitIds.add(reader.getAttributeValue(null, "id"));
+                    } else if (unit != null && "artifact".equals(name) && "artifacts".equals(parent)) {
+                        profile.artifacts.add(new ArtifactKey(reader.getAttributeValue(null, "classifier"),
+                                reader.getAttributeValue(null, "id"), reader.getAttributeValue(null, "version")));
+                    } else if ("property".equals(name) && "properties".equals(parent) && elements.size() == 2
+                            && CACHE_PROPERTY.equals(reader.getAttributeValue(null, "name"))) {
+                        profile.bundlePool = reader.getAttributeValue(null, "value");
+                    } else if ("iuProperties".equals(name)) {
+                        iuProperties = reader.getAttributeValue(null, "id") + "/"
+                                + reader.getAttributeValue(null, "version");
+                    } else if (iuProperties != null && "property".equals(name)
+                            && ROOT_PROPERTY.equals(reader.getAttributeValue(null, "name"))
+                            && "true".equals(reader.getAttributeValue(null, "value"))) {
+                        profile.roots.add(iuProperties);
+                    }
+                    elements.push(name);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    elements.pop();
+                    String name = reader.getLocalName();
+                    if ("unit".equals(name) && "units".equals(elements.peek())) {
+                        unit = null;
+                    } else if ("iuProperties".equals(name)) {
+                        iuProperties = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return profile;
+    }
+
+    private static long getTimestamp(File snapshot) {
+        String name = snapshot.getName();
+        int end = name.indexOf('.');
+        try {
+            return Long.parseLong(end < 0 ? name : name.substring(0, end));
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Returns whether the unit is installed in the profile as a root, that is, it was installed on its own rather
+     * than as a requirement of another unit.
+     *
+     * @param id      id of the unit
+     * @param version version of the unit
+     * @return {@code boolean}
+     */
+    public boolean isInstalledRoot(String id, String version) {
+        String unit = id + "/" + version;
+        return roots.contains(unit) && units.contains(unit);
+    }
+
+    /**
+     * Returns whether any version of the unit is installed in the profile.
+     *
+     * @param id id of the unit
+     * @return {@code boolean}
+     */
+    public boolean isInstalled(String id) {
+        return unitIds.contains(id);
+    }
+
+    /**
+     * Returns the location of the bundle pool the artifacts of the profile are stored in.
+     *
+     * @return {@code String} or {@code null} if the profile does not record it
+     */
+    public String getBundlePool() {
+        return bundlePool;
+    }
+
+    /**
+     * Returns the artifacts of the units installed in the profile.
+     *
+     * @return {@code Set<ArtifactKey>}
+     */
+    public Set<ArtifactKey> getArtifacts() {
+        return Collections.unmodifiableSet(artifacts);
+    }
+
+    /**
+     * Key of an artifact in a p2 artifact repository or bundle pool.
+     */
+    public static class ArtifactKey {
+        private final String classifier;
+        private final String id;
+        private final String version;
+
+        /**
+         * Creates the key of an artifact.
+         *
+         * @param classifier classifier of the artifact
+         * @param id         id of the artifact
+         * @param version    version of the artifact
+         */
+        public ArtifactKey(String classifier, String id, String version) {
+            this.classifier = classifier;
+            this.id = id;
+            this.version = version;
+        }
+
+        /**
+         * Returns the classifier of the artifact, such as osgi.bundle or org.eclipse.update.feature.
+         *
+         * @return {@code String}
+         */
+        public String getClassifier() {
+            return classifier;
+        }
+
+        /**
+         * Returns the id of the artifact.
+         *
+         * @return {@code String}
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the version of the artifact.
+         *
+         * @return {@code String}
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ArtifactKey)) {
+                return false;
+            }
+            ArtifactKey that = (ArtifactKey) other;
+            return String.valueOf(classifier).equals(String.valueOf(that.classifier))
+                    && String.valueOf(id).equals(String.valueOf(that.id))
+                    && String.valueOf(version).equals(String.valueOf(that.version));
+        }
+
+        @Override
+        public int hashCode() {
+            return (String.valueOf(classifier) + '/' + id + '/' + version).hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return classifier + "/" + id + "/" + version;
+        }
+    }
+}
@@ -0,0 +1,929 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import org.apache.maven.plugin.logging.Log;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+/**
+ * Persistent local mirror of remote p2 repositories, kept under the maven local repository.
+ * <p>
+ * The metadata of a mirrored repository is fetched with conditional requests, so it is only downloaded again when it
+ * changes on the server. Its artifacts are downloaded into an artifact store shared by all the mirrored repositories,
+ * and verified against the checksums recorded in the repository. The director is then pointed at a local repository
+ * made of the fetched metadata and the artifacts, laid out at their p2 locations.
+ * </p>
+ * <p>
+ * The store is content addressed: an artifact is stored under the SHA-256 (or, failing that, the MD5) checksum the
+ * repository records for it, and each location of a mirrored repository is a hard link to, or where links are not
+ * supported a copy of, the stored content. Two repositories publishing different content under the same location,
+ * as snapshot builds do, therefore never get each other's artifacts, while identical artifacts are stored once.
+ * Artifacts without a recorded checksum are not stored, and are downloaded again whenever the artifacts metadata of
+ * their repository changes. The artifacts of a mirrored repository are touched whenever it is used, and the least
+ * recently used artifacts are evicted once the store grows beyond its size cap. Repositories which are not served
+ * over http(s) or are composite repositories are used directly.
+ * </p>
+ * <p>
+ * The cache may be shared by several builds running at the same time, in this and in other processes. Mirrors are
+ * updated, and artifacts evicted, holding an exclusive lock on a lock file in the cache directory. A mirror is used
+ * through a {@link Lease}, which holds a shared lock on a lease file of the mirror until it is closed: the artifacts
+ * of a leased mirror are never evicted, and its stale artifacts are only removed once it is no longer leased.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class P2RepositoryMirror {
+
+    private static final String REPO_URL = "${repoUrl}";
+    private static final String ARTIFACTS_XML = "artifacts.xml";
+    private static final String ARTIFACT_LIST = "artifacts.index";
+    private static final String REMOTE_DIRECTORY = "remote";
+    private static final String VALIDATORS_FILE = "validators.properties";
+    private static final String LOCK_FILE = ".lock";
+    private static final String LEASE_FILE = ".lease";
+    private static final String STALE_MARKER = ".stale";
+    private static final Pattern FILTER_TERM = Pattern.compile("\\(\\s*([\\w.]+)\\s*=\\s*([^)]*?)\\s*\\)");
+
+    private static final int MAX_DOWNLOAD_THREADS = 8;
+    private static final int CONNECT_TIMEOUT_MILLIS = 30 * 1000;
+    private static final int READ_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Monitors of the lock files, so that threads of this JVM take turns holding the file lock, which only excludes
+     * other processes.
+     */
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * Lease files locked by this JVM, keyed by mirror directory. Guarded by itself.
+     */
+    private static final Map<Path, LeaseFile> LEASES = new HashMap<>();
+
+    private final Path lockFile;
+    private final Path repositoriesDirectory;
+    private final Path artifactStore;
+    private final long maxStoreBytes;
+    private final Log log;
+
+    /**
+     * Creates a mirror kept under the given local repository directory.
+     *
+     * @param localRepositoryDirectory base directory of the maven local repository
+     * @param maxStoreBytes            size cap of the artifact store, in bytes
+     * @param log                      Logger to log progress and warnings
+     */
+    public P2RepositoryMirror(String localRepositoryDirectory, long maxStoreBytes, Log log) {
+        Path cacheDirectory = Paths.get(localRepositoryDirectory, ".cache", "carbon-feature-plugin", "p2-mirror")
+                .toAbsolutePath();
+        this.lockFile = cacheDirectory.resolve(LOCK_FILE);
+        this.repositoriesDirectory = cacheDirectory.resolve("repositories");
+        this.artifactStore = cacheDirectory.resolve("artifacts");
+        this.maxStoreBytes = maxStoreBytes;
+        this.log = log;
+    }
+
+    /**
+     * Brings the mirror of the given repository up to date and leases it. The lease has to be held as long as the
+     * mirror is in use, and closed afterwards.
+     *
+     * @param repository p2 repository to mirror
+     * @return {@link Lease} of the local mirror, located at the given repository if it cannot be mirrored
+     * @throws IOException throws when unable to fetch the repository or write the mirror
+     */
+    public Lease mirror(URL repository) throws IOException {
+        String protocol = repository.getProtocol();
+        if (!"http".equalsIgnoreCase(protocol) && !"https".equalsIgnoreCase(protocol)) {
+            return new Lease(repository, null);
+        }
+        String base = repository.toExternalForm();
+        while (base.endsWith("/")) {
+            base = base.substring(0, base.length() - 1);
+        }
+        Path mirrorDirectory = repositoriesDirectory.resolve(sha256(base.getBytes(StandardCharsets.UTF_8)));
+        long startMillis = System.currentTimeMillis();
+        synchronized (LOCKS.computeIfAbsent(lockFile, key -> new Object())) {
+            Files.createDirectories(lockFile.getParent());
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                if (!update(base, mirrorDirectory)) {
+                    return new Lease(repository, null);
+                }
+                Lease lease = Lease.acquire(mirrorDirectory);
+                try {
+                    evict(startMillis);
+                } catch (IOException | RuntimeException e) {
+                    lease.close();
+                    throw e;
+                }
+                return lease;
+            }
+        }
+    }
+
+    /**
+     * Brings the mirror of the given repository up to date. Called holding the lock of the store.
+     *
+     * @param base            location of the repository
+     * @param mirrorDirectory directory of the mirror
+     * @return {@code boolean} {@code false} if the repository cannot be mirrored
+     * @throws IOException throws when unable to fetch the repository or write the mirror
+     */
+    private boolean update(String base, Path mirrorDirectory) throws IOException {
+        Path remoteDirectory = mirrorDirectory.resolve(REMOTE_DIRECTORY);
+        Files.createDirectories(remoteDirectory);
+        Path content;
+        Path artifacts;
+        boolean artifactsModified;
+        try {
+            Properties validators = loadProperties(remoteDirectory.resolve(VALIDATORS_FILE));
+            content = fetchMetadata(base, "content", remoteDirectory, validators);
+            Path previousArtifacts = findMetadata(remoteDirectory, "artifacts");
+            FileTime previousModified = previousArtifacts == null ? null
+                    : Files.getLastModifiedTime(previousArtifacts);
+            artifacts = fetchMetadata(base, "artifacts", remoteDirectory, validators);
+            artifactsModified = artifacts == null || !artifacts.equals(previousArtifacts)
+                    || !Files.getLastModifiedTime(artifacts).equals(previousModified);
+            storeProperties(validators, remoteDirectory.resolve(VALIDATORS_FILE));
+        } catch (IOException e) {
+            if (isComplete(mirrorDirectory)) {
+                log.warn("Unable to reach " + base + ", using its mirror as of the last build", e);
+                return true;
+            }
+            throw e;
+        }
+        if (content == null || artifacts == null) {
+            log.info(base + " is not a simple p2 repository, using it without a mirror");
+            return false;
+        }
+
+        List<String> artifactPaths;
+        Path staleMarker = mirrorDirectory.resolve(STALE_MARKER);
+        boolean refresh = artifactsModified || !isComplete(mirrorDirectory) || Files.exists(staleMarker);
+        if (refresh) {
+            Files.deleteIfExists(mirrorDirectory.resolve(ARTIFACT_LIST));
+            artifactPaths = writeArtifactsXml(artifacts, mirrorDirectory.resolve(ARTIFACTS_XML));
+        } else {
+            artifactPaths = Files.readAllLines(mirrorDirectory.resolve(ARTIFACT_LIST), StandardCharsets.UTF_8);
+        }
+        fetchArtifacts(base, mirrorDirectory, artifactPaths, refresh);
+        if (refresh) {
+            if (isLeased(mirrorDirectory)) {
+                log.info("The mirror of " + base + " is in use, its stale artifacts are removed once it is not");
+                if (!Files.exists(staleMarker)) {
+                    Files.createFile(staleMarker);
+                }
+            } else {
+                removeStaleArtifacts(mirrorDirectory, artifactPaths);
+                Files.deleteIfExists(staleMarker);
+            }
+        }
+
+        String contentName = content.getFileName().toString();
+        FileCopier.copyFile(content, mirrorDirectory.resolve(contentName), false);
+        Files.deleteIfExists(mirrorDirectory.resolve(contentName.endsWith(".jar") ? "content.xml"
+                : "content.jar"));
+        writeAtomically(mirrorDirectory.resolve(ARTIFACT_LIST),
+                String.join("\n", artifactPaths).getBytes(StandardCharsets.UTF_8));
+        return true;
+    }
+
+    private static boolean isComplete(Path mirrorDirectory) {
+        return Files.isRegularFile(mirrorDirectory.resolve(ARTIFACT_LIST))
+                && Files.isRegularFile(mirrorDirectory.resolve(ARTIFACTS_XML))
+                && (Files.isRegularFile(mirrorDirectory.resolve("content.jar"))
+                || Files.isRegularFile(mirrorDirectory.resolve("content.xml")));
+    }
+
+    private static Path findMetadata(Path directory, String name) {
+        for (String extension : new String[]{".jar", ".xml"}) {
+            Path file = directory.resolve(name + extension);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fetches {@code name.jar}, or {@code name.xml} if the repository has no jar, into the given directory. A local
+     * copy is only downloaded again when the server reports it as modified.
+     *
+     * @param base       location of the repository
+     * @param name       name of the metadata file, without extension
+     * @param directory  directory holding the local copies
+     * @param validators ETag and Last-Modified values of the local copies
+     * @return {@link Path} of the local copy, or {@code null} if the repository has neither file
+     * @throws IOException throws when unable to fetch the metadata
+     */
+    private Path fetchMetadata(String base, String name, Path directory, Properties validators)
+            throws IOException {
+        for (String extension : new String[]{".jar", ".xml"}) {
+            String fileName = name + extension;
+            Path file = directory.resolve(fileName);
+            HttpURLConnection connection = open(base + "/" + fileName);
+            try {
+                if (Files.isRegularFile(file)) {
+                    String etag = validators.getProperty(fileName + ".etag");
+                    String lastModified = validators.getProperty(fileName + ".lastModified");
+                    if (etag != null) {
+                        connection.setRequestProperty("If-None-Match", etag);
+                    }
+                    if (lastModified != null) {
+                        connection.setRequestProperty("If-Modified-Since", lastModified);
+                    }
+                }
+                int status = connection.getResponseCode();
+                if (status == HttpURLConnection.HTTP_NOT_MODIFIED && Files.isRegularFile(file)) {
+                    return file;
+                }
+                if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                if (status != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Unexpected response " + status + " for " + connection.getURL());
+                }
+                log.info("Downloading " + connection.getURL());
+                download(connection, file, -1, null);
+                setOrRemove(validators, fileName + ".etag", connection.getHeaderField("ETag"));
+                setOrRemove(validators, fileName + ".lastModified", connection.getHeaderField("Last-Modified"));
+                return file;
+            } finally {
+                connection.disconnect();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the artifacts metadata of the mirror. Mirrors of the remote repository are dropped and so are packed
+     * artifacts, since their canonical form is mirrored.
+     *
+     * @param artifacts   artifacts.jar or artifacts.xml fetched from the repository
+     * @param destination artifacts.xml of the mirror
+     * @return {@code List<String>} repository relative paths of the artifacts, each followed by its size and checksums
+     * @throws IOException throws when unable to read or write the metadata
+     */
+    private List<String> writeArtifactsXml(Path artifacts, Path destination) throws IOException {
+        Document document;
+        try {
+            if (artifacts.getFileName().toString().endsWith(".jar")) {
+                try (JarFile jarFile = new JarFile(artifacts.toFile())) {
+                    ZipEntry entry = jarFile.getEntry(ARTIFACTS_XML);
+                    if (entry == null) {
+                        throw new IOException(artifacts + " does not contain " + ARTIFACTS_XML);
+                    }
+                    try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                        document = XmlServices.getDocumentBuilder().parse(inputStream);
+                    }
+                }
+            } else {
+                document = XmlServices.getDocumentBuilder().parse(artifacts.toFile());
+            }
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Unable to parse " + artifacts, e);
+        }
+
+        Element root = document.getDocumentElement();
+        NodeList repositoryProperties = root.getElementsByTagName("property");
+        for (int i = repositoryProperties.getLength() - 1; i >= 0; i--) {
+            Element property = (Element) repositoryProperties.item(i);
+            String name = property.getAttribute("name");
+            if (property.getParentNode().getParentNode() == root
+                    && ("p2.mirrorsURL".equals(name) || "p2.compressed".equals(name))) {
+                Element properties = (Element) property.getParentNode();
+                properties.removeChild(property);
+                properties.setAttribute("size",
+                        Integer.toString(properties.getElementsByTagName("property").getLength()));
+            }
+        }
+
+        List<String[]> rules = new ArrayList<>();
+        NodeList ruleElements = root.getElementsByTagName("rule");
+        for (int i = 0; i < ruleElements.getLength(); i++) {
+            Element rule = (Element) ruleElements.item(i);
+            rules.add(new String[]{rule.getAttribute("filter"), rule.getAttribute("output")});
+        }
+
+        List<String> artifactPaths = new ArrayList<>();
+        NodeList artifactElements = root.getElementsByTagName("artifact");
+        for (int i = artifactElements.getLength() - 1; i >= 0; i--) {
+            Element artifact = (Element) artifactElements.item(i);
+            Map<String, String> properties = new HashMap<>();
+            properties.put("classifier", artifact.getAttribute("classifier"));
+            properties.put("id", artifact.getAttribute("id"));
+            properties.put("version", artifact.getAttribute("version"));
+            NodeList artifactProperties = artifact.getElementsByTagName("property");
+            for (int j = 0; j < artifactProperties.getLength(); j++) {
+                Element property = (Element) artifactProperties.item(j);
+                properties.putIfAbsent(property.getAttribute("name"), property.getAttribute("value"));
+            }
+            if ("packed".equals(properties.get("format"))) {
+                artifact.getParentNode().removeChild(artifact);
+                continue;
+            }
+            String output = getOutput(rules, properties);
+            if (output == null || !output.startsWith(REPO_URL + "/")) {
+                continue;
+            }
+            artifactPaths.add(0, output.substring(REPO_URL.length() + 1) + "|"
+                    + properties.getOrDefault("download.size", "") + "|"
+                    + properties.getOrDefault("download.checksum.sha-256", "") + "|"
+                    + properties.getOrDefault("download.md5", ""));
+        }
+        NodeList artifactsElements = root.getElementsByTagName("artifacts");
+        if (artifactsElements.getLength() > 0) {
+            ((Element) artifactsElements.item(0)).setAttribute("size",
+                    Integer.toString(root.getElementsByTagName("artifact").getLength()));
+        }
+
+        Path tempFile = FileManagementUtil.createTempFile(destination.getParent(), ARTIFACTS_XML);
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                Transformer transformer = XmlServices.getIndentingTransformer();
+                transformer.setOutputProperty(OutputKeys.INDENT, "no");
+                transformer.transform(new DOMSource(document), new StreamResult(outputStream));
+            } catch (TransformerException e) {
+                throw new IOException("Unable to write " + destination, e);
+            }
+            Files.move(tempFile, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return artifactPaths;
+    }
+
+    /**
+     * Returns the output of the first mapping rule whose filter matches the given artifact properties.
+     *
+     * @param rules      filter and output of each mapping rule
+     * @param properties properties of the artifact
+     * @return {@code String} output with all variables other than {@code ${repoUrl}} substituted, or {@code null}
+     */
+    private static String getOutput(List<String[]> rules, Map<String, String> properties) {
+        for (String[] rule : rules) {
+            Matcher matcher = FILTER_TERM.matcher(rule[0]);
+            boolean matches = true;
+            while (matches && matcher.find()) {
+                matches = matcher.group(2).equals(properties.get(matcher.group(1)));
+            }
+            if (matches) {
+                return rule[1].replace("${id}", properties.get("id"))
+                        .replace("${version}", properties.get("version"))
+                        .replace("${classifier}", properties.get("classifier"));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Makes sure every artifact of a mirrored repository is present at its location in the mirror, downloading the
+     * artifacts which are not in the store yet.
+     *
+     * @param base            location of the repository
+     * @param mirrorDirectory directory of the mirror
+     * @param artifactPaths   repository relative paths of the artifacts, each followed by its size and checksums
+     * @param refresh         whether the artifacts metadata changed, so every location is linked to the store again
+     * @throws IOException throws when unable to download or link an artifact
+     */
+    private void fetchArtifacts(String base, Path mirrorDirectory, List<String> artifactPaths, boolean refresh)
+            throws IOException {
+        List<String[]> missing = new ArrayList<>();
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        for (String artifactPath : artifactPaths) {
+            String[] fields = artifactPath.split("\\|", -1);
+            Path location = resolve(mirrorDirectory, fields[0]);
+            String storeKey = getStoreKey(fields);
+            if (storeKey == null) {
+                if (refresh || !hasSize(location, fields[1])) {
+                    missing.add(fields);
+                }
+                continue;
+            }
+            Path content = resolve(artifactStore, storeKey);
+            if (!hasSize(content, fields[1])) {
+                missing.add(fields);
+                continue;
+            }
+            Files.setLastModifiedTime(content, now);
+            if (refresh || !hasSize(location, fields[1])) {
+                FileCopier.copyFile(content, location, true);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        log.info("Downloading " + missing.size() + " artifacts of " + base);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_DOWNLOAD_THREADS, missing.size()));
+        try {
+            List<Future<Void>> results = new ArrayList<>(missing.size());
+            for (String[] fields : missing) {
+                results.add(executor.submit(() -> {
+                    fetchArtifact(base, mirrorDirectory, fields);
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading the artifacts of " + base, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to download the artifacts of " + base, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void fetchArtifact(String base, Path mirrorDirectory, String[] fields) throws IOException {
+        HttpURLConnection connection = open(base + "/" + fields[0]);
+        try {
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected response " + status + " for " + connection.getURL());
+            }
+            long size = fields[1].isEmpty() ? -1 : Long.parseLong(fields[1]);
+            Path location = resolve(mirrorDirectory, fields[0]);
+            String storeKey = getStoreKey(fields);
+            if (storeKey == null) {
+                download(connection, location, size, null);
+                return;
+            }
+            String[] checksum = !fields[2].isEmpty() ? new String[]{"SHA-256", fields[2]}
+                    : new String[]{"MD5", fields[3]};
+            Path content = resolve(artifactStore, storeKey);
+            download(connection, content, size, checksum);
+            FileCopier.copyFile(content, location, true);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Returns the path of an artifact in the store, derived from the checksum recorded for it.
+     *
+     * @param fields path, size, SHA-256 and MD5 checksums of the artifact
+     * @return {@code String} or {@code null} if no checksum is recorded for the artifact
+     */
+    private static String getStoreKey(String[] fields) {
+        if (!fields[2].isEmpty()) {
+            String digest = fields[2].toLowerCase(Locale.ENGLISH);
+            return "sha-256/" + digest.substring(0, Math.min(2, digest.length())) + "/" + digest;
+        }
+        if (!fields[3].isEmpty()) {
+            String digest = fields[3].toLowerCase(Locale.ENGLISH);
+            return "md5/" + digest.substring(0, Math.min(2, digest.length())) + "/" + digest;
+        }
+        return null;
+    }
+
+    private static Path resolve(Path directory, String path) throws IOException {
+        Path file = directory.resolve(path).normalize();
+        if (!file.startsWith(directory) || file.equals(directory)) {
+            throw new IOException("Artifact " + path + " is outside of " + directory);
+        }
+        return file;
+    }
+
+    private static boolean hasSize(Path file, String size) throws IOException {
+        return Files.isRegularFile(file) && (size.isEmpty() || Long.parseLong(size) == Files.size(file));
+    }
+
+    /**
+     * Removes the artifacts which are no longer in the mirrored repository from the mirror.
+     *
+     * @param mirrorDirectory directory of the mirror
+     * @param artifactPaths   repository relative paths of the artifacts, each followed by its size and checksums
+     * @throws IOException throws when unable to walk the mirror or delete an artifact
+     */
+    private static void removeStaleArtifacts(Path mirrorDirectory, List<String> artifactPaths) throws IOException {
+        Set<Path> locations = new HashSet<>();
+        for (String artifactPath : artifactPaths) {
+            locations.add(resolve(mirrorDirectory, artifactPath.split("\\|", -1)[0]));
+        }
+        Path remoteDirectory = mirrorDirectory.resolve(REMOTE_DIRECTORY);
+        Files.walkFileTree(mirrorDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(remoteDirectory) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!file.getParent().equals(mirrorDirectory) && !locations.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Downloads the response body into the given file, replacing it atomically once the body is verified.
+     *
+     * @param connection   connection with a successful response
+     * @param file         file to write
+     * @param expectedSize expected size of the body, or -1 if unknown
+     * @param checksum     algorithm and expected hex digest of the body, or {@code null} if unknown
+     * @throws IOException throws when unable to download the body or it does not match the expected size or checksum
+     */
+    private static void download(HttpURLConnection connection, Path file, long expectedSize, String[] checksum)
+            throws IOException {
+        Files.createDirectories(file.getParent());
+        MessageDigest digest = checksum == null ? null : newDigest(checksum[0]);
+        Path tempFile = FileManagementUtil.createTempFile(file.getParent(), file.getFileName().toString());
+        try {
+            long size = 0;
+            try (InputStream inputStream = connection.getInputStream();
+                 OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int length;
+                while ((length = inputStream.read(buffer)) > 0) {
+                    outputStream.write(buffer, 0, length);
+                    if (digest != null) {
+                        digest.update(buffer, 0, length);
+                    }
+                    size += length;
+                }
+            }
+            if (expectedSize >= 0 && size != expectedSize) {
+                throw new IOException("Downloaded " + size + " bytes instead of " + expectedSize + " from "
+                        + connection.getURL());
+            }
+            if (digest != null && !toHex(digest.digest()).equalsIgnoreCase(checksum[1])) {
+                throw new IOException(checksum[0] + " checksum mismatch for " + connection.getURL());
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Evicts the least recently used artifacts from the store until it fits its size cap. Artifacts used since the
+     * given time, or by a leased mirror, are never evicted. The locations of the mirrors linked to an evicted artifact
+     * are removed as well, so that the space is reclaimed, and those mirrors are completed again when they are next
+     * used. Called holding the lock of the store.
+     *
+     * @param startMillis time the current mirror run started at
+     * @throws IOException throws when unable to walk the store or delete an artifact
+     */
+    private void evict(long startMillis) throws IOException {
+        if (!Files.isDirectory(artifactStore)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long[] totalSize = new long[1];
+        Files.walkFileTree(artifactStore, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                files.add(file);
+                attributes.put(file, attrs);
+                totalSize[0] += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (totalSize[0] <= maxStoreBytes) {
+            return;
+        }
+        List<Path> unleasedMirrors = new ArrayList<>();
+        Set<String> leasedArtifacts = new HashSet<>();
+        for (Path mirrorDirectory : listMirrors()) {
+            if (isLeased(mirrorDirectory)) {
+                leasedArtifacts.addAll(readStoreKeys(mirrorDirectory).keySet());
+            } else {
+                unleasedMirrors.add(mirrorDirectory);
+            }
+        }
+        files.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+        Set<String> evicted = new HashSet<>();
+        long evictedSize = 0;
+        for (Path file : files) {
+            BasicFileAttributes attrs = attributes.get(file);
+            if (totalSize[0] - evictedSize <= maxStoreBytes || attrs.lastModifiedTime().toMillis() >= startMillis) {
+                break;
+            }
+            String storeKey = artifactStore.relativize(file).toString().replace('\\', '/');
+            if (!leasedArtifacts.contains(storeKey)) {
+                evicted.add(storeKey);
+                evictedSize += attrs.size();
+            }
+        }
+        if (evicted.isEmpty()) {
+            return;
+        }
+        unlinkEvicted(unleasedMirrors, evicted);
+        for (String storeKey : evicted) {
+            Files.deleteIfExists(artifactStore.resolve(storeKey));
+        }
+        log.info("Evicted " + evicted.size() + " artifacts (" + evictedSize + " bytes) from the p2 mirror "
+                + artifactStore);
+    }
+
+    private List<Path> listMirrors() throws IOException {
+        List<Path> mirrorDirectories = new ArrayList<>();
+        if (Files.isDirectory(repositoriesDirectory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(repositoriesDirectory, Files::isDirectory)) {
+                stream.forEach(mirrorDirectories::add);
+            }
+        }
+        return mirrorDirectories;
+    }
+
+    /**
+     * Returns the store paths of the artifacts of a mirror, mapped to their locations in the mirror.
+     *
+     * @param mirrorDirectory directory of the mirror
+     * @return {@code Map<String, String>} empty if the mirror is incomplete
+     * @throws IOException throws when unable to read the mirror
+     */
+    private static Map<String, String> readStoreKeys(Path mirrorDirectory) throws IOException {
+        Map<String, String> storeKeys = new HashMap<>();
+        Path artifactList = mirrorDirectory.resolve(ARTIFACT_LIST);
+        if (Files.isRegularFile(artifactList)) {
+            for (String artifactPath : Files.readAllLines(artifactList, StandardCharsets.UTF_8)) {
+                String[] fields = artifactPath.split("\\|", -1);
+                String storeKey = getStoreKey(fields);
+                if (storeKey != null) {
+                    storeKeys.put(storeKey, fields[0]);
+                }
+            }
+        }
+        return storeKeys;
+    }
+
+    /**
+     * Removes the locations linked to the given store artifacts from the given mirrors, marking the mirrors
+     * incomplete.
+     *
+     * @param mirrorDirectories directories of the mirrors, none of them leased
+     * @param evicted           store paths of the evicted artifacts
+     * @throws IOException throws when unable to read a mirror or delete a location
+     */
+    private static void unlinkEvicted(List<Path> mirrorDirectories, Set<String> evicted) throws IOException {
+        for (Path mirrorDirectory : mirrorDirectories) {
+            boolean unlinked = false;
+            for (Map.Entry<String, String> artifact : readStoreKeys(mirrorDirectory).entrySet()) {
+                if (evicted.contains(artifact.getKey())) {
+                    Files.deleteIfExists(resolve(mirrorDirectory, artifact.getValue()));
+                    unlinked = true;
+                }
+            }
+            if (unlinked) {
+                Files.delete(mirrorDirectory.resolve(ARTIFACT_LIST));
+            }
+        }
+    }
+
+    /**
+     * Returns whether a mirror is leased, by this or by another process. Leases are only taken holding the lock of
+     * the store, so the result holds as long as the caller holds it.
+     *
+     * @param mirrorDirectory directory of the mirror
+     * @return {@code boolean}
+     * @throws IOException throws when unable to open the lease file
+     */
+    private static boolean isLeased(Path mirrorDirectory) throws IOException {
+        synchronized (LEASES) {
+            if (LEASES.containsKey(mirrorDirectory)) {
+                return true;
+            }
+        }
+        Path leaseFile = mirrorDirectory.resolve(LEASE_FILE);
+        if (!Files.isRegularFile(leaseFile)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(leaseFile, StandardOpenOption.WRITE)) {
+            return channel.tryLock() == null;
+        } catch (OverlappingFileLockException e) {
+            return true;
+        }
+    }
+
+    private static HttpURLConnection open(String location) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(location).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setUseCaches(false);
+        return connection;
+    }
+
+    private static Properties loadProperties(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.isRegularFile(file)) {
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                properties.load(inputStream);
+            }
+        }
+        return properties;
+    }
+
+    private static void storeProperties(Properties properties, Path file) throws IOException {
+        Path tempFile = FileManagementUtil.createTempFile(file.getParent(), file.getFileName().toString());
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                properties.store(outputStream, null);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path tempFile = FileManagementUtil.createTempFile(file.getParent(), file.getFileName().toString());
+        try {
+            Files.write(tempFile, content);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void setOrRemove(Properties properties, String key, String value) {
+        if (value == null) {
+            properties.remove(key);
+        } else {
+            properties.setProperty(key, value);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        MessageDigest digest = newDigest("SHA-256");
+        return toHex(digest.digest(content));
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " is not supported by the JVM", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Lease of a mirror, keeping its artifacts from being evicted or removed until it is closed.
+     */
+    public static final class Lease implements Closeable {
+
+        private final URL location;
+        private final Path mirrorDirectory;
+        private boolean closed;
+
+        private Lease(URL location, Path mirrorDirectory) {
+            this.location = location;
+            this.mirrorDirectory = mirrorDirectory;
+        }
+
+        /**
+         * Leases the given mirror, locking its lease file unless this JVM has already leased it. Called holding the
+         * lock of the store.
+         *
+         * @param mirrorDirectory directory of the mirror
+         * @return {@link Lease}
+         * @throws IOException throws when unable to lock the lease file
+         */
+        private static Lease acquire(Path mirrorDirectory) throws IOException {
+            synchronized (LEASES) {
+                LeaseFile leaseFile = LEASES.get(mirrorDirectory);
+                if (leaseFile == null) {
+                    FileChannel channel = FileChannel.open(mirrorDirectory.resolve(LEASE_FILE),
+                            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    try {
+                        channel.lock(0, Long.MAX_VALUE, true);
+                    } catch (IOException | RuntimeException e) {
+                        channel.close();
+                        throw e;
+                    }
+                    leaseFile = new LeaseFile(channel);
+                    LEASES.put(mirrorDirectory, leaseFile);
+                }
+                leaseFile.holders++;
+            }
+            return new Lease(mirrorDirectory.toUri().toURL(), mirrorDirectory);
+        }
+
+        /**
+         * Returns the location to use the repository from.
+         *
+         * @return {@link URL} of the mirror, or of the repository itself if it is not mirrored
+         */
+        public URL getLocation() {
+            return location;
+        }
+
+        /**
+         * Releases the lease. The lease file is unlocked once no other lease of this JVM holds the mirror.
+         *
+         * @throws IOException throws when unable to unlock the lease file
+         */
+        @Override
+        public void close() throws IOException {
+            if (mirrorDirectory == null) {
+                return;
+            }
+            synchronized (LEASES) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                LeaseFile leaseFile = LEASES.get(mirrorDirectory);
+                if (--leaseFile.holders == 0) {
+                    LEASES.remove(mirrorDirectory);
+                    leaseFile.channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lease file of a mirror locked by this JVM, with the number of leases holding it.
+     */
+    private static final class LeaseFile {
+
+        private final FileChannel channel;
+        private int holders;
+
+        private LeaseFile(FileChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
@@ -28,18 +28,14 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -123,7 +119,9 @@ public class P2Utils {
     }
 
     /**
-     * Create the category file.
+     * Create the category file. The file is read as the category.xml of the category publisher, and as the site.xml
+     * of the update site publisher when the repository is categorized in a single pass, so each feature is listed
+     * with the url the site.xml format requires.
      *
      * @param project      Maven project
      * @param categories   categories list
@@ -135,7 +133,7 @@ public class P2Utils {
     public static void createCategoryFile(MavenProject project, List categories, File categoryFile)
             throws ParserConfigurationException, TransformerException, MojoExecutionException {
 
-        Map featureCategories = new HashMap();
+        Map featureCategories = new LinkedHashMap();
 
         Document doc = getManifestDocument();
         Element rootElement = doc.getDocumentElement();
@@ -156,6 +154,9 @@ public class P2Utils {
                 descriptionElement.setTextContent(cat.getDescription());
                 categoryDef.appendChild(descriptionElement);
                 ArrayList<CatFeature> processedFeatures = cat.getProcessedFeatures(project);
+                if (processedFeatures == null) {
+                    continue;
+                }
                 for (CatFeature feature : processedFeatures) {
                     if (!featureCategories.containsKey(feature.getId() + feature.getVersion())) {
                         ArrayList list = new ArrayList();
@@ -168,15 +169,17 @@ public class P2Utils {
             }
         }
 
-        for (Object object : featureCategories.entrySet()) {
+        for (Object object : featureCategories.values()) {
             if (object instanceof List) {
                 List list = (List) object;
                 CatFeature feature = (CatFeature) list.get(0);
                 list.remove(0);
 
+                String version = BundleUtils.getOSGIVersion(feature.getVersion());
                 Element featureDef = doc.createElement("feature");
+                featureDef.setAttribute("url", "features/" + feature.getId() + "_" + version + ".jar");
                 featureDef.setAttribute("id", feature.getId());
-                featureDef.setAttribute("version", BundleUtils.getOSGIVersion(feature.getVersion()));
+                featureDef.setAttribute("version", version);
                 for (Object catId : list) {
                     Element category = doc.createElement("category");
                     category.setAttribute("name", catId.toString());
@@ -187,13 +190,9 @@ public class P2Utils {
         }
 
         try {
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer;
-            transformer = transformerFactory.newTransformer();
+            Transformer transformer = XmlServices.getIndentingTransformer();
             DOMSource source = new DOMSource(doc);
             StreamResult result = new StreamResult(categoryFile);
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
             transformer.transform(source, result);
         } catch (TransformerConfigurationException e) {
             throw new TransformerConfigurationException("Unable to create feature manifest", e);
@@ -209,9 +208,6 @@ public class P2Utils {
      * @throws ParserConfigurationException throws when fail to build a new xml document
      */
     public static Document getManifestDocument() throws ParserConfigurationException {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder documentBuilder;
-        documentBuilder = documentBuilderFactory.newDocumentBuilder();
-        return documentBuilder.newDocument();
+        return XmlServices.getDocumentBuilder().newDocument();
     }
 }
@@ -0,0 +1,163 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts a zip archive into a folder. The archive is read through a {@link ZipFile}, so the directories of all the
+ * entries are known, and created, before any entry is extracted, and the entries are then extracted in parallel on a
+ * pool of worker threads.
+ * <p>
+ * Entries whose name would resolve outside of the destination folder, such as ones containing {@code ../}, are
+ * rejected and nothing is extracted from such an archive. An existing target, which may be a hard link to a file
+ * elsewhere, is deleted and the entry written to a new file with the default permissions, so the target is replaced
+ * rather than written through, and an entry which fails to extract is deleted rather than left partly written.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class ParallelZipExtractor {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final int threadCount;
+
+    /**
+     * Creates an extractor which extracts entries using one worker thread per available processor.
+     */
+    public ParallelZipExtractor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an extractor which extracts entries using the given number of worker threads.
+     *
+     * @param threadCount number of worker threads
+     */
+    public ParallelZipExtractor(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Extract the given zip archive into the given folder, overwriting existing files.
+     *
+     * @param archive     zip archive to be extracted
+     * @param destination folder to extract the archive into
+     * @throws IOException throws when an entry resolves outside of the folder, or when unable to read the archive or
+     *                     write an entry
+     */
+    public void extract(Path archive, Path destination) throws IOException {
+        Path root = destination.toAbsolutePath().normalize();
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            Set<Path> directories = new TreeSet<>();
+            Map<Path, ZipEntry> files = new LinkedHashMap<>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                Path target = root.resolve(entry.getName()).normalize();
+                if (!target.startsWith(root) || target.equals(root) && !entry.isDirectory()) {
+                    throw new IOException("Entry " + entry.getName() + " of " + archive
+                            + " is outside of the target directory " + root);
+                }
+                if (entry.isDirectory()) {
+                    directories.add(target);
+                } else {
+                    directories.add(target.getParent());
+                    files.put(target, entry);
+                }
+            }
+            for (Path directory : directories) {
+                Files.createDirectories(directory);
+            }
+            extractFiles(zipFile, files);
+        }
+    }
+
+    private void extractFiles(ZipFile zipFile, Map<Path, ZipEntry> files) throws IOException {
+        int workers = Math.min(threadCount, files.size());
+        if (workers <= 1) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (Map.Entry<Path, ZipEntry> file : files.entrySet()) {
+                extractFile(zipFile, file.getValue(), file.getKey(), buffer);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+        try {
+            List<Future<Void>> results = new ArrayList<>(files.size());
+            for (Map.Entry<Path, ZipEntry> file : files.entrySet()) {
+                results.add(executor.submit(() -> {
+                    extractFile(zipFile, file.getValue(), file.getKey(), buffers.get());
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting " + zipFile.getName(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error occurred while extracting " + zipFile.getName(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void extractFile(ZipFile zipFile, ZipEntry entry, Path target, byte[] buffer) throws IOException {
+        Files.deleteIfExists(target);
+        boolean extracted = false;
+        try (InputStream in = zipFile.getInputStream(entry);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                ByteBuffer data = ByteBuffer.wrap(buffer, 0, length);
+                while (data.hasRemaining()) {
+                    out.write(data);
+                }
+            }
+            extracted = true;
+        } finally {
+            if (!extracted) {
+                Files.deleteIfExists(target);
+            }
+        }
+    }
+}
@@ -0,0 +1,797 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Archives the content of a folder into a zip file. Entries are compressed in parallel on a pool of worker threads
+ * and written into the archive in the same order the folder is traversed, so the resulting archive has the same
+ * entry names and layout as one written sequentially with a {@link ZipOutputStream}.
+ * <p>
+ * Entries which are already compressed (.jar and .zip files) are stored as they are instead of being deflated again.
+ * </p>
+ * <p>
+ * The entries of other zip archives can be merged into the written archive without extracting them to disk. Their
+ * compressed data is copied into the new archive as it is, without being inflated and deflated again.
+ * </p>
+ * <p>
+ * A reproducible writer sorts the entries by name and gives them all the same fixed modification time, so that
+ * archiving the same content always produces the same bytes.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class ParallelZipWriter {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    private static final int LOCAL_HEADER_CRC_OFFSET = 14;
+    private static final int UTF8_NAMES_FLAG = 0x0800;
+    private static final int VERSION_STORED = 10;
+    private static final int VERSION_DEFLATED = 20;
+
+    /**
+     * Entries larger than this are streamed on the writing thread instead of being buffered in memory.
+     */
+    private static final long LARGE_ENTRY_THRESHOLD = 8L * 1024 * 1024;
+
+    /**
+     * Upper bound of the uncompressed bytes handed over to the workers but not yet written into the archive.
+     */
+    private static final long MAX_BUFFERED_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Archives larger than this, or having more entries than {@link #MAX_ENTRIES}, need the ZIP64 format and are
+     * written sequentially with a {@link ZipOutputStream}.
+     */
+    private static final long MAX_ARCHIVE_SIZE = 0xF0000000L;
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Modification time given to the entries of a reproducible archive, 1980-01-01 00:00:00 in MS-DOS format.
+     */
+    private static final int REPRODUCIBLE_DOS_TIME = (1 << 21) | (1 << 16);
+
+    private final int threadCount;
+    private final boolean reproducible;
+
+    /**
+     * Creates a writer which compresses entries using one worker thread per available processor.
+     */
+    public ParallelZipWriter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a writer which compresses entries using the given number of worker threads.
+     *
+     * @param threadCount number of worker threads
+     */
+    public ParallelZipWriter(int threadCount) {
+        this(threadCount, false);
+    }
+
+    /**
+     * Creates a writer which compresses entries using the given number of worker threads.
+     *
+     * @param threadCount  number of worker threads
+     * @param reproducible whether entries are sorted by name and written with a fixed modification time
+     */
+    public ParallelZipWriter(int threadCount, boolean reproducible) {
+        this.threadCount = Math.max(1, threadCount);
+        this.reproducible = reproducible;
+    }
+
+    /**
+     * Archive the content of the given folder into the given zip file. The folder itself is not added into the
+     * archive, only its children are.
+     *
+     * @param srcFolder   folder to be archived
+     * @param destZipFile zip file to be created
+     * @throws IOException throws when unable to read the folder or write the zip file
+     */
+    public void zipFolder(Path srcFolder, Path destZipFile) throws IOException {
+        zipFolder(srcFolder, Collections.emptyList(), destZipFile);
+    }
+
+    /**
+     * Archive the content of the given folder together with the entries of the given zip archives into the given
+     * zip file. The result is the same as extracting the archives into the folder, in the given order, and archiving
+     * the folder afterwards.
+     *
+     * @param srcFolder      folder to be archived
+     * @param mergedArchives zip archives whose entries are merged into the zip file
+     * @param destZipFile    zip file to be created
+     * @throws IOException throws when unable to read the folder or an archive, or write the zip file
+     */
+    public void zipFolder(Path srcFolder, List<Path> mergedArchives, Path destZipFile) throws IOException {
+        List<Closeable> openedArchives = new ArrayList<>();
+        try {
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            listEntries(srcFolder, entries);
+            for (Path archive : mergedArchives) {
+                listEntries(archive, entries, openedArchives);
+            }
+            List<Entry> sortedEntries = new ArrayList<>(entries.values());
+            if (reproducible) {
+                sortedEntries.sort(Comparator.comparing(entry -> entry.path));
+            }
+            zipEntries(sortedEntries, destZipFile);
+        } finally {
+            for (Closeable archive : openedArchives) {
+                archive.close();
+            }
+        }
+    }
+
+    private void zipEntries(List<Entry> entries, Path destZipFile) throws IOException {
+        long totalSize = 0;
+        for (Entry entry : entries) {
+            totalSize += entry.getStoredSize() + LOCAL_HEADER_LENGTH + CENTRAL_HEADER_LENGTH + 2 * entry.name.length;
+        }
+        if (entries.size() > MAX_ENTRIES || totalSize > MAX_ARCHIVE_SIZE) {
+            writeSequentially(entries, destZipFile, reproducible);
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try (FileChannel channel = FileChannel.open(destZipFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeInParallel(entries, channel, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Traverse the given folder and list the entries to be added into the archive. A directory entry always precedes
+     * the entries of its children, and children are listed in the order the file system returns them.
+     *
+     * @param srcFolder folder to be archived
+     * @param entries   entries in the order they should appear in the archive, keyed by entry name
+     * @throws IOException throws when unable to traverse the folder
+     */
+    private static void listEntries(Path srcFolder, Map<String, Entry> entries) throws IOException {
+        Files.walkFileTree(srcFolder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        if (!dir.equals(srcFolder)) {
+                            String name = getEntryName(srcFolder, dir) + "/";
+                            entries.put(name, new Entry(name, 0));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        String name = getEntryName(srcFolder, file);
+                        Entry entry = new Entry(name, attrs.size());
+                        entry.file = file;
+                        entries.put(name, entry);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    /**
+     * List the entries of the given zip archive. An entry replaces an already listed entry having the same name but
+     * keeps its position, the same way extracting the archive would overwrite the file.
+     *
+     * @param archive        zip archive to be merged
+     * @param entries        entries in the order they should appear in the archive, keyed by entry name
+     * @param openedArchives collects the opened archive files, to be closed once the archive is written
+     * @throws IOException throws when unable to read the archive
+     */
+    private static void listEntries(Path archive, Map<String, Entry> entries, List<Closeable> openedArchives)
+            throws IOException {
+        ZipFile zipFile = new ZipFile(archive.toFile());
+        openedArchives.add(zipFile);
+        FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ);
+        openedArchives.add(channel);
+        Map<String, RawData> rawData = readRawData(channel);
+
+        Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+        while (zipEntries.hasMoreElements()) {
+            ZipEntry zipEntry = zipEntries.nextElement();
+            String name = zipEntry.getName();
+            if (zipEntry.isDirectory()) {
+                entries.putIfAbsent(name, new Entry(name, 0));
+                continue;
+            }
+            Entry entry = new Entry(name, zipEntry.getSize());
+            entry.archive = zipFile;
+            entry.archiveEntry = zipEntry;
+            entry.raw = rawData == null ? null : rawData.get(name);
+            entries.put(name, entry);
+        }
+    }
+
+    /**
+     * Read the central directory of a zip archive to find where the compressed data of each entry is located.
+     *
+     * @param channel channel of the zip archive
+     * @return {@code Map<String, RawData>} keyed by entry name, or {@code null} if the archive uses features (ZIP64,
+     * encryption, uncommon compression methods) which prevent copying its data as it is
+     * @throws IOException throws when unable to read the archive
+     */
+    private static Map<String, RawData> readRawData(FileChannel channel) throws IOException {
+        long archiveSize = channel.size();
+        int tailLength = (int) Math.min(archiveSize, END_OF_CENTRAL_DIRECTORY_LENGTH + 0xFFFF);
+        ByteBuffer tail = readFully(channel, archiveSize - tailLength, tailLength);
+        int endPosition = -1;
+        for (int i = tailLength - END_OF_CENTRAL_DIRECTORY_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                endPosition = i;
+                break;
+            }
+        }
+        if (endPosition < 0) {
+            return null;
+        }
+        int entryCount = tail.getShort(endPosition + 10) & 0xFFFF;
+        long directorySize = tail.getInt(endPosition + 12) & 0xFFFFFFFFL;
+        long directoryOffset = tail.getInt(endPosition + 16) & 0xFFFFFFFFL;
+        if (entryCount == 0xFFFF || directoryOffset == 0xFFFFFFFFL
+                || directoryOffset + directorySize > archiveSize) {
+            return null;
+        }
+
+        ByteBuffer directory = readFully(channel, directoryOffset, (int) directorySize);
+        Map<String, RawData> rawData = new HashMap<>();
+        int position = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (directory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                return null;
+            }
+            int flags = directory.getShort(position + 8) & 0xFFFF;
+            int method = directory.getShort(position + 10) & 0xFFFF;
+            long crc = directory.getInt(position + 16) & 0xFFFFFFFFL;
+            long compressedSize = directory.getInt(position + 20) & 0xFFFFFFFFL;
+            long size = directory.getInt(position + 24) & 0xFFFFFFFFL;
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+            if ((flags & 1) != 0 || (method != ZipEntry.STORED && method != ZipEntry.DEFLATED)
+                    || compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+                return null;
+            }
+            byte[] name = new byte[nameLength];
+            ByteBuffer nameBuffer = directory.duplicate();
+            nameBuffer.position(position + CENTRAL_HEADER_LENGTH);
+            nameBuffer.get(name);
+
+            ByteBuffer localHeader = readFully(channel, localHeaderOffset, LOCAL_HEADER_LENGTH);
+            long dataOffset = localHeaderOffset + LOCAL_HEADER_LENGTH + (localHeader.getShort(26) & 0xFFFF)
+                    + (localHeader.getShort(28) & 0xFFFF);
+            rawData.put(new String(name, StandardCharsets.UTF_8),
+                    new RawData(channel, dataOffset, method, crc, compressedSize));
+            position += CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+        }
+        return rawData;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = newBuffer(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of zip archive");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String getEntryName(Path srcFolder, Path path) {
+        StringBuilder name = new StringBuilder();
+        for (Path element : srcFolder.relativize(path)) {
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(element.toString());
+        }
+        return name.toString();
+    }
+
+    /**
+     * Compress the entries on the given executor and write them into the channel in their listed order. Only a
+     * bounded amount of data is handed over to the workers ahead of the writer.
+     *
+     * @param entries  entries to be written
+     * @param channel  channel of the zip file
+     * @param executor executor which compresses the entries
+     * @throws IOException throws when unable to read an entry or write the zip file
+     */
+    private void writeInParallel(List<Entry> entries, FileChannel channel, ExecutorService executor)
+            throws IOException {
+        int dosTime = reproducible ? REPRODUCIBLE_DOS_TIME : toDosTime(System.currentTimeMillis());
+        List<CentralRecord> centralRecords = new ArrayList<>(entries.size());
+        Deque<Future<CompressedEntry>> inFlight = new ArrayDeque<>();
+        long bufferedBytes = 0;
+        int next = 0;
+        for (Entry entry : entries) {
+            while (next < entries.size() && (inFlight.isEmpty() || bufferedBytes < MAX_BUFFERED_BYTES)) {
+                Entry pending = entries.get(next++);
+                if (pending.isBuffered()) {
+                    bufferedBytes += pending.size;
+                    inFlight.add(executor.submit(() -> compress(pending)));
+                } else {
+                    inFlight.add(CompletableFuture.completedFuture(null));
+                }
+            }
+            CompressedEntry compressed = await(inFlight.poll());
+            long offset = channel.position();
+            if (entry.isDirectory()) {
+                writeLocalHeader(channel, entry.name, ZipEntry.STORED, dosTime, 0, 0, 0);
+                centralRecords.add(new CentralRecord(entry.name, ZipEntry.STORED, dosTime, 0, 0, 0, offset));
+            } else if (entry.raw != null) {
+                RawData raw = entry.raw;
+                writeLocalHeader(channel, entry.name, raw.method, dosTime, raw.crc, raw.compressedSize, entry.size);
+                long position = raw.offset;
+                long end = raw.offset + raw.compressedSize;
+                while (position < end) {
+                    long transferred = raw.channel.transferTo(position, end - position, channel);
+                    if (transferred <= 0) {
+                        throw new EOFException("Unexpected end of zip archive");
+                    }
+                    position += transferred;
+                }
+                centralRecords.add(new CentralRecord(entry.name, raw.method, dosTime, raw.crc, raw.compressedSize,
+                        entry.size, offset));
+            } else if (compressed == null) {
+                centralRecords.add(stream(entry, channel, dosTime));
+            } else {
+                bufferedBytes -= entry.size;
+                int compressedSize = compressed.data.size();
+                writeLocalHeader(channel, entry.name, compressed.method, dosTime, compressed.crc, compressedSize,
+                        entry.size);
+                writeFully(channel, compressed.data.toByteBuffer());
+                centralRecords.add(new CentralRecord(entry.name, compressed.method, dosTime, compressed.crc,
+                        compressedSize, entry.size, offset));
+            }
+        }
+        writeCentralDirectory(channel, centralRecords);
+    }
+
+    /**
+     * Read and compress a single entry. Runs on a worker thread.
+     *
+     * @param entry entry to be compressed
+     * @return {@link CompressedEntry} holding the compressed data
+     * @throws IOException throws when unable to read the entry
+     */
+    private static CompressedEntry compress(Entry entry) throws IOException {
+        byte[] content = entry.readContent();
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+        ExposedByteArrayOutputStream data = new ExposedByteArrayOutputStream(entry.isStored() ? content.length :
+                content.length / 2 + 64);
+        if (entry.isStored()) {
+            data.write(content, 0, content.length);
+            return new CompressedEntry(ZipEntry.STORED, crc.getValue(), data);
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(data, deflater, BUFFER_SIZE)) {
+            deflaterStream.write(content, 0, content.length);
+        } finally {
+            deflater.end();
+        }
+        return new CompressedEntry(ZipEntry.DEFLATED, crc.getValue(), data);
+    }
+
+    /**
+     * Stream a large entry straight into the channel and patch its local header once the CRC and the compressed size
+     * are known.
+     *
+     * @param entry   entry to be written
+     * @param channel channel of the zip file
+     * @param dosTime modification time of the entry in MS-DOS format
+     * @return {@link CentralRecord} describing the written entry
+     * @throws IOException throws when unable to read the entry or write the zip file
+     */
+    private static CentralRecord stream(Entry entry, FileChannel channel, int dosTime) throws IOException {
+        int method = entry.isStored() ? ZipEntry.STORED : ZipEntry.DEFLATED;
+        long offset = channel.position();
+        writeLocalHeader(channel, entry.name, method, dosTime, 0, 0, 0);
+        long dataStart = channel.position();
+        CRC32 crc = new CRC32();
+        long size = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (ReadableByteChannel in = entry.openChannel()) {
+            if (method == ZipEntry.STORED) {
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    size += buffer.remaining();
+                    crc.update(buffer.duplicate());
+                    writeFully(channel, buffer);
+                    buffer.clear();
+                }
+            } else {
+                Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                byte[] chunk = new byte[BUFFER_SIZE];
+                try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(
+                        new ChannelOutputStream(channel), deflater, BUFFER_SIZE)) {
+                    while (in.read(buffer) != -1) {
+                        buffer.flip();
+                        int length = buffer.remaining();
+                        buffer.get(chunk, 0, length);
+                        crc.update(chunk, 0, length);
+                        deflaterStream.write(chunk, 0, length);
+                        size += length;
+                        buffer.clear();
+                    }
+                } finally {
+                    deflater.end();
+                }
+            }
+        }
+        long compressedSize = channel.position() - dataStart;
+        ByteBuffer sizes = newBuffer(12);
+        sizes.putInt((int) crc.getValue());
+        sizes.putInt((int) compressedSize);
+        sizes.putInt((int) size);
+        sizes.flip();
+        long patchPosition = offset + LOCAL_HEADER_CRC_OFFSET;
+        while (sizes.hasRemaining()) {
+            patchPosition += channel.write(sizes, patchPosition);
+        }
+        return new CentralRecord(entry.name, method, dosTime, crc.getValue(), compressedSize, size, offset);
+    }
+
+    private static void writeLocalHeader(FileChannel channel, byte[] name, int method, int dosTime, long crc,
+                                         long compressedSize, long size) throws IOException {
+        ByteBuffer header = newBuffer(LOCAL_HEADER_LENGTH + name.length);
+        header.putInt(LOCAL_HEADER_SIGNATURE);
+        header.putShort((short) getVersion(method));
+        header.putShort((short) UTF8_NAMES_FLAG);
+        header.putShort((short) method);
+        header.putInt(dosTime);
+        header.putInt((int) crc);
+        header.putInt((int) compressedSize);
+        header.putInt((int) size);
+        header.putShort((short) name.length);
+        header.putShort((short) 0);
+        header.put(name);
+        header.flip();
+        writeFully(channel, header);
+    }
+
+    private static void writeCentralDirectory(FileChannel channel, List<CentralRecord> records) throws IOException {
+        long start = channel.position();
+        for (CentralRecord record : records) {
+            ByteBuffer header = newBuffer(CENTRAL_HEADER_LENGTH + record.name.length);
+            header.putInt(CENTRAL_HEADER_SIGNATURE);
+            header.putShort((short) getVersion(record.method));
+            header.putShort((short) getVersion(record.method));
+            header.putShort((short) UTF8_NAMES_FLAG);
+            header.putShort((short) record.method);
+            header.putInt(record.dosTime);
+            header.putInt((int) record.crc);
+            header.putInt((int) record.compressedSize);
+            header.putInt((int) record.size);
+            header.putShort((short) record.name.length);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putInt(0);
+            header.putInt((int) record.offset);
+            header.put(record.name);
+            header.flip();
+            writeFully(channel, header);
+        }
+        long size = channel.position() - start;
+        ByteBuffer end = newBuffer(END_OF_CENTRAL_DIRECTORY_LENGTH);
+        end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) records.size());
+        end.putShort((short) records.size());
+        end.putInt((int) size);
+        end.putInt((int) start);
+        end.putShort((short) 0);
+        end.flip();
+        writeFully(channel, end);
+    }
+
+    /**
+     * Fallback for archives which need the ZIP64 format. Writes the listed entries one by one.
+     *
+     * @param entries     entries to be written
+     * @param destZipFile  zip file to be created
+     * @param reproducible whether entries are written with a fixed modification time
+     * @throws IOException throws when unable to read an entry or write the zip file
+     */
+    private static void writeSequentially(List<Entry> entries, Path destZipFile, boolean reproducible)
+            throws IOException {
+        long time = LocalDateTime.of(1980, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(destZipFile),
+                BUFFER_SIZE))) {
+            for (Entry entry : entries) {
+                ZipEntry zipEntry = new ZipEntry(entry.path);
+                if (reproducible) {
+                    zipEntry.setTime(time);
+                }
+                zip.putNextEntry(zipEntry);
+                if (!entry.isDirectory()) {
+                    try (InputStream in = Channels.newInputStream(entry.openChannel())) {
+                        int length;
+                        while ((length = in.read(buffer)) > 0) {
+                            zip.write(buffer, 0, length);
+                        }
+                    }
+                }
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private static CompressedEntry await(Future<CompressedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while archiving", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error occurred while archiving", e.getCause());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int getVersion(int method) {
+        return method == ZipEntry.DEFLATED ? VERSION_DEFLATED : VERSION_STORED;
+    }
+
+    /**
+     * Converts a Java time into the MS-DOS date and time format used in zip headers.
+     *
+     * @param time milliseconds since the epoch
+     * @return {@code int} MS-DOS date and time
+     */
+    static int toDosTime(long time) {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time),
+                ZoneId.systemDefault());
+        if (dateTime.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (dateTime.getYear() - 1980) << 25 | dateTime.getMonthValue() << 21 | dateTime.getDayOfMonth() << 16
+                | dateTime.getHour() << 11 | dateTime.getMinute() << 5 | dateTime.getSecond() >> 1;
+    }
+
+    /**
+     * A file or directory to be added into the archive. The content of a file entry is either read from a file in the
+     * folder being archived or from an entry of a merged archive.
+     */
+    private static class Entry {
+        private final String path;
+        private final byte[] name;
+        private final long size;
+        private Path file;
+        private ZipFile archive;
+        private ZipEntry archiveEntry;
+        private RawData raw;
+
+        Entry(String path, long size) {
+            this.path = path;
+            this.name = path.getBytes(StandardCharsets.UTF_8);
+            this.size = size;
+        }
+
+        boolean isDirectory() {
+            return file == null && archive == null;
+        }
+
+        boolean isStored() {
+            String lowerCaseName = path.toLowerCase(Locale.ENGLISH);
+            return lowerCaseName.endsWith(".jar") || lowerCaseName.endsWith(".zip");
+        }
+
+        boolean isBuffered() {
+            return !isDirectory() && raw == null && size <= LARGE_ENTRY_THRESHOLD;
+        }
+
+        long getStoredSize() {
+            return raw != null ? raw.compressedSize : size;
+        }
+
+        ReadableByteChannel openChannel() throws IOException {
+            if (file != null) {
+                return FileChannel.open(file, StandardOpenOption.READ);
+            }
+            return Channels.newChannel(archive.getInputStream(archiveEntry));
+        }
+
+        byte[] readContent() throws IOException {
+            if (file != null) {
+                return Files.readAllBytes(file);
+            }
+            byte[] content = new byte[(int) size];
+            try (InputStream in = archive.getInputStream(archiveEntry)) {
+                int offset = 0;
+                int length;
+                while (offset < content.length && (length = in.read(content, offset, content.length - offset)) > 0) {
+                    offset += length;
+                }
+                if (offset != content.length) {
+                    throw new EOFException("Unexpected end of " + path + " in " + archive.getName());
+                }
+            }
+            return content;
+        }
+    }
+
+    /**
+     * Location and description of the compressed data of an entry in a merged archive.
+     */
+    private static class RawData {
+        private final FileChannel channel;
+        private final long offset;
+        private final int method;
+        private final long crc;
+        private final long compressedSize;
+
+        RawData(FileChannel channel, long offset, int method, long crc, long compressedSize) {
+            this.channel = channel;
+            this.offset = offset;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+        }
+    }
+
+    /**
+     * Compressed content of an entry, produced by a worker thread.
+     */
+    private static class CompressedEntry {
+        private final int method;
+        private final long crc;
+        private final ExposedByteArrayOutputStream data;
+
+        CompressedEntry(int method, long crc, ExposedByteArrayOutputStream data) {
+            this.method = method;
+            this.crc = crc;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Details of a written entry needed for the central directory.
+     */
+    private static class CentralRecord {
+        private final byte[] name;
+        private final int method;
+        private final int dosTime;
+        private final long crc;
+        private final long compressedSize;
+        private final long size;
+        private final long offset;
+
+        CentralRecord(byte[] name, int method, int dosTime, long crc, long compressedSize, long size, long offset) {
+            this.name = name;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * {@link ByteArrayOutputStream} which exposes its buffer to avoid copying it before writing into the channel.
+     */
+    private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+        ExposedByteArrayOutputStream(int size) {
+            super(Math.max(32, size));
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    /**
+     * Output stream writing into the current position of a {@link FileChannel}.
+     */
+    private static class ChannelOutputStream extends OutputStream {
+        private final FileChannel channel;
+
+        ChannelOutputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writeFully(channel, ByteBuffer.wrap(b, off, len));
+        }
+
+        @Override
+        public void close() {
+            // the channel is owned and closed by the writer
+        }
+    }
+}
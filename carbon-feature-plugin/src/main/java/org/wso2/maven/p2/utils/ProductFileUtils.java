@@ -30,7 +30,6 @@ import java.io.StringWriter;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 
@@ -79,8 +78,7 @@ public class ProductFileUtils {
                 .lineSeparator()).append("<?pde version=\"").append(productFileConfig.getPdeVersion().toString())
                 .append("\"?>").append(System.lineSeparator());
 
-        JAXBContext jaxbContext = JAXBContext.newInstance(Product.class);
-        Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
+        Marshaller jaxbMarshaller = XmlServices.getMarshaller(Product.class);
 
         jaxbMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
         jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
@@ -0,0 +1,159 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.tycho.plugins.p2.director.runtime.StandaloneDirectorRuntimeFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Standalone p2 director runtime shared by all the goals of a maven session.
+ * <p>
+ * Provisioning a standalone director is a forked director run on its own. The shared runtime is provisioned once,
+ * under the target directory of the execution root, and every later director run of the session is launched on a
+ * copy of it made for the project running it. The bundles of the copy are hard links to the shared runtime where the
+ * file system allows it, so a copy only costs its configuration area. Each project launching on its own configuration
+ * area keeps the modules of a parallel build from running frameworks on the same configuration area, which Equinox
+ * does not support, while the framework of the later runs of a project still starts from its cached state.
+ * </p>
+ * <p>
+ * Each location is provisioned by the first goal asking for it, and the goals asking for the same location at the
+ * same time wait for that one, while the copies of different projects are made concurrently.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class SharedDirectorRuntime {
+
+    private static final String RUNTIME_DIRECTORY = "carbon-p2-director";
+
+    private static final String CONFIGURATION_DIRECTORY = "configuration";
+
+    private static final ConcurrentMap<File, FutureTask<Void>> PROVISIONED = new ConcurrentHashMap<>();
+
+    /**
+     * Prevent instantiating the utility class.
+     */
+    private SharedDirectorRuntime() {
+    }
+
+    /**
+     * Returns the location of the project's copy of the shared director runtime, provisioning the shared runtime if
+     * this is the first use in the session or the runtime has been removed since.
+     *
+     * @param session                       current maven session
+     * @param project                       project running the director
+     * @param standaloneDirectorFactory     factory used to provision the runtime
+     * @param forkedProcessTimeoutInSeconds timeout of the director run provisioning the runtime
+     * @return location of the project's copy of the shared director runtime
+     * @throws MojoExecutionException throws when unable to provision or copy the runtime
+     */
+    public static File getRuntimeLocation(MavenSession session, MavenProject project,
+                                          StandaloneDirectorRuntimeFactory standaloneDirectorFactory,
+                                          int forkedProcessTimeoutInSeconds) throws MojoExecutionException {
+        File runtimeLocation = new File(new File(session.getExecutionRootDirectory(), "target"), RUNTIME_DIRECTORY)
+                .getAbsoluteFile();
+        File projectRuntimeLocation = new File(project.getBuild().getDirectory(), RUNTIME_DIRECTORY)
+                .getAbsoluteFile();
+        if (projectRuntimeLocation.equals(runtimeLocation)) {
+            // The execution root project has a copy of its own as well, as other projects copy the shared runtime.
+            projectRuntimeLocation = new File(project.getBuild().getDirectory(), RUNTIME_DIRECTORY + "-project")
+                    .getAbsoluteFile();
+        }
+        provision(runtimeLocation, () -> {
+            standaloneDirectorFactory.createStandaloneDirector(runtimeLocation, session.getLocalRepository(),
+                    forkedProcessTimeoutInSeconds);
+            return null;
+        });
+        File copyLocation = projectRuntimeLocation;
+        provision(copyLocation, () -> {
+            copy(runtimeLocation, copyLocation);
+            return null;
+        });
+        return projectRuntimeLocation;
+    }
+
+    /**
+     * Provisions a runtime location unless it has been provisioned in the session and still has its configuration
+     * area, waiting for the goal provisioning it if there is one.
+     *
+     * @param location    runtime location
+     * @param provisioner provisions the location
+     * @throws MojoExecutionException throws when unable to provision the location
+     */
+    private static void provision(File location, Callable<Void> provisioner) throws MojoExecutionException {
+        while (true) {
+            FutureTask<Void> task = PROVISIONED.get(location);
+            if (task != null && task.isDone() && !new File(location, CONFIGURATION_DIRECTORY).isDirectory()) {
+                // The runtime has been removed since it was provisioned.
+                PROVISIONED.remove(location, task);
+                continue;
+            }
+            if (task == null) {
+                FutureTask<Void> newTask = new FutureTask<>(provisioner);
+                task = PROVISIONED.putIfAbsent(location, newTask);
+                if (task == null) {
+                    task = newTask;
+                    task.run();
+                }
+            }
+            try {
+                task.get();
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while provisioning the director runtime " + location, e);
+            } catch (ExecutionException e) {
+                PROVISIONED.remove(location, task);
+                if (e.getCause() instanceof MojoExecutionException) {
+                    throw (MojoExecutionException) e.getCause();
+                }
+                throw new MojoExecutionException("Unable to provision the director runtime " + location, e.getCause());
+            }
+        }
+    }
+
+    private static void copy(File runtimeLocation, File projectRuntimeLocation) throws MojoExecutionException {
+        try {
+            DirectoryDeleter.delete(projectRuntimeLocation.toPath());
+            File[] children = runtimeLocation.listFiles();
+            if (children == null) {
+                throw new IOException("Unable to list " + runtimeLocation);
+            }
+            for (File child : children) {
+                Path target = new File(projectRuntimeLocation, child.getName()).toPath();
+                if (child.isDirectory()) {
+                    FileCopier.copyDirectory(child.toPath(), target, !CONFIGURATION_DIRECTORY.equals(child.getName()));
+                } else {
+                    FileCopier.copyFile(child.toPath(), target, false);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to copy the director runtime " + runtimeLocation + " to "
+                    + projectRuntimeLocation, e);
+        }
+    }
+}
@@ -85,10 +85,21 @@ public class StandaloneManager {
         programArguments.add(P2Constants.Launcher.ROAMING);
     }
 
+    /**
+     * Sets the StandaloneDirectorRuntime's arguments to uninstall features in the same run as installing features.
+     *
+     * @param uninstallIUs comma separated list of IUs to uninstall, each in the form {@code <id>[/<version>]}
+     */
+    public void addArgumentsToUninstallFeatures(String uninstallIUs) {
+        programArguments.add(P2Constants.Launcher.UNINSTALLIU);
+        programArguments.add(uninstallIUs);
+    }
+
     /**
      * Calls the Eclipse Launcher to perform the action such as install the set of features.
      *
-     * @param installIU     The feature (UI) that is to be install.
+     * @param installIU     The feature (UI) that is to be install. May be empty when the run only uninstalls
+     *                      features.
      * @param forkedProcessTimeoutInSeconds int
      * @throws MojoFailureException throws when unable to perform the p2 activity
      */
@@ -96,13 +107,19 @@ public class StandaloneManager {
         int index = programArguments.indexOf(P2Constants.Launcher.INSTALLIU);
         if (index >= 0) {
             programArguments.set(index + 1, installIU);
-        } else {
+        } else if (!installIU.isEmpty()) {
             programArguments.add(P2Constants.Launcher.INSTALLIU);
             programArguments.add(installIU);
         }
 
         LaunchConfiguration launch = new EquinoxInstallationLaunchConfiguration(runtimeLocation, programArguments);
-        int result = launcher.execute(launch, forkedProcessTimeoutInSeconds);
+        int result;
+        long startNanos = System.nanoTime();
+        try {
+            result = launcher.execute(launch, forkedProcessTimeoutInSeconds);
+        } finally {
+            BuildMetrics.recordForkedProcess(startNanos);
+        }
         if (result != 0) {
             throw new MojoFailureException("P2 publisher return code was " + result);
         }
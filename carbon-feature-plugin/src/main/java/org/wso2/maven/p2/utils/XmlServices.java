@@ -0,0 +1,167 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+/**
+ * XML factories shared by all the goals of a build.
+ * <p>
+ * Looking up an XML factory scans the class path for a provider, and creating a JAXB context introspects the whole
+ * bean graph, which together add up to seconds in a large reactor. The factories and JAXB contexts are created once
+ * per plugin class loader and kept here. Builders, transformers and marshallers are not thread safe, so one of each
+ * is handed out per thread and reset before it is reused.
+ * </p>
+ *
+ * @since 3.1.6
+ */
+public class XmlServices {
+
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+    private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+
+    private static final Map<Class<?>, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<>();
+    private static final ThreadLocal<Transformer> TRANSFORMER = new ThreadLocal<>();
+    private static final ThreadLocal<Map<Class<?>, Marshaller>> MARSHALLERS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Prevent instantiating the utility class.
+     */
+    private XmlServices() {
+    }
+
+    /**
+     * Returns the document builder of the current thread.
+     *
+     * @return {@link DocumentBuilder}
+     * @throws ParserConfigurationException throws when unable to create the document builder
+     */
+    public static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder documentBuilder = DOCUMENT_BUILDER.get();
+        if (documentBuilder == null) {
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                documentBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            }
+            DOCUMENT_BUILDER.set(documentBuilder);
+        } else {
+            documentBuilder.reset();
+        }
+        return documentBuilder;
+    }
+
+    /**
+     * Returns the transformer of the current thread, configured to serialize a document indented by two spaces.
+     *
+     * @return {@link Transformer}
+     * @throws TransformerConfigurationException throws when unable to create the transformer
+     */
+    public static Transformer getIndentingTransformer() throws TransformerConfigurationException {
+        Transformer transformer = TRANSFORMER.get();
+        if (transformer == null) {
+            synchronized (TRANSFORMER_FACTORY) {
+                transformer = TRANSFORMER_FACTORY.newTransformer();
+            }
+            TRANSFORMER.set(transformer);
+        } else {
+            transformer.reset();
+        }
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+        return transformer;
+    }
+
+    /**
+     * Returns the shared XML output factory. The factory is not configured any further once created, so it can be
+     * used from any thread.
+     *
+     * @return {@link XMLOutputFactory}
+     */
+    public static XMLOutputFactory getXMLOutputFactory() {
+        return XML_OUTPUT_FACTORY;
+    }
+
+    /**
+     * Returns the shared XML input factory, configured not to process DTDs or external entities. The factory is not
+     * configured any further once created, so it can be used from any thread.
+     *
+     * @return {@link XMLInputFactory}
+     */
+    public static XMLInputFactory getXMLInputFactory() {
+        return XML_INPUT_FACTORY;
+    }
+
+    /**
+     * Returns the marshaller of the current thread for the given JAXB bound class. The properties of the marshaller
+     * are kept between uses, so callers set the ones they depend on.
+     *
+     * @param type JAXB bound class
+     * @return {@link Marshaller}
+     * @throws JAXBException throws when unable to create the JAXB context or the marshaller
+     */
+    public static Marshaller getMarshaller(Class<?> type) throws JAXBException {
+        Map<Class<?>, Marshaller> marshallers = MARSHALLERS.get();
+        Marshaller marshaller = marshallers.get(type);
+        if (marshaller == null) {
+            marshaller = getJAXBContext(type).createMarshaller();
+            marshallers.put(type, marshaller);
+        }
+        return marshaller;
+    }
+
+    /**
+     * Returns the JAXB context of the given class, creating it on first use. JAXB contexts are thread safe.
+     *
+     * @param type JAXB bound class
+     * @return {@link JAXBContext}
+     * @throws JAXBException throws when unable to create the JAXB context
+     */
+    public static JAXBContext getJAXBContext(Class<?> type) throws JAXBException {
+        JAXBContext context = JAXB_CONTEXTS.get(type);
+        if (context == null) {
+            context = JAXBContext.newInstance(type);
+            JAXBContext existing = JAXB_CONTEXTS.putIfAbsent(type, context);
+            if (existing != null) {
+                context = existing;
+            }
+        }
+        return context;
+    }
+
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.profile;
+
+import junit.framework.TestCase;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.wso2.maven.p2.utils.DirectoryDeleter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Tests {@link RuntimeCompactor} on a runtime with one profile and two snapshots. The older snapshot also refers to
+ * bundle b, the pool's artifact repository also lists bundle c and feature g, and the pool holds bundles which the
+ * artifact repository does not list.
+ */
+public class RuntimeCompactorTest extends TestCase {
+
+    private static final String BUNDLE = "osgi.bundle";
+    private static final String FEATURE = "org.eclipse.update.feature";
+
+    private Path destination;
+    private Path bundlePool;
+    private Path profileDirectory;
+
+    @Override
+    protected void setUp() throws Exception {
+        destination = Files.createTempDirectory("runtime-compactor-test");
+        bundlePool = Files.createDirectories(destination.resolve("lib"));
+        profileDirectory = Files.createDirectories(bundlePool.resolve(
+                "p2/org.eclipse.equinox.p2.engine/profileRegistry/default.profile"));
+        writeProfile("1000.profile", BUNDLE + ":a", BUNDLE + ":b", FEATURE + ":f");
+        writeProfile("2000.profile", BUNDLE + ":a", FEATURE + ":f");
+
+        write("plugins/a_1.0.0.jar");
+        write("plugins/b_1.0.0.jar");
+        write("plugins/c_1.0.0/META-INF/MANIFEST.MF");
+        write("plugins/dropin_1.0.0.jar");
+        write("plugins/a_2.0.0.jar");
+        write("features/f_1.0.0/feature.xml");
+        write("features/g_1.0.0/feature.xml");
+        write("binary/launcher_1.0.0");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        DirectoryDeleter.delete(destination);
+    }
+
+    public void testCompact() throws IOException {
+        Files.write(bundlePool.resolve("artifacts.xml"), createArtifactRepository().getBytes(StandardCharsets.UTF_8));
+
+        RuntimeCompactor compactor = compact(false);
+        assertEquals(1, compactor.getRemovedSnapshots());
+        assertEquals(3, compactor.getRemovedArtifacts());
+        assertTrue(compactor.getReclaimedBytes() > 0);
+
+        assertFalse(Files.exists(profileDirectory.resolve("1000.profile")));
+        assertTrue(Files.exists(profileDirectory.resolve("2000.profile")));
+        assertTrue(Files.exists(bundlePool.resolve("plugins/a_1.0.0.jar")));
+        assertTrue(Files.exists(bundlePool.resolve("features/f_1.0.0/feature.xml")));
+        assertTrue(Files.exists(bundlePool.resolve("plugins/dropin_1.0.0.jar")));
+        assertTrue(Files.exists(bundlePool.resolve("plugins/a_2.0.0.jar")));
+        assertTrue(Files.exists(bundlePool.resolve("binary/launcher_1.0.0")));
+        assertFalse(Files.exists(bundlePool.resolve("plugins/b_1.0.0.jar")));
+        assertFalse(Files.exists(bundlePool.resolve("plugins/c_1.0.0")));
+        assertFalse(Files.exists(bundlePool.resolve("features/g_1.0.0")));
+
+        String artifacts = new String(Files.readAllBytes(bundlePool.resolve("artifacts.xml")), StandardCharsets.UTF_8);
+        assertTrue(artifacts, artifacts.contains("<artifacts size=\"3\">"));
+        assertTrue(artifacts, artifacts.contains("id=\"a\""));
+        assertTrue(artifacts, artifacts.contains("id=\"f\""));
+        assertTrue(artifacts, artifacts.contains("id=\"launcher\""));
+        assertFalse(artifacts, artifacts.contains("id=\"b\""));
+        assertFalse(artifacts, artifacts.contains("id=\"c\""));
+        assertFalse(artifacts, artifacts.contains("id=\"g\""));
+    }
+
+    public void testDryRun() throws IOException {
+        String repository = createArtifactRepository();
+        Files.write(bundlePool.resolve("artifacts.xml"), repository.getBytes(StandardCharsets.UTF_8));
+
+        RuntimeCompactor compactor = compact(true);
+        assertEquals(1, compactor.getRemovedSnapshots());
+        assertEquals(3, compactor.getRemovedArtifacts());
+        assertTrue(Files.exists(profileDirectory.resolve("1000.profile")));
+        assertTrue(Files.exists(bundlePool.resolve("plugins/b_1.0.0.jar")));
+        assertTrue(Files.exists(bundlePool.resolve("plugins/c_1.0.0")));
+        assertTrue(Files.exists(bundlePool.resolve("features/g_1.0.0")));
+        assertEquals(repository, new String(Files.readAllBytes(bundlePool.resolve("artifacts.xml")),
+                StandardCharsets.UTF_8));
+    }
+
+    public void testWithoutArtifactRepository() throws IOException {
+        RuntimeCompactor compactor = compact(false);
+        assertEquals(1, compactor.getRemovedSnapshots());
+        assertEquals(0, compactor.getRemovedArtifacts());
+        assertTrue(Files.exists(bundlePool.resolve("plugins/b_1.0.0.jar")));
+        assertTrue(Files.exists(bundlePool.resolve("plugins/dropin_1.0.0.jar")));
+    }
+
+    public void testCompressedArtifactRepositoryKeepsPermissions() throws IOException {
+        Path artifactsJar = bundlePool.resolve("artifacts.jar");
+        try (OutputStream outputStream = Files.newOutputStream(artifactsJar);
+             ZipOutputStream zipStream = new ZipOutputStream(outputStream)) {
+            zipStream.putNextEntry(new ZipEntry("artifacts.xml"));
+            zipStream.write(createArtifactRepository().getBytes(StandardCharsets.UTF_8));
+            zipStream.closeEntry();
+        }
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        boolean posix = Files.getFileAttributeView(artifactsJar, PosixFileAttributeView.class) != null;
+        if (posix) {
+            Files.setPosixFilePermissions(artifactsJar, permissions);
+        }
+
+        compact(false);
+        assertFalse(Files.exists(bundlePool.resolve("plugins/b_1.0.0.jar")));
+        assertFalse(Files.exists(bundlePool.resolve("artifacts.xml")));
+        try (ZipFile zipFile = new ZipFile(artifactsJar.toFile());
+             InputStream inputStream = zipFile.getInputStream(zipFile.getEntry("artifacts.xml"))) {
+            String artifacts = new String(readAll(inputStream), StandardCharsets.UTF_8);
+            assertTrue(artifacts, artifacts.contains("<artifacts size=\"3\">"));
+            assertFalse(artifacts, artifacts.contains("id=\"b\""));
+        }
+        if (posix) {
+            assertEquals(permissions, Files.getPosixFilePermissions(artifactsJar));
+        }
+    }
+
+    private RuntimeCompactor compact(boolean dryRun) throws IOException {
+        RuntimeCompactor compactor = new RuntimeCompactor(destination.toFile(), 1, 2, dryRun, new SystemStreamLog());
+        compactor.compact();
+        return compactor;
+    }
+
+    private void writeProfile(String name, String... artifacts) throws IOException {
+        StringBuilder profile = new StringBuilder();
+        profile.append("<?xml version='1.0' encoding='UTF-8'?>\n")
+                .append("<profile id='default' timestamp='").append(name, 0, name.indexOf('.')).append("'>\n")
+                .append("  <properties size='1'>\n")
+                .append("    <property name='org.eclipse.equinox.p2.cache' value='").append(bundlePool)
+                .append("'/>\n")
+                .append("  </properties>\n")
+                .append("  <units size='").append(artifacts.length).append("'>\n");
+        for (String artifact : artifacts) {
+            String[] key = artifact.split(":");
+            profile.append("    <unit id='").append(key[1]).append("' version='1.0.0'>\n")
+                    .append("      <artifacts size='1'>\n")
+                    .append("        <artifact classifier='").append(key[0]).append("' id='").append(key[1])
+                    .append("' version='1.0.0'/>\n")
+                    .append("      </artifacts>\n")
+                    .append("    </unit>\n");
+        }
+        profile.append("  </units>\n</profile>\n");
+        Files.write(profileDirectory.resolve(name), profile.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String createArtifactRepository() {
+        return "<?xml version='1.0' encoding='UTF-8'?>\n"
+                + "<?artifactRepository version='1.1.0'?>\n"
+                + "<repository name='Bundle pool' type='org.eclipse.equinox.p2.artifact.repository.simpleRepository'"
+                + " version='1'>\n"
+                + "  <artifacts size='6'>\n"
+                + "    <artifact classifier='osgi.bundle' id='a' version='1.0.0'/>\n"
+                + "    <artifact classifier='osgi.bundle' id='b' version='1.0.0'/>\n"
+                + "    <artifact classifier='osgi.bundle' id='c' version='1.0.0'/>\n"
+                + "    <artifact classifier='org.eclipse.update.feature' id='f' version='1.0.0'/>\n"
+                + "    <artifact classifier='org.eclipse.update.feature' id='g' version='1.0.0'/>\n"
+                + "    <artifact classifier='binary' id='launcher' version='1.0.0'/>\n"
+                + "  </artifacts>\n"
+                + "</repository>\n";
+    }
+
+    private void write(String path) throws IOException {
+        Path file = bundlePool.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, path.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, length);
+        }
+        return outputStream.toByteArray();
+    }
+}
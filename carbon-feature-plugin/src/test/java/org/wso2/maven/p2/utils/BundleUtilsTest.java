@@ -0,0 +1,197 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks {@link BundleUtils#getOSGIVersion(String)} against the regular expression based conversion it replaced.
+ */
+public class BundleUtilsTest extends TestCase {
+
+    private static final char[] ALPHABET = {'0', '1', '9', '.', '-', 'a', 'Z', '_', 'x'};
+    private static final int MAX_LENGTH = 12;
+    private static final int SAMPLE_SIZE = 20000;
+    private static final long SEED = 20260101L;
+    private static final String[] SNAPSHOT_PREFIXES = {"1", "1.2", "1.2.3", "12", "1.22", "x"};
+    private static final String[] SNAPSHOT_SUFFIXES = {"-20150101.123456-1", "-20150101.123456-",
+            "-20150101.123456-12a", "-2015010.123456-1", "-20150101.12345-1", "-20150101-123456-1"};
+    private static final String[] VERSIONS = {"1.0.0-SNAPSHOT", "4.4.0", "5.0.0-m1", "1.0-SNAPSHOT", "1.0", "1",
+            "1.2.3.4.5", "1.0.0.v20150101", "2.6.0-wso2v1", "1.0-alpha-1", "1.2-rc-2", "3.0.0.CR1-SNAPSHOT", "1.0.0-",
+            "1.0.0.", "", "-", "1..0", "1.0.0-a-b-c", "0", "01.02.03", "1.2.3-4", "1.2.3-4-5", "1.2.3.4-5",
+            "1.2.3_4", "1-2", "1-2-3", "1.x", "1.2.x", "1.2.3.x.y", "1.x.y", "1.2.x.y", "1.2.3.a-b_c", "a", "a.b.c",
+            "1a", "1.2a", "1.2.3a", "1.0.0.SNAPSHOT", "1.0.0-SNAPSHOT.1", "10.20.30-RC1", "1.0.0-Z", "1.0_0",
+            "1.0.0..", ".1.0.0", "-1.0.0", "1.0.0-_", "1.-0", "1.0-", "9.9.9-9.9", "1.0-9.x", "1.0-a.b"};
+
+    public void testRandomVersions() {
+        Random random = new Random(SEED);
+        StringBuilder version = new StringBuilder();
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            version.setLength(0);
+            int length = random.nextInt(MAX_LENGTH + 1);
+            for (int j = 0; j < length; j++) {
+                version.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            assertSameConversion(version.toString());
+        }
+    }
+
+    public void testDatedSnapshotVersions() {
+        for (String prefix : SNAPSHOT_PREFIXES) {
+            for (String suffix : SNAPSHOT_SUFFIXES) {
+                assertSameConversion(prefix + suffix);
+                assertSameConversion(prefix + suffix + ".x");
+            }
+        }
+    }
+
+    public void testVersions() {
+        for (String version : VERSIONS) {
+            assertSameConversion(version);
+        }
+    }
+
+    public void testRepeatedConversions() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("1.0.0.SNAPSHOT", BundleUtils.getOSGIVersion("1.0-SNAPSHOT"));
+            assertEquals("4.4.0", BundleUtils.getOSGIVersion("4.4.0"));
+        }
+    }
+
+    private static void assertSameConversion(String version) {
+        assertEquals("[" + version + "]", convert(() -> LegacyBundleUtils.getOSGIVersion(version)),
+                convert(() -> BundleUtils.getOSGIVersion(version)));
+    }
+
+    private static String convert(Conversion conversion) {
+        try {
+            return conversion.convert();
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private interface Conversion {
+        String convert();
+    }
+
+    /**
+     * The conversion as it was before it was memoized, with its patterns compiled once.
+     */
+    private static class LegacyBundleUtils {
+
+        private static final Pattern OSGI_VERSION_PATTERN =
+                Pattern.compile("[0-9]+\\.[0-9]+\\.[0-9]+(\\.[0-9A-Za-z_-]+)?");
+        private static final Pattern ONLY_NUMBERS = Pattern.compile("[0-9]+");
+        private static final Pattern DATED_SNAPSHOT_PATTERN =
+                Pattern.compile("([0-9])(\\.([0-9]))?(\\.([0-9]))?\\-([0-9]{8}\\.[0-9]{6}\\-[0-9]*)");
+        private static final Pattern DOTS_IN_QUALIFIER_PATTERN =
+                Pattern.compile("([0-9])(\\.[0-9])?\\.([0-9A-Za-z_-]+)\\.([0-9A-Za-z_-]+)");
+        private static final Pattern NEED_TO_FILL_ZEROS_PATTERN =
+                Pattern.compile("([0-9])(\\.([0-9]))?(\\.([0-9A-Za-z_-]+))?");
+
+        static String getOSGIVersion(String version) {
+            String osgiVersion;
+            Matcher m;
+
+            m = OSGI_VERSION_PATTERN.matcher(version);
+            if (m.matches()) {
+                return version;
+            }
+
+            osgiVersion = version;
+
+            m = DATED_SNAPSHOT_PATTERN.matcher(osgiVersion);
+            if (m.matches()) {
+                String major = m.group(1);
+                String minor = (m.group(3) != null) ? m.group(3) : "0";
+                String service = (m.group(5) != null) ? m.group(5) : "0";
+                String qualifier = m.group(6).replaceAll("-", "_").replaceAll("\\.", "_");
+                osgiVersion = major + "." + minor + "." + service + "." + qualifier;
+            }
+
+            osgiVersion = osgiVersion.replaceFirst("-", "\\.");
+            osgiVersion = osgiVersion.replaceAll("-", "_");
+            m = OSGI_VERSION_PATTERN.matcher(osgiVersion);
+            if (m.matches()) {
+                return osgiVersion;
+            }
+
+            m = DOTS_IN_QUALIFIER_PATTERN.matcher(osgiVersion);
+            if (m.matches()) {
+                String s1 = m.group(1);
+                String s2 = m.group(2);
+                String s3 = m.group(3);
+                String s4 = m.group(4);
+
+                Matcher qualifierMatcher = ONLY_NUMBERS.matcher(s3);
+                if (!qualifierMatcher.matches()) {
+                    osgiVersion = s1 + s2 + "." + s3 + "_" + s4;
+                }
+            }
+
+            m = NEED_TO_FILL_ZEROS_PATTERN.matcher(osgiVersion);
+            if (m.matches()) {
+                String major = m.group(1);
+                String minor = m.group(3);
+                String service = null;
+                String qualifier = m.group(5);
+
+                if (qualifier == null) {
+                    osgiVersion = getOSGIVersion(major, minor, null, null);
+                } else {
+                    Matcher qualifierMatcher = ONLY_NUMBERS.matcher(qualifier);
+                    if (qualifierMatcher.matches()) {
+                        if (minor == null) {
+                            minor = qualifier;
+                        } else {
+                            service = qualifier;
+                        }
+                        osgiVersion = getOSGIVersion(major, minor, service, null);
+                    } else {
+                        osgiVersion = getOSGIVersion(major, minor, null, qualifier);
+                    }
+                }
+            }
+
+            m = OSGI_VERSION_PATTERN.matcher(osgiVersion);
+            if (!m.matches()) {
+                String qualifier = osgiVersion.replaceAll("\\.", "_");
+                osgiVersion = "0.0.0." + qualifier;
+            }
+
+            return osgiVersion;
+        }
+
+        private static String getOSGIVersion(String major, String minor, String service, String qualifier) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(major != null ? major : "0");
+            sb.append('.');
+            sb.append(minor != null ? minor : "0");
+            sb.append('.');
+            sb.append(service != null ? service : "0");
+            if (qualifier != null) {
+                sb.append('.');
+                sb.append(qualifier);
+            }
+            return sb.toString();
+        }
+    }
+}
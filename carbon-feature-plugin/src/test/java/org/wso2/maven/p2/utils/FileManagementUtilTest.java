@@ -0,0 +1,86 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Collections;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+/**
+ * Tests writing feature archives with {@link FileManagementUtil#zipFolderIfChanged(String, java.util.List, String)}.
+ */
+public class FileManagementUtilTest extends TestCase {
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("file-management-util-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        DirectoryDeleter.delete(directory);
+    }
+
+    public void testZipFolderIfChanged() throws IOException {
+        Path source = createSource("a");
+        Path zip = directory.resolve("feature.zip");
+
+        assertTrue(FileManagementUtil.zipFolderIfChanged(source.toString(), Collections.emptyList(), zip.toString()));
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertNotNull(zipFile.getEntry("feature/feature.xml"));
+        }
+        long lastModified = Files.getLastModifiedTime(zip).toMillis() - 10000;
+        Files.setLastModifiedTime(zip, FileTime.fromMillis(lastModified));
+
+        assertFalse(FileManagementUtil.zipFolderIfChanged(source.toString(), Collections.emptyList(),
+                zip.toString()));
+        assertEquals(lastModified, Files.getLastModifiedTime(zip).toMillis());
+
+        Files.write(source.resolve("feature/feature.xml"), "b".getBytes(StandardCharsets.UTF_8));
+        assertTrue(FileManagementUtil.zipFolderIfChanged(source.toString(), Collections.emptyList(), zip.toString()));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    public void testZipFolderIfChangedKeepsDefaultPermissions() throws IOException {
+        if (Files.getFileAttributeView(directory, PosixFileAttributeView.class) == null) {
+            return;
+        }
+        Path source = createSource("a");
+        Path zip = directory.resolve("feature.zip");
+        Path plainFile = Files.createFile(directory.resolve("plain"));
+
+        FileManagementUtil.zipFolderIfChanged(source.toString(), Collections.emptyList(), zip.toString());
+        assertEquals(Files.getPosixFilePermissions(plainFile), Files.getPosixFilePermissions(zip));
+    }
+
+    private Path createSource(String content) throws IOException {
+        Path source = Files.createDirectories(directory.resolve("source/feature"));
+        Files.write(source.resolve("feature.xml"), content.getBytes(StandardCharsets.UTF_8));
+        return source.getParent();
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Mirrors repositories served by an embedded http server with {@link P2RepositoryMirror}.
+ */
+public class P2RepositoryMirrorTest extends TestCase {
+
+    private static final long SEED = 20260101L;
+    private static final int ARTIFACT_SIZE = 10 * 1024;
+
+    private final Map<String, byte[]> served = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Random random = new Random(SEED);
+
+    private Path directory;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("p2-repository-mirror-test");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        DirectoryDeleter.delete(directory);
+    }
+
+    public void testConcurrentMirrors() throws Exception {
+        Map<String, byte[]> shared = createArtifacts("shared", 5);
+        Map<String, byte[]> first = new LinkedHashMap<>(shared);
+        first.putAll(createArtifacts("first", 5));
+        Map<String, byte[]> second = new LinkedHashMap<>(shared);
+        second.putAll(createArtifacts("second", 5));
+        URL firstRepository = publish("first", first);
+        URL secondRepository = publish("second", second);
+
+        int threadCount = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                URL repository = i % 2 == 0 ? firstRepository : secondRepository;
+                Map<String, byte[]> artifacts = i % 2 == 0 ? first : second;
+                results.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    try (P2RepositoryMirror.Lease lease = newMirror(Long.MAX_VALUE).mirror(repository)) {
+                        assertMirrored(lease, artifacts);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (String id : shared.keySet()) {
+            assertEquals(id, 1, getRequests("first", id) + getRequests("second", id));
+        }
+        for (String id : first.keySet()) {
+            if (!shared.containsKey(id)) {
+                assertEquals(id, 1, getRequests("first", id));
+            }
+        }
+        for (String id : second.keySet()) {
+            if (!shared.containsKey(id)) {
+                assertEquals(id, 1, getRequests("second", id));
+            }
+        }
+    }
+
+    public void testEvictionSkipsLeasedMirror() throws Exception {
+        Map<String, byte[]> first = createArtifacts("first", 2);
+        Map<String, byte[]> second = createArtifacts("second", 2);
+        URL firstRepository = publish("first", first);
+        URL secondRepository = publish("second", second);
+        long maxStoreBytes = 3 * ARTIFACT_SIZE / 2;
+
+        P2RepositoryMirror.Lease firstLease = newMirror(maxStoreBytes).mirror(firstRepository);
+        try {
+            ageStore();
+            newMirror(maxStoreBytes).mirror(secondRepository).close();
+            assertMirrored(firstLease, first);
+        } finally {
+            firstLease.close();
+        }
+
+        ageStore();
+        newMirror(maxStoreBytes).mirror(secondRepository).close();
+        assertEvicted(firstLease, first);
+        try (P2RepositoryMirror.Lease lease = newMirror(Long.MAX_VALUE).mirror(firstRepository)) {
+            assertMirrored(lease, first);
+        }
+        for (String id : first.keySet()) {
+            assertEquals(id, 2, getRequests("first", id));
+        }
+    }
+
+    public void testEvictionSkipsMirrorLeasedByAnotherProcess() throws Exception {
+        Map<String, byte[]> first = createArtifacts("first", 2);
+        Map<String, byte[]> second = createArtifacts("second", 2);
+        URL firstRepository = publish("first", first);
+        URL secondRepository = publish("second", second);
+        long maxStoreBytes = 3 * ARTIFACT_SIZE / 2;
+
+        P2RepositoryMirror.Lease firstLease = newMirror(maxStoreBytes).mirror(firstRepository);
+        firstLease.close();
+        Path leaseFile = Paths.get(firstLease.getLocation().toURI()).resolve(".lease");
+        Process holder = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), LeaseHolder.class.getName(), leaseFile.toString())
+                .redirectErrorStream(true).start();
+        try {
+            BufferedReader output = new BufferedReader(new InputStreamReader(holder.getInputStream(),
+                    StandardCharsets.UTF_8));
+            assertEquals(LeaseHolder.LOCKED, output.readLine());
+            ageStore();
+            newMirror(maxStoreBytes).mirror(secondRepository).close();
+            assertMirrored(firstLease, first);
+        } finally {
+            holder.getOutputStream().close();
+            holder.waitFor();
+        }
+
+        ageStore();
+        newMirror(maxStoreBytes).mirror(secondRepository).close();
+        assertEvicted(firstLease, first);
+    }
+
+    public void testStaleArtifactsKeptWhileLeased() throws Exception {
+        Map<String, byte[]> artifacts = createArtifacts("first", 3);
+        URL repository = publish("first", artifacts);
+        P2RepositoryMirror.Lease lease = newMirror(Long.MAX_VALUE).mirror(repository);
+        Path mirrorDirectory = Paths.get(lease.getLocation().toURI());
+        String removed = artifacts.keySet().iterator().next();
+        Map<String, byte[]> remaining = new LinkedHashMap<>(artifacts);
+        remaining.remove(removed);
+        try {
+            publish("first", remaining);
+            newMirror(Long.MAX_VALUE).mirror(repository).close();
+            assertMirrored(lease, artifacts);
+        } finally {
+            lease.close();
+        }
+
+        try (P2RepositoryMirror.Lease unleased = newMirror(Long.MAX_VALUE).mirror(repository)) {
+            assertMirrored(unleased, remaining);
+        }
+        assertFalse(Files.exists(mirrorDirectory.resolve("plugins/" + removed + "_1.0.0.jar")));
+        assertFalse(Files.exists(mirrorDirectory.resolve(".stale")));
+    }
+
+    public void testMirrorKeepsDefaultPermissions() throws Exception {
+        if (Files.getFileAttributeView(directory, PosixFileAttributeView.class) == null) {
+            return;
+        }
+        Map<String, byte[]> artifacts = createArtifacts("first", 1);
+        URL repository = publish("first", artifacts);
+        Path plainFile = Files.createFile(directory.resolve("plain"));
+
+        try (P2RepositoryMirror.Lease lease = newMirror(Long.MAX_VALUE).mirror(repository)) {
+            Path mirrorDirectory = Paths.get(lease.getLocation().toURI());
+            for (String name : new String[]{"artifacts.xml", "artifacts.index", "remote/validators.properties",
+                    "plugins/" + artifacts.keySet().iterator().next() + "_1.0.0.jar"}) {
+                assertEquals(name, Files.getPosixFilePermissions(plainFile),
+                        Files.getPosixFilePermissions(mirrorDirectory.resolve(name)));
+            }
+        }
+    }
+
+    private P2RepositoryMirror newMirror(long maxStoreBytes) {
+        return new P2RepositoryMirror(directory.resolve("m2").toString(), maxStoreBytes, new SystemStreamLog());
+    }
+
+    private Map<String, byte[]> createArtifacts(String prefix, int count) {
+        Map<String, byte[]> artifacts = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] content = new byte[ARTIFACT_SIZE];
+            random.nextBytes(content);
+            artifacts.put(prefix + ".bundle" + i, content);
+        }
+        return artifacts;
+    }
+
+    /**
+     * Serves a simple repository holding the given bundles, all at version 1.0.0.
+     */
+    private URL publish(String name, Map<String, byte[]> artifacts) throws IOException {
+        StringBuilder artifactsXml = new StringBuilder();
+        artifactsXml.append("<?xml version='1.0' encoding='UTF-8'?>\n")
+                .append("<?artifactRepository version='1.1.0'?>\n")
+                .append("<repository name='").append(name).append("' type='org.eclipse.equinox.p2.artifact.")
+                .append("repository.simpleRepository' version='1'>\n")
+                .append("  <properties size='1'><property name='p2.timestamp' value='")
+                .append(System.nanoTime()).append("'/></properties>\n")
+                .append("  <mappings size='1'>\n")
+                .append("    <rule filter='(&amp; (classifier=osgi.bundle))' ")
+                .append("output='${repoUrl}/plugins/${id}_${version}.jar'/>\n")
+                .append("  </mappings>\n")
+                .append("  <artifacts size='").append(artifacts.size()).append("'>\n");
+        served.keySet().removeIf(path -> path.startsWith("/" + name + "/plugins/"));
+        for (Map.Entry<String, byte[]> artifact : artifacts.entrySet()) {
+            artifactsXml.append("    <artifact classifier='osgi.bundle' id='").append(artifact.getKey())
+                    .append("' version='1.0.0'>\n")
+                    .append("      <properties size='2'>")
+                    .append("<property name='download.size' value='").append(artifact.getValue().length)
+                    .append("'/><property name='download.checksum.sha-256' value='")
+                    .append(sha256(artifact.getValue())).append("'/></properties>\n")
+                    .append("    </artifact>\n");
+            served.put("/" + name + "/plugins/" + artifact.getKey() + "_1.0.0.jar", artifact.getValue());
+        }
+        artifactsXml.append("  </artifacts>\n</repository>\n");
+        served.put("/" + name + "/artifacts.xml", artifactsXml.toString().getBytes(StandardCharsets.UTF_8));
+        served.put("/" + name + "/content.xml", ("<?xml version='1.0' encoding='UTF-8'?>\n<repository name='" + name
+                + "'/>\n").getBytes(StandardCharsets.UTF_8));
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/" + name + "/");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+        byte[] content = served.get(path);
+        try {
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String etag = "\"" + sha256(content) + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(content);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int getRequests(String repository, String id) {
+        AtomicInteger count = requests.get("/" + repository + "/plugins/" + id + "_1.0.0.jar");
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Makes every stored artifact older than the next mirror run, so that it may be evicted.
+     */
+    private void ageStore() throws IOException {
+        FileTime time = FileTime.fromMillis(System.currentTimeMillis() - 3600 * 1000L);
+        Path artifactStore = directory.resolve("m2/.cache/carbon-feature-plugin/p2-mirror/artifacts");
+        try (Stream<Path> files = Files.walk(artifactStore)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                Files.setLastModifiedTime(file, time);
+            }
+        }
+    }
+
+    private static void assertMirrored(P2RepositoryMirror.Lease lease, Map<String, byte[]> artifacts)
+            throws IOException, URISyntaxException {
+        Path mirrorDirectory = Paths.get(lease.getLocation().toURI());
+        assertTrue(Files.isRegularFile(mirrorDirectory.resolve("artifacts.xml")));
+        assertTrue(Files.isRegularFile(mirrorDirectory.resolve("content.xml")));
+        for (Map.Entry<String, byte[]> artifact : artifacts.entrySet()) {
+            Path location = mirrorDirectory.resolve("plugins/" + artifact.getKey() + "_1.0.0.jar");
+            assertTrue(location.toString(), Arrays.equals(artifact.getValue(), Files.readAllBytes(location)));
+        }
+    }
+
+    private static void assertEvicted(P2RepositoryMirror.Lease lease, Map<String, byte[]> artifacts)
+            throws URISyntaxException {
+        Path mirrorDirectory = Paths.get(lease.getLocation().toURI());
+        assertFalse(Files.exists(mirrorDirectory.resolve("artifacts.index")));
+        for (String id : artifacts.keySet()) {
+            assertFalse(id, Files.exists(mirrorDirectory.resolve("plugins/" + id + "_1.0.0.jar")));
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Holds a shared lock on a lease file, as a build using the mirror in another process does, until its standard
+     * input is closed.
+     */
+    public static final class LeaseHolder {
+
+        static final String LOCKED = "locked";
+
+        public static void main(String[] args) throws IOException {
+            try (FileChannel channel = FileChannel.open(new File(args[0]).toPath(), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                channel.lock(0, Long.MAX_VALUE, true);
+                System.out.println(LOCKED);
+                System.out.flush();
+                while (System.in.read() != -1) {
+                    // Wait for the test to close the standard input.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import junit.framework.TestCase;
+import org.apache.maven.project.MavenProject;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.wso2.maven.p2.repository.CatFeature;
+import org.wso2.maven.p2.repository.Category;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Tests the category file written by {@link P2Utils#createCategoryFile(MavenProject, List, File)}.
+ */
+public class P2UtilsTest extends TestCase {
+
+    private Path directory;
+    private MavenProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("p2-utils-test");
+        project = new MavenProject();
+        project.getProperties().setProperty("carbon.version", "4.4.0-SNAPSHOT");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        DirectoryDeleter.delete(directory);
+    }
+
+    /**
+     * The categories of a repository categorized by the category publisher after it is generated, and of one
+     * published as an update site in a single pass, are both read from the file written by createCategoryFile.
+     */
+    public void testSameCategoriesInBothModes() throws Exception {
+        File categoryDefinition = directory.resolve("equinox-p2category").toFile();
+        P2Utils.createCategoryFile(project, createCategories(), categoryDefinition);
+        File siteXml = Files.createDirectories(directory.resolve("source")).resolve("site.xml").toFile();
+        P2Utils.createCategoryFile(project, createCategories(), siteXml);
+
+        Map<String, Set<String>> expected = new TreeMap<>();
+        expected.put("server", new TreeSet<>(Arrays.asList("org.wso2.carbon.core:4.4.0.SNAPSHOT",
+                "org.wso2.carbon.registry:4.4.0.SNAPSHOT")));
+        expected.put("tools", new TreeSet<>(Arrays.asList("org.wso2.carbon.registry:4.4.0.SNAPSHOT",
+                "org.wso2.carbon.tools:1.0.0")));
+        expected.put("empty", new TreeSet<>());
+
+        Map<String, Set<String>> categoryPublisherIUs = readCategories(categoryDefinition, false);
+        Map<String, Set<String>> updateSitePublisherIUs = readCategories(siteXml, true);
+        assertEquals(expected, categoryPublisherIUs);
+        assertEquals(categoryPublisherIUs, updateSitePublisherIUs);
+    }
+
+    public void testCategoryLabels() throws Exception {
+        File categoryDefinition = directory.resolve("category.xml").toFile();
+        P2Utils.createCategoryFile(project, createCategories(), categoryDefinition);
+
+        Document document = XmlServices.getDocumentBuilder().parse(categoryDefinition);
+        NodeList categoryDefs = document.getElementsByTagName("category-def");
+        assertEquals(3, categoryDefs.getLength());
+        Element server = (Element) categoryDefs.item(0);
+        assertEquals("server", server.getAttribute("name"));
+        assertEquals("Carbon Server", server.getAttribute("label"));
+        assertEquals("Carbon Server", server.getElementsByTagName("description").item(0).getTextContent());
+    }
+
+    private static List<Category> createCategories() {
+        List<Category> categories = new ArrayList<>();
+        categories.add(createCategory("server", "Carbon Server", createFeature("org.wso2.carbon.core",
+                "${carbon.version}"), createFeature("org.wso2.carbon.registry", "${carbon.version}")));
+        categories.add(createCategory("tools", null, createFeature("org.wso2.carbon.registry", "${carbon.version}"),
+                createFeature("org.wso2.carbon.tools", "1.0.0")));
+        categories.add(createCategory("empty", null));
+        return categories;
+    }
+
+    private static Category createCategory(String id, String label, CatFeature... features) {
+        Category category = new Category();
+        category.setId(id);
+        category.setLabel(label);
+        category.setFeatures(new ArrayList<>(Arrays.asList(features)));
+        return category;
+    }
+
+    private static CatFeature createFeature(String id, String version) {
+        CatFeature feature = new CatFeature();
+        feature.setId(id);
+        feature.setVersion(version);
+        return feature;
+    }
+
+    /**
+     * Reads the features of each category the way the publishers do: every category-def is a category IU, and each
+     * feature element adds the feature IU to the categories it names. The site.xml parser of the update site
+     * publisher rejects features without a url.
+     */
+    private static Map<String, Set<String>> readCategories(File file, boolean siteXml) throws Exception {
+        Document document = XmlServices.getDocumentBuilder().parse(file);
+        Map<String, Set<String>> categories = new TreeMap<>();
+        NodeList categoryDefs = document.getElementsByTagName("category-def");
+        for (int i = 0; i < categoryDefs.getLength(); i++) {
+            categories.put(((Element) categoryDefs.item(i)).getAttribute("name"), new TreeSet<>());
+        }
+        NodeList features = document.getElementsByTagName("feature");
+        for (int i = 0; i < features.getLength(); i++) {
+            Element feature = (Element) features.item(i);
+            String id = feature.getAttribute("id");
+            String version = feature.getAttribute("version");
+            if (siteXml) {
+                assertEquals("features/" + id + "_" + version + ".jar", feature.getAttribute("url"));
+            }
+            NodeList featureCategories = feature.getElementsByTagName("category");
+            for (int j = 0; j < featureCategories.getLength(); j++) {
+                String name = ((Element) featureCategories.item(j)).getAttribute("name");
+                assertTrue(name, categories.containsKey(name));
+                categories.get(name).add(id + ":" + version);
+            }
+        }
+        return categories;
+    }
+}
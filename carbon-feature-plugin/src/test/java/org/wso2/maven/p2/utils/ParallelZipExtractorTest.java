@@ -0,0 +1,205 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Tests {@link ParallelZipExtractor}.
+ */
+public class ParallelZipExtractorTest extends TestCase {
+
+    private static final long SEED = 20260101L;
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("parallel-zip-extractor-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        DirectoryDeleter.delete(directory);
+    }
+
+    public void testSameOutputAsSequentialUnzip() throws IOException {
+        Map<String, byte[]> entries = new TreeMap<>();
+        Random random = new Random(SEED);
+        for (int i = 0; i < 200; i++) {
+            byte[] content = new byte[random.nextInt(i % 50 == 0 ? 2 * 1024 * 1024 : 4096)];
+            random.nextBytes(content);
+            entries.put("plugins/bundle" + (i % 7) + "/file" + i + ".bin", content);
+        }
+        entries.put("feature.xml", "<feature/>".getBytes(StandardCharsets.UTF_8));
+        entries.put("empty.txt", new byte[0]);
+        Path archive = createZip(entries, "plugins/", "plugins/bundle0/");
+
+        Path parallel = directory.resolve("parallel");
+        Path sequential = directory.resolve("sequential");
+        new ParallelZipExtractor(4).extract(archive, parallel);
+        unzipSequentially(archive.toFile(), sequential.toFile());
+
+        Map<String, byte[]> parallelFiles = readTree(parallel);
+        Map<String, byte[]> sequentialFiles = readTree(sequential);
+        assertEquals(sequentialFiles.keySet(), parallelFiles.keySet());
+        assertEquals(entries.keySet(), parallelFiles.keySet());
+        for (Map.Entry<String, byte[]> file : sequentialFiles.entrySet()) {
+            assertTrue(file.getKey(), Arrays.equals(file.getValue(), parallelFiles.get(file.getKey())));
+        }
+    }
+
+    public void testDirectoryEntries() throws IOException {
+        Map<String, byte[]> entries = new TreeMap<>();
+        entries.put("a/b/c.txt", "c".getBytes(StandardCharsets.UTF_8));
+        Path archive = createZip(entries, "empty/", "a/", "a/b/", "nested/empty/");
+
+        Path destination = directory.resolve("out");
+        new ParallelZipExtractor(2).extract(archive, destination);
+        assertTrue(Files.isDirectory(destination.resolve("empty")));
+        assertTrue(Files.isDirectory(destination.resolve("nested/empty")));
+        assertTrue(Files.isDirectory(destination.resolve("a/b")));
+        assertEquals("c", new String(Files.readAllBytes(destination.resolve("a/b/c.txt")), StandardCharsets.UTF_8));
+    }
+
+    public void testRejectsEntryOutsideDestination() throws IOException {
+        Map<String, byte[]> entries = new TreeMap<>();
+        entries.put("a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        entries.put("../evil.txt", "evil".getBytes(StandardCharsets.UTF_8));
+        Path archive = createZip(entries);
+
+        Path destination = directory.resolve("out");
+        try {
+            new ParallelZipExtractor(2).extract(archive, destination);
+            fail("An entry outside of the destination was extracted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("../evil.txt"));
+        }
+        assertFalse(Files.exists(directory.resolve("evil.txt")));
+        assertFalse(Files.exists(destination.resolve("a.txt")));
+    }
+
+    public void testReplacesHardLinkedTarget() throws IOException {
+        Path original = Files.write(directory.resolve("original.txt"), "original".getBytes(StandardCharsets.UTF_8));
+        Path destination = Files.createDirectories(directory.resolve("out"));
+        try {
+            Files.createLink(destination.resolve("a.txt"), original);
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        Map<String, byte[]> entries = new TreeMap<>();
+        entries.put("a.txt", "extracted".getBytes(StandardCharsets.UTF_8));
+
+        new ParallelZipExtractor(1).extract(createZip(entries), destination);
+        assertEquals("extracted", new String(Files.readAllBytes(destination.resolve("a.txt")),
+                StandardCharsets.UTF_8));
+        assertEquals("original", new String(Files.readAllBytes(original), StandardCharsets.UTF_8));
+    }
+
+    public void testExtractsWithDefaultPermissions() throws IOException {
+        if (Files.getFileAttributeView(directory, PosixFileAttributeView.class) == null) {
+            return;
+        }
+        Map<String, byte[]> entries = new TreeMap<>();
+        entries.put("a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        entries.put("b.txt", "b".getBytes(StandardCharsets.UTF_8));
+        Path destination = directory.resolve("out");
+        Path plainFile = Files.createFile(directory.resolve("plain"));
+
+        new ParallelZipExtractor(2).extract(createZip(entries), destination);
+        assertEquals(Files.getPosixFilePermissions(plainFile),
+                Files.getPosixFilePermissions(destination.resolve("a.txt")));
+    }
+
+    private Path createZip(Map<String, byte[]> files, String... directories) throws IOException {
+        Path archive = Files.createTempFile(directory, "archive", ".zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (String name : directories) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.closeEntry();
+            }
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue());
+                zip.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+    private static Map<String, byte[]> readTree(Path root) throws IOException {
+        Map<String, byte[]> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                files.put(root.relativize(path).toString().replace(File.separatorChar, '/'),
+                        Files.readAllBytes(path));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * The sequential extraction {@link ParallelZipExtractor} replaced.
+     */
+    private static void unzipSequentially(File archiveFile, File destination) throws IOException {
+        int bufferSize = 2048;
+        try (FileInputStream fis = new FileInputStream(archiveFile);
+             ZipInputStream zis = new ZipInputStream(new BufferedInputStream(fis))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                int count;
+                byte[] data = new byte[bufferSize];
+                File file = new File(destination, entry.getName());
+                if (entry.getName().endsWith("/")) {
+                    if (!file.exists() && !file.mkdirs()) {
+                        throw new IOException("Failed to create directories at " + file.getAbsolutePath());
+                    }
+                    continue;
+                }
+                if (file.getParentFile() != null && !file.getParentFile().exists()
+                        && !file.getParentFile().mkdirs()) {
+                    throw new IOException("Failed to create directories at " + file.getAbsolutePath());
+                }
+                try (OutputStream dest = new BufferedOutputStream(new FileOutputStream(file), bufferSize)) {
+                    while ((count = zis.read(data, 0, bufferSize)) != -1) {
+                        dest.write(data, 0, count);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ *  Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.maven.p2.utils;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes archives with {@link ParallelZipWriter} and reads them back with {@link ZipFile}.
+ */
+public class ParallelZipWriterTest extends TestCase {
+
+    private static final long SEED = 20260101L;
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("parallel-zip-writer-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        DirectoryDeleter.delete(directory);
+    }
+
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(SEED);
+        Map<String, byte[]> files = new TreeMap<>();
+        for (int i = 0; i < 300; i++) {
+            byte[] content = new byte[random.nextInt(i % 40 == 0 ? 1024 * 1024 : 8192)];
+            if (i % 2 == 0) {
+                random.nextBytes(content);
+            } else {
+                Arrays.fill(content, (byte) ('a' + i % 26));
+            }
+            files.put("plugins/bundle" + (i % 5) + "/file" + i + ".bin", content);
+        }
+        files.put("plugins/org.wso2.bundle_1.0.0.jar", randomBytes(random, 64 * 1024));
+        files.put("features/feature.zip", randomBytes(random, 16 * 1024));
+        files.put("feature.xml", "<feature/>".getBytes(StandardCharsets.UTF_8));
+        files.put("empty.txt", new byte[0]);
+        Path source = createTree(files);
+        Files.createDirectories(source.resolve("empty/nested"));
+
+        Path zip = directory.resolve("out.zip");
+        new ParallelZipWriter(4).zipFolder(source, zip);
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertSameFiles(files, zipFile);
+            assertTrue(zipFile.getEntry("empty/").isDirectory());
+            assertTrue(zipFile.getEntry("empty/nested/").isDirectory());
+            assertTrue(zipFile.getEntry("plugins/").isDirectory());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("plugins/org.wso2.bundle_1.0.0.jar").getMethod());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("features/feature.zip").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("feature.xml").getMethod());
+            assertPrecedesChildren(zipFile);
+        }
+    }
+
+    public void testLargeEntries() throws IOException {
+        Random random = new Random(SEED);
+        Map<String, byte[]> files = new TreeMap<>();
+        files.put("large.bin", randomBytes(random, 9 * 1024 * 1024));
+        byte[] compressible = new byte[12 * 1024 * 1024];
+        Arrays.fill(compressible, (byte) 'x');
+        files.put("compressible.txt", compressible);
+        files.put("large.jar", randomBytes(random, 9 * 1024 * 1024 + 17));
+        files.put("small.txt", "small".getBytes(StandardCharsets.UTF_8));
+        Path source = createTree(files);
+
+        Path zip = directory.resolve("out.zip");
+        new ParallelZipWriter(2).zipFolder(source, zip);
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertSameFiles(files, zipFile);
+            ZipEntry entry = zipFile.getEntry("compressible.txt");
+            assertEquals(compressible.length, entry.getSize());
+            assertTrue(entry.getCompressedSize() < compressible.length / 100);
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("large.jar").getMethod());
+        }
+    }
+
+    public void testZip64EntryCount() throws IOException {
+        Map<String, byte[]> files = new TreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            files.put("d" + (i % 4) + "/f" + i, Integer.toString(i).getBytes(StandardCharsets.UTF_8));
+        }
+        Path source = createTree(files);
+        Map<String, byte[]> archived = new TreeMap<>();
+        for (int i = 0; i < 0x10000; i++) {
+            archived.put("a/f" + i, Integer.toString(i).getBytes(StandardCharsets.UTF_8));
+        }
+        Path archive = createZip(archived);
+        files.putAll(archived);
+
+        Path zip = directory.resolve("out.zip");
+        new ParallelZipWriter(4).zipFolder(source, Collections.singletonList(archive), zip);
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertEquals(files.size() + 4, zipFile.size());
+            assertSameFiles(files, zipFile);
+        }
+    }
+
+    public void testMergeArchives() throws IOException {
+        Random random = new Random(SEED);
+        Map<String, byte[]> files = new TreeMap<>();
+        files.put("feature.xml", "<feature id=\"a\"/>".getBytes(StandardCharsets.UTF_8));
+        files.put("plugins/a.txt", "source".getBytes(StandardCharsets.UTF_8));
+        Path source = createTree(files);
+
+        byte[] stored = randomBytes(random, 32 * 1024);
+        byte[] deflated = new byte[64 * 1024];
+        Arrays.fill(deflated, (byte) 'd');
+        Path first = directory.resolve("first.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(first)))) {
+            zip.putNextEntry(new ZipEntry("features/"));
+            zip.closeEntry();
+            CRC32 crc = new CRC32();
+            crc.update(stored);
+            ZipEntry storedEntry = new ZipEntry("features/b.jar");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            storedEntry.setCrc(crc.getValue());
+            zip.putNextEntry(storedEntry);
+            zip.write(stored);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("features/b.txt"));
+            zip.write(deflated);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("plugins/a.txt"));
+            zip.write("first".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        Map<String, byte[]> second = new TreeMap<>();
+        second.put("plugins/a.txt", "second".getBytes(StandardCharsets.UTF_8));
+        second.put("plugins/c.txt", "c".getBytes(StandardCharsets.UTF_8));
+
+        Path zip = directory.resolve("out.zip");
+        new ParallelZipWriter(4).zipFolder(source, Arrays.asList(first, createZip(second)), zip);
+
+        files.put("features/b.jar", stored);
+        files.put("features/b.txt", deflated);
+        files.putAll(second);
+        try (ZipFile zipFile = new ZipFile(zip.toFile()); ZipFile firstFile = new ZipFile(first.toFile())) {
+            assertSameFiles(files, zipFile);
+            assertTrue(zipFile.getEntry("features/").isDirectory());
+            for (String name : new String[]{"features/b.jar", "features/b.txt"}) {
+                ZipEntry merged = zipFile.getEntry(name);
+                ZipEntry original = firstFile.getEntry(name);
+                assertEquals(name, original.getMethod(), merged.getMethod());
+                assertEquals(name, original.getCompressedSize(), merged.getCompressedSize());
+                assertEquals(name, original.getCrc(), merged.getCrc());
+            }
+            List<String> names = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+            assertTrue(names.indexOf("plugins/a.txt") < names.indexOf("features/b.jar"));
+            assertEquals(names.size(), new HashSet<>(names).size());
+        }
+    }
+
+    public void testReproducible() throws IOException {
+        Random random = new Random(SEED);
+        Map<String, byte[]> files = new TreeMap<>();
+        for (int i = 0; i < 50; i++) {
+            files.put("dir" + (i % 3) + "/file" + i, randomBytes(random, random.nextInt(4096)));
+        }
+        Path source = createTree(files);
+
+        Path first = directory.resolve("first.zip");
+        Path second = directory.resolve("second.zip");
+        new ParallelZipWriter(4, true).zipFolder(source, first);
+        Files.setLastModifiedTime(source.resolve("dir0/file0"),
+                FileTime.fromMillis(System.currentTimeMillis() - 86400000L));
+        new ParallelZipWriter(1, true).zipFolder(source, second);
+
+        assertTrue(Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(second)));
+        try (ZipFile zipFile = new ZipFile(first.toFile())) {
+            assertSameFiles(files, zipFile);
+            List<String> names = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+            List<String> sorted = new ArrayList<>(names);
+            sorted.sort(null);
+            assertEquals(sorted, names);
+        }
+    }
+
+    private Path createTree(Map<String, byte[]> files) throws IOException {
+        Path source = Files.createDirectories(directory.resolve("source"));
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            Path path = source.resolve(file.getKey());
+            Files.createDirectories(path.getParent());
+            Files.write(path, file.getValue());
+        }
+        return source;
+    }
+
+    private Path createZip(Map<String, byte[]> files) throws IOException {
+        Path archive = Files.createTempFile(directory, "archive", ".zip");
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(archive)))) {
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue());
+                zip.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static Map<String, byte[]> readFiles(ZipFile zipFile) throws IOException {
+        Map<String, byte[]> files = new TreeMap<>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, count);
+                }
+                files.put(entry.getName(), out.toByteArray());
+            }
+        }
+        return files;
+    }
+
+    private static void assertSameFiles(Map<String, byte[]> files, ZipFile zipFile) throws IOException {
+        Map<String, byte[]> archived = readFiles(zipFile);
+        assertEquals(files.keySet(), archived.keySet());
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            assertTrue(file.getKey(), Arrays.equals(file.getValue(), archived.get(file.getKey())));
+        }
+    }
+
+    private static void assertPrecedesChildren(ZipFile zipFile) {
+        List<String> seen = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            int slash = name.lastIndexOf('/', name.length() - 2);
+            if (slash > 0) {
+                assertTrue(name, seen.contains(name.substring(0, slash + 1)));
+            }
+            seen.add(name);
+        }
+    }
+}